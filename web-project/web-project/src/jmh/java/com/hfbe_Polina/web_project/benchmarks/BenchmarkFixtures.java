@@ -0,0 +1,78 @@
+package com.hfbe_Polina.web_project.benchmarks;
+
+import com.hfbe_Polina.web_project.WebProjectApplication;
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общие заготовки бенчмарков: запуск приложения и корректные сущности.
+ *
+ * <p>
+ * Приложение запускается с тестовым classpath, поэтому берёт настройки из
+ * {@code src/test/resources/config/application.properties} — встроенную H2
+ * вместо PostgreSQL.
+ * </p>
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Запускает приложение на случайном порту без лишнего логирования.
+     *
+     * <p>Свойства передаются как аргументы командной строки, чтобы они
+     * перекрывали значения из application.properties.</p>
+     *
+     * @param properties дополнительные свойства {@code key=value}
+     * @return контекст приложения; закрывается в {@code @TearDown}
+     */
+    static ConfigurableApplicationContext startApplication(String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(WebProjectApplication.class).run(args.toArray(String[]::new));
+    }
+
+    static Owner owner(long n) {
+        Owner owner = new Owner();
+        owner.setName("Владелец");
+        owner.setEmail("owner" + n + "@bench.test");
+        owner.setPhone(String.format("8%010d", n));
+        return owner;
+    }
+
+    static Pet pet(Owner owner, long n) {
+        Pet pet = new Pet();
+        pet.setName("Барсик");
+        pet.setSpecies("Кошка");
+        pet.setBreed("Сиамская");
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        pet.setPassportNumber(String.format("%010d", n));
+        pet.setOwner(owner);
+        return pet;
+    }
+
+    static Visit visit(Pet pet, LocalDate date, LocalTime time) {
+        Visit visit = new Visit();
+        visit.setDate(date);
+        visit.setTime(time);
+        visit.setDiagnosis("Осмотр");
+        visit.setTreatment("Нет");
+        visit.setPet(pet);
+        return visit;
+    }
+}
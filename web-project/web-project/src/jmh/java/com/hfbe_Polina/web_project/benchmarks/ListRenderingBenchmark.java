@@ -0,0 +1,122 @@
+package com.hfbe_Polina.web_project.benchmarks;
+
+import com.hfbe_Polina.web_project.dto.PetListItem;
+import com.hfbe_Polina.web_project.dto.VisitListItem;
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отрисовка шаблонов owners/list, pets/list и visits/list.
+ *
+ * <p>
+ * Шаблон отрисовывается тем же {@link ThymeleafViewResolver}, что и в приложении,
+ * с включённым кэшем шаблонов (как в профиле prod). {@code render} — без кэша
+ * фрагментов, замеряется именно обход строк; {@code renderCachedListing} — попадание
+ * в кэш фрагментов, когда таблица списка подставляется готовым HTML. Строки строятся
+ * в памяти, вывод отбрасывается.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListRenderingBenchmark {
+
+    @Param({"owners", "pets", "visits"})
+    public String list;
+
+    @Param({"100", "10000", "100000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private View view;
+    private Map<String, Object> model;
+    private Map<String, Object> cachedModel;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkFixtures.startApplication("spring.thymeleaf.cache=true");
+        view = context.getBean(ThymeleafViewResolver.class).resolveViewName(list + "/list", Locale.getDefault());
+
+        List<Object> content = new ArrayList<>(rows);
+        for (long id = 1; id <= rows; id++) {
+            content.add(row(id));
+        }
+        model = Map.of("page", new KeysetPage<>(content, "id", "asc", rows, "next", "prev"), list, content);
+
+        // Фрагмент listing отрисовывается один раз — так его хранит кэш фрагментов
+        MockHttpServletResponse listing = new MockHttpServletResponse();
+        context.getBean(ThymeleafViewResolver.class).resolveViewName(list + "/list :: listing", Locale.getDefault())
+                .render(new HashMap<>(model), new MockHttpServletRequest("GET", "/" + list), listing);
+        cachedModel = Map.of("listingHtml", listing.getContentAsString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int render() throws Exception {
+        DiscardingResponse response = new DiscardingResponse();
+        view.render(new HashMap<>(model), new MockHttpServletRequest("GET", "/" + list), response);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int renderCachedListing() throws Exception {
+        DiscardingResponse response = new DiscardingResponse();
+        view.render(new HashMap<>(cachedModel), new MockHttpServletRequest("GET", "/" + list), response);
+        return response.getStatus();
+    }
+
+    private Object row(long id) {
+        return switch (list) {
+            case "owners" -> {
+                Owner owner = BenchmarkFixtures.owner(id);
+                owner.setId(id);
+                yield owner;
+            }
+            case "pets" -> new PetListItem(id, "Барсик", LocalDate.of(2020, 1, 1), String.format("%010d", id),
+                    "Кошка", "Сиамская", "Владелец");
+            case "visits" -> new VisitListItem(id, LocalDate.of(2026, 3, 2), LocalTime.of(10, 0),
+                    "Осмотр", "Нет", "Барсик");
+            default -> throw new IllegalArgumentException(list);
+        };
+    }
+
+    // Ответ, вывод которого никуда не пишется
+    private static final class DiscardingResponse extends HttpServletResponseWrapper {
+
+        private final PrintWriter writer = new PrintWriter(Writer.nullWriter());
+
+        DiscardingResponse() {
+            super(new MockHttpServletResponse());
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.hfbe_Polina.web_project.benchmarks;
+
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.services.OwnerSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсказки владельцев {@link OwnerSearchIndex} на больших справочниках.
+ *
+ * <p>
+ * Индекс заполняется теми же событиями, что и после сохранения через сервис,
+ * без Spring и БД. Имена собираются из небольшого набора фамилий и имён, поэтому
+ * короткий префикс имени совпадает с десятками тысяч владельцев — худший случай
+ * для поиска. Цель — меньше 5 мс на запрос при миллионе владельцев.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OwnerSearchBenchmark {
+
+    private static final String[] SURNAMES = {"Иванов", "Петров", "Сидоров", "Смирнов", "Кузнецов",
+            "Попов", "Васильев", "Соколов", "Михайлов", "Новиков"};
+    private static final String[] NAMES = {"Пётр", "Иван", "Анна", "Мария", "Олег",
+            "Ольга", "Сергей", "Елена", "Дмитрий", "Наталья"};
+    private static final int LIMIT = 10;
+
+    @Param({"10000", "1000000"})
+    public int owners;
+
+    private OwnerSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new OwnerSearchIndex(null, null);
+        for (long n = 1; n <= owners; n++) {
+            String name = SURNAMES[(int) (n % SURNAMES.length)] + " " + NAMES[(int) (n / SURNAMES.length % NAMES.length)];
+            index.onOwnerChanged(new OwnerChangedEvent(n, name, "owner" + n + "@bench.test",
+                    String.format("8%010d", n), ChangeType.SAVED));
+        }
+    }
+
+    @Benchmark
+    public List<OwnerSuggestion> searchByNamePrefix() {
+        return index.search("ив", LIMIT);
+    }
+
+    @Benchmark
+    public List<OwnerSuggestion> searchBySecondWord() {
+        return index.search("ольг", LIMIT);
+    }
+
+    @Benchmark
+    public List<OwnerSuggestion> searchByEmail() {
+        return index.search("owner4242", LIMIT);
+    }
+
+    @Benchmark
+    public List<OwnerSuggestion> searchByPhone() {
+        return index.search("+7 000 00", LIMIT);
+    }
+
+    @Benchmark
+    public List<OwnerSuggestion> searchWithoutMatches() {
+        return index.search("яя", LIMIT);
+    }
+}
@@ -0,0 +1,79 @@
+package com.hfbe_Polina.web_project.benchmarks;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation сущностей, как при отправке форм ({@code @Valid}).
+ *
+ * <p>
+ * Отдельно замеряется некорректный владелец: нарушения требуют интерполяции
+ * сообщений, что заметно дороже проверки корректного объекта.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Owner owner;
+    private Owner invalidOwner;
+    private Pet pet;
+    private Visit visit;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+
+        owner = BenchmarkFixtures.owner(1);
+        pet = BenchmarkFixtures.pet(owner, 1);
+        visit = BenchmarkFixtures.visit(pet, LocalDate.of(2026, 3, 2), LocalTime.of(10, 0));
+
+        invalidOwner = BenchmarkFixtures.owner(2);
+        invalidOwner.setName("Bad Name 1");
+        invalidOwner.setEmail("not-an-email");
+        invalidOwner.setPhone("123");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Owner>> validateOwner() {
+        return validator.validate(owner);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Owner>> validateInvalidOwner() {
+        return validator.validate(invalidOwner);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Pet>> validatePet() {
+        return validator.validate(pet);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Visit>> validateVisit() {
+        return validator.validate(visit);
+    }
+}
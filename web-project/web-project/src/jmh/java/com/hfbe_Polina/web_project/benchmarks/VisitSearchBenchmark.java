@@ -0,0 +1,66 @@
+package com.hfbe_Polina.web_project.benchmarks;
+
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.services.VisitTextIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полнотекстовый поиск визитов {@link VisitTextIndex} на миллионах записей.
+ *
+ * <p>
+ * Индекс заполняется событиями без Spring и БД. Диагнозы собраны из небольшого
+ * словаря: «осмотр» есть в шести визитах из семи — худший случай, когда ранжировать
+ * приходится почти весь индекс; «дерматит аллергический» за период — типичный
+ * запрос врача; «отит» не встречается вовсе.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VisitSearchBenchmark {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+    private static final int PAGE = 20;
+
+    @Param({"100000", "1000000"})
+    public int visits;
+
+    private VisitTextIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new VisitTextIndex(null, null);
+        for (long n = 1; n <= visits; n++) {
+            String diagnosis = (n % 7 == 0 ? "Дерматит " : "Осмотр ") + (n % 13 == 0 ? "аллергический" : "плановый");
+            index.onVisitChanged(new VisitChangedEvent(n, 1L, FIRST_DAY.plusDays(n % 800), null,
+                    diagnosis, "Мазь " + n % 100 + " раз в день", ChangeType.SAVED));
+        }
+    }
+
+    @Benchmark
+    public VisitTextIndex.Hits commonWord() {
+        return index.search("осмотр", null, null, 0, PAGE);
+    }
+
+    @Benchmark
+    public VisitTextIndex.Hits twoWordsInPeriod() {
+        return index.search("дерматит аллергический", FIRST_DAY, FIRST_DAY.plusDays(90), 0, PAGE);
+    }
+
+    @Benchmark
+    public VisitTextIndex.Hits prefixFifthPage() {
+        return index.search("дерм", null, null, 4 * PAGE, PAGE);
+    }
+
+    @Benchmark
+    public VisitTextIndex.Hits missingWord() {
+        return index.search("отит", null, null, 0, PAGE);
+    }
+}
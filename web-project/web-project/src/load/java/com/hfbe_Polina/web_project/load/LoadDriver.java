@@ -0,0 +1,169 @@
+package com.hfbe_Polina.web_project.load;
+
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки: заданное число потоков шлёт запросы смешанных операций.
+ *
+ * <p><b>Режимы:</b></p>
+ * <ul>
+ *     <li>Замкнутый цикл ({@code rate=0}) — каждый поток отправляет следующий запрос
+ *         сразу после ответа; показывает предельную пропускную способность</li>
+ *     <li>Заданная частота — каждый поток работает по своему расписанию, и задержка
+ *         считается от запланированного момента отправки, а не от фактического.
+ *         Так ожидание в очереди при перегрузке попадает в перцентили
+ *         (поправка на coordinated omission)</li>
+ * </ul>
+ *
+ * <p>Задержки пишутся в {@link Recorder} HdrHistogram в микросекундах: запись
+ * без блокировок, чтение гистограммы ступени не останавливает потоки.</p>
+ */
+final class LoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final URI base;
+    private final SeedData seed;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(HttpClient client, URI base, SeedData seed, Map<Operation, Integer> mix) {
+        this.client = client;
+        this.base = base;
+        this.seed = seed;
+        this.operations = mix.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Прогоняет одну ступень нагрузки.
+     *
+     * @param concurrency число потоков
+     * @param duration    длительность ступени
+     * @param rate        целевая частота запросов в секунду на всю ступень, 0 — замкнутый цикл
+     * @return результаты по операциям
+     */
+    StageResult run(int concurrency, Duration duration, int rate) throws InterruptedException {
+        Map<Operation, EndpointStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new EndpointStats());
+        }
+        long intervalNanos = rate > 0 ? concurrency * 1_000_000_000L / rate : 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int worker = 0; worker < concurrency; worker++) {
+            // Расписания потоков сдвинуты, чтобы запросы не уходили пачками
+            long firstStart = started + intervalNanos * worker / concurrency;
+            Random random = new Random();
+            workers.add(executor.submit(() -> {
+                work(stats, random, firstStart, deadline, intervalNanos);
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+        Map<Operation, StageResult.EndpointResult> endpoints = new EnumMap<>(Operation.class);
+        stats.forEach((operation, endpoint) -> endpoints.put(operation, endpoint.result()));
+        return new StageResult(concurrency, elapsed, endpoints);
+    }
+
+    private void work(Map<Operation, EndpointStats> stats, Random random, long firstStart, long deadline,
+                      long intervalNanos) throws InterruptedException {
+        long intended = firstStart;
+        while (true) {
+            if (intervalNanos > 0) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= deadline || Thread.currentThread().isInterrupted()) {
+                return;
+            }
+
+            Operation operation = pick(random);
+            HttpRequest request = operation.request(base, seed, random).timeout(REQUEST_TIMEOUT).build();
+            Operation.Outcome outcome;
+            try {
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                outcome = operation.classify(status);
+            } catch (IOException e) {
+                outcome = Operation.Outcome.ERROR;
+            }
+            stats.get(operation).record(outcome, System.nanoTime() - intended);
+            intended += intervalNanos;
+        }
+    }
+
+    private Operation pick(Random random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    // Счётчики и гистограмма одной операции
+    private static final class EndpointStats {
+
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder success = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        void record(Operation.Outcome outcome, long nanos) {
+            switch (outcome) {
+                case SUCCESS -> success.increment();
+                case REJECTED -> rejected.increment();
+                case ERROR -> errors.increment();
+            }
+            // Ошибки и таймауты тоже входят в перцентили: иначе при перегрузке p99 не растёт
+            latency.recordValue(nanos / 1_000);
+        }
+
+        StageResult.EndpointResult result() {
+            return new StageResult.EndpointResult(latency.getIntervalHistogram(),
+                    success.sum(), rejected.sum(), errors.sum());
+        }
+    }
+}
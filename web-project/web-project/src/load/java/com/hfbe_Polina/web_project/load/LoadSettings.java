@@ -0,0 +1,123 @@
+package com.hfbe_Polina.web_project.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры нагрузочного прогона.
+ *
+ * <p>
+ * Задаются аргументами {@code key=value}; все необязательны:
+ * </p>
+ *
+ * <ul>
+ *     <li>{@code concurrency=1,8,32,64} — уровни параллельности, каждый прогоняется отдельной ступенью</li>
+ *     <li>{@code duration=30s} — длительность одной ступени</li>
+ *     <li>{@code warmup=10s} — прогрев на максимальной параллельности, в отчёт не входит</li>
+ *     <li>{@code rate=0} — целевая частота запросов в секунду на ступень; 0 — замкнутый цикл
+ *         (следующий запрос сразу после ответа)</li>
+ *     <li>{@code owners=200} — сколько владельцев (по одному животному и визиту) засеять</li>
+ *     <li>{@code mix=list:50,add:30,edit-form:10,edit:10} — доли операций</li>
+ *     <li>{@code out=target/load-result.csv} — файл со сводкой по всем ступеням</li>
+ *     <li>{@code profile=virtual} — профили Spring приложения; {@code virtual} включает
+ *         виртуальные потоки и bulkhead соединений, для сравнения режимов прогон
+ *         повторяется с профилем и без</li>
+ * </ul>
+ *
+ * @param concurrency уровни параллельности
+ * @param duration    длительность ступени
+ * @param warmup      длительность прогрева
+ * @param rate        целевая частота запросов в секунду, 0 — без ограничения
+ * @param owners      количество засеянных владельцев
+ * @param mix         веса операций
+ * @param out         файл сводки
+ * @param profile     активные профили Spring, пустая строка — без профилей
+ */
+record LoadSettings(List<Integer> concurrency, Duration duration, Duration warmup, int rate, int owners,
+                    Map<Operation, Integer> mix, Path out, String profile) {
+
+    static LoadSettings parse(String... args) {
+        List<Integer> concurrency = List.of(1, 8, 32, 64);
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(10);
+        int rate = 0;
+        int owners = 200;
+        Map<Operation, Integer> mix = parseMix("list:50,add:30,edit-form:10,edit:10");
+        Path out = Path.of("target", "load-result.csv");
+        String profile = "";
+
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Ожидается key=value: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "concurrency" -> concurrency = parseIntList(value);
+                case "duration" -> duration = parseDuration(value);
+                case "warmup" -> warmup = parseDuration(value);
+                case "rate" -> rate = Integer.parseInt(value);
+                case "owners" -> owners = Integer.parseInt(value);
+                case "mix" -> mix = parseMix(value);
+                case "out" -> out = Path.of(value);
+                case "profile" -> profile = value;
+                default -> throw new IllegalArgumentException("Неизвестный параметр: " + arg);
+            }
+        }
+        if (concurrency.isEmpty() || concurrency.stream().anyMatch(c -> c < 1)) {
+            throw new IllegalArgumentException("concurrency должен содержать положительные числа");
+        }
+        if (owners < 1) {
+            throw new IllegalArgumentException("owners должен быть положительным");
+        }
+        return new LoadSettings(concurrency, duration, warmup, rate, owners, mix, out, profile);
+    }
+
+    int maxConcurrency() {
+        return concurrency.stream().mapToInt(Integer::intValue).max().orElseThrow();
+    }
+
+    private static List<Integer> parseIntList(String value) {
+        List<Integer> result = new ArrayList<>();
+        for (String part : value.split(",")) {
+            result.add(Integer.parseInt(part.trim()));
+        }
+        return result;
+    }
+
+    // 30s, 500ms, 2m или просто секунды
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Ожидается операция:вес: " + part);
+            }
+            int weight = Integer.parseInt(pair[1]);
+            if (weight > 0) {
+                mix.put(Operation.byKey(pair[0]), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("mix не содержит ни одной операции");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,193 @@
+package com.hfbe_Polina.web_project.load;
+
+import com.hfbe_Polina.web_project.WebProjectApplication;
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.OwnerContactIndex;
+import com.hfbe_Polina.web_project.services.VisitService;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Нагрузочный прогон приложения через HTTP.
+ *
+ * <p>
+ * Запускает приложение на случайном порту со встроенной H2 вместо PostgreSQL
+ * (настройки тестового classpath), засевает владельцев, животных и визиты и
+ * гоняет смешанный поток запросов к настоящим контроллерам визитов — список,
+ * запись, форма редактирования и её сохранение — ступенями с растущей
+ * параллельностью.
+ * </p>
+ *
+ * <p><b>Отчёт:</b></p>
+ * <ul>
+ *     <li>По каждой ступени и операции: число запросов, пропускная способность,
+ *         p50/p99/p999 и максимум задержки по HdrHistogram, отказы форм и ошибки</li>
+ *     <li>Таблица печатается в консоль, сводка по всем ступеням пишется в CSV</li>
+ *     <li>Отказы записи (время занято, лимит дня) — штатный ответ и входят в перцентили;
+ *         ошибки и таймауты входят тоже, а рост их доли означает, что приложение
+ *         перестало справляться</li>
+ * </ul>
+ *
+ * <p>Запуск: {@code mvn -Pload-test -DskipTests verify -Dload.args="concurrency=1,16,64 duration=20s"};
+ * параметры описаны в {@link LoadSettings}. Сравнение режимов обработки запросов —
+ * два прогона, с {@code profile=virtual} и без.</p>
+ */
+public final class LoadTest {
+
+    private static final String CSV_HEADER =
+            "concurrency,endpoint,count,throughput,p50_ms,p99_ms,p999_ms,max_ms,rejected,errors";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.parse(args);
+
+        try (ConfigurableApplicationContext context = startApplication(settings.profile())) {
+            URI base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            SeedData seed = seed(context, settings.owners());
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            LoadDriver driver = new LoadDriver(client, base, seed, settings.mix());
+
+            // Spring Boot включает виртуальные потоки только на Java 21+
+            boolean virtualThreads = Runtime.version().feature() >= 21
+                    && context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            System.out.printf("Профиль: %s, Java %d, виртуальные потоки: %s%n",
+                    settings.profile().isEmpty() ? "-" : settings.profile(),
+                    Runtime.version().feature(), virtualThreads ? "да" : "нет");
+            System.out.printf("Прогрев: %d потоков, %s%n", settings.maxConcurrency(), settings.warmup());
+            driver.run(settings.maxConcurrency(), settings.warmup(), settings.rate());
+
+            List<StageResult> stages = new ArrayList<>();
+            for (int concurrency : settings.concurrency()) {
+                StageResult stage = driver.run(concurrency, settings.duration(), settings.rate());
+                print(stage, System.out);
+                stages.add(stage);
+            }
+            writeCsv(stages, settings);
+            System.out.println("Сводка: " + settings.out().toAbsolutePath());
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(String profile) {
+        return new SpringApplicationBuilder(WebProjectApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--spring.thymeleaf.cache=true",
+                "--spring.profiles.active=" + profile,
+                "--logging.level.root=WARN");
+    }
+
+    // Владельцы с одним животным и одним визитом; визиты занимают сетку часов подряд
+    private static SeedData seed(ConfigurableApplicationContext context, int owners) {
+        OwnerRepository ownerRepository = context.getBean(OwnerRepository.class);
+        PetRepository petRepository = context.getBean(PetRepository.class);
+        VisitRepository visitRepository = context.getBean(VisitRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        SeedData seed = transaction.execute(status -> {
+            List<Owner> ownerRows = new ArrayList<>();
+            List<Pet> petRows = new ArrayList<>();
+            List<Visit> visitRows = new ArrayList<>();
+            LocalDate firstDay = LocalDate.of(2024, 1, 1);
+            for (int i = 0; i < owners; i++) {
+                Owner owner = new Owner();
+                owner.setName("Владелец");
+                owner.setEmail("owner" + i + "@load.test");
+                owner.setPhone(String.format("8%010d", i));
+                ownerRows.add(owner);
+
+                Pet pet = new Pet();
+                pet.setName("Барсик");
+                pet.setSpecies("Кошка");
+                pet.setBreed("Сиамская");
+                pet.setBirthDate(LocalDate.of(2020, 1, 1));
+                pet.setPassportNumber(String.format("%010d", i));
+                pet.setOwner(owner);
+                petRows.add(pet);
+
+                Visit visit = new Visit();
+                visit.setDate(firstDay.plusDays(i / VisitService.DAILY_LIMIT));
+                visit.setTime(VisitService.OPENING_TIME.plusHours(i % VisitService.DAILY_LIMIT));
+                visit.setDiagnosis("Осмотр");
+                visit.setTreatment("Нет");
+                visit.setPet(pet);
+                visitRows.add(visit);
+            }
+            ownerRepository.saveAll(ownerRows);
+            petRepository.saveAll(petRows);
+            visitRepository.saveAll(visitRows);
+
+            return new SeedData(
+                    petRows.stream().map(Pet::getId).toList(),
+                    visitRows.stream().map(v -> new SeedData.SeededVisit(
+                            v.getId(), v.getPet().getId(), v.getDate(), v.getTime())).toList());
+        });
+
+        // Репозитории не публикуют событий — индекс перечитывается целиком
+        context.getBean(OwnerContactIndex.class).reload();
+        return seed;
+    }
+
+    private static void print(StageResult stage, PrintStream out) {
+        out.printf("%nПараллельность %d, %.1f с%n", stage.concurrency(), stage.elapsed().toMillis() / 1000.0);
+        out.printf("%-24s %8s %9s %9s %9s %9s %9s %8s %7s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "rejected", "errors");
+        for (Map.Entry<Operation, StageResult.EndpointResult> entry : stage.endpoints().entrySet()) {
+            StageResult.EndpointResult result = entry.getValue();
+            Histogram latency = result.latency();
+            out.printf(Locale.ROOT, "%-24s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %8d %7d%n",
+                    entry.getKey().endpoint(), result.count(), stage.throughput(result.count()),
+                    millis(latency, 50), millis(latency, 99), millis(latency, 99.9),
+                    latency.getMaxValue() / 1000.0, result.rejected(), result.errors());
+        }
+    }
+
+    private static void writeCsv(List<StageResult> stages, LoadSettings settings) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (StageResult stage : stages) {
+            stage.endpoints().forEach((operation, result) -> {
+                Histogram latency = result.latency();
+                lines.add(String.format(Locale.ROOT, "%d,%s,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%d,%d",
+                        stage.concurrency(), operation.key(), result.count(), stage.throughput(result.count()),
+                        millis(latency, 50), millis(latency, 99), millis(latency, 99.9),
+                        latency.getMaxValue() / 1000.0, result.rejected(), result.errors()));
+            });
+        }
+        if (settings.out().getParent() != null) {
+            Files.createDirectories(settings.out().getParent());
+        }
+        Files.write(settings.out(), lines);
+    }
+
+    private static double millis(Histogram latency, double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,151 @@
+package com.hfbe_Polina.web_project.load;
+
+import com.hfbe_Polina.web_project.services.VisitService;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * Операции нагрузочного прогона — запросы к настоящим контроллерам визитов.
+ *
+ * <p><b>Исход ответа:</b></p>
+ * <ul>
+ *     <li>Успех — 200 у страниц, redirect (302) у отправки формы</li>
+ *     <li>Отказ — форма вернулась с ошибкой (200): время занято, лимит дня и т. п.
+ *         Это штатный ответ, его задержка тоже входит в гистограмму</li>
+ *     <li>Ошибка — любой другой статус, сбой соединения или таймаут; задержка до ошибки
+ *         тоже входит в гистограмму, чтобы перцентили росли вместе с отказами приложения</li>
+ * </ul>
+ */
+enum Operation {
+
+    /**
+     * Первая страница списка визитов.
+     */
+    LIST("list", "GET /visits") {
+        @Override
+        HttpRequest.Builder request(URI base, SeedData seed, Random random) {
+            return HttpRequest.newBuilder(base.resolve("/visits")).GET();
+        }
+    },
+
+    /**
+     * Запись нового визита на случайный час случайного дня.
+     */
+    ADD("add", "POST /visits/add") {
+        @Override
+        HttpRequest.Builder request(URI base, SeedData seed, Random random) {
+            long petId = seed.petIds().get(random.nextInt(seed.petIds().size()));
+            LocalDate date = FIRST_DATE.plusDays(random.nextInt((int) DAYS + 1));
+            LocalTime time = VisitService.OPENING_TIME.plusHours(random.nextInt(VisitService.DAILY_LIMIT));
+            return form(base.resolve("/visits/add"), date, time, "Осмотр", petId);
+        }
+
+        @Override
+        Outcome classify(int status) {
+            return formOutcome(status);
+        }
+    },
+
+    /**
+     * Открытие формы редактирования засеянного визита.
+     */
+    EDIT_FORM("edit-form", "GET /visits/edit/{id}") {
+        @Override
+        HttpRequest.Builder request(URI base, SeedData seed, Random random) {
+            SeedData.SeededVisit visit = seed.visits().get(random.nextInt(seed.visits().size()));
+            return HttpRequest.newBuilder(base.resolve("/visits/edit/" + visit.id())).GET();
+        }
+    },
+
+    /**
+     * Сохранение засеянного визита на то же время.
+     */
+    EDIT("edit", "POST /visits/edit/{id}") {
+        @Override
+        HttpRequest.Builder request(URI base, SeedData seed, Random random) {
+            SeedData.SeededVisit visit = seed.visits().get(random.nextInt(seed.visits().size()));
+            return form(base.resolve("/visits/edit/" + visit.id()), visit.date(), visit.time(),
+                    "Повторный осмотр", visit.petId());
+        }
+
+        @Override
+        Outcome classify(int status) {
+            return formOutcome(status);
+        }
+    };
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2000, 1, 1);
+    private static final long DAYS = ChronoUnit.DAYS.between(FIRST_DATE, VisitService.LAST_VISIT_DATE);
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    String key() {
+        return key;
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    abstract HttpRequest.Builder request(URI base, SeedData seed, Random random);
+
+    Outcome classify(int status) {
+        return status == 200 ? Outcome.SUCCESS : Outcome.ERROR;
+    }
+
+    static Operation byKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная операция: " + key);
+    }
+
+    private static Outcome formOutcome(int status) {
+        if (status == 302) {
+            return Outcome.SUCCESS;
+        }
+        return status == 200 ? Outcome.REJECTED : Outcome.ERROR;
+    }
+
+    // Та же форма, что отправляет браузер со страниц visits/add и visits/edit
+    private static HttpRequest.Builder form(URI uri, LocalDate date, LocalTime time, String diagnosis, long petId) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("date", date.toString());
+        fields.put("time", time.toString());
+        fields.put("diagnosis", diagnosis);
+        fields.put("treatment", "Нет");
+        fields.put("pet", Long.toString(petId));
+
+        String body = fields.entrySet().stream()
+                .map(e -> e.getKey() + "=" + URLEncoder.encode(e.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+        return HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    /**
+     * Исход одного запроса.
+     */
+    enum Outcome {
+        SUCCESS, REJECTED, ERROR
+    }
+}
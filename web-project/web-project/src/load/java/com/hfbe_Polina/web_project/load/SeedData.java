@@ -0,0 +1,26 @@
+package com.hfbe_Polina.web_project.load;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Идентификаторы засеянных данных, на которые ссылаются запросы нагрузки.
+ *
+ * @param petIds животные, на которых записываются новые визиты
+ * @param visits визиты, которые открываются и сохраняются формой редактирования
+ */
+record SeedData(List<Long> petIds, List<SeededVisit> visits) {
+
+    /**
+     * Засеянный визит: форма редактирования отправляет его же дату и время,
+     * поэтому сохранение проходит все проверки и доходит до записи в БД.
+     *
+     * @param id    идентификатор визита
+     * @param petId животное визита
+     * @param date  дата визита
+     * @param time  время визита
+     */
+    record SeededVisit(long id, long petId, LocalDate date, LocalTime time) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.hfbe_Polina.web_project.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Итог одной ступени нагрузки.
+ *
+ * @param concurrency параллельность ступени
+ * @param elapsed     фактическая длительность (до ответа на последний запрос)
+ * @param endpoints   результаты по операциям в порядке {@link Operation}
+ */
+record StageResult(int concurrency, Duration elapsed, Map<Operation, EndpointResult> endpoints) {
+
+    /**
+     * Результат одной операции за ступень.
+     *
+     * @param latency  задержки всех запросов, включая ошибки и таймауты, мкс
+     * @param success  успешные ответы
+     * @param rejected формы, вернувшиеся с ошибкой проверки
+     * @param errors   неожиданные статусы и сбои соединения
+     */
+    record EndpointResult(Histogram latency, long success, long rejected, long errors) {
+
+        long count() {
+            return success + rejected + errors;
+        }
+    }
+
+    double throughput(long count) {
+        return count * 1e9 / elapsed.toNanos();
+    }
+}
@@ -2,6 +2,7 @@ package com.hfbe_Polina.web_project;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Главный класс Spring Boot приложения.
@@ -15,6 +16,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *     <li>Запуск приложения через метод {@link SpringApplication#run}</li>
  *     <li>Автоматическое сканирование пакетов и создание бинов</li>
  *     <li>Инициализация MVC‑контроллеров, сервисов, репозиториев и сущностей</li>
+ *     <li>Выполнение задач по расписанию ({@code @Scheduled})</li>
  * </ul>
  *
  * <p><b>Расположение класса:</b></p>
@@ -25,6 +27,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * </p>
  */
 @SpringBootApplication
+@EnableScheduling
 public class WebProjectApplication {
 
     /**
@@ -0,0 +1,92 @@
+package com.hfbe_Polina.web_project.api;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ресурсы REST API и их поля.
+ *
+ * <p>
+ * Для каждого ресурса перечислены поля, которые можно запросить параметром
+ * {@code fields}, и пути свойств сущности, из которых они читаются. Поля связанных
+ * сущностей (например, {@code ownerName}) разрешаются через JOIN в том же запросе,
+ * коллекции ({@code Owner.pets}, {@code Pet.visits}) в ответ не попадают.
+ * </p>
+ *
+ * <p><b>Правила параметра fields:</b></p>
+ * <ul>
+ *     <li>Список имён через запятую, например {@code fields=name,email}</li>
+ *     <li>Без параметра возвращаются все поля ресурса</li>
+ *     <li>Поле {@code id} возвращается всегда</li>
+ *     <li>Неизвестное имя поля — ошибка клиента</li>
+ * </ul>
+ */
+public enum ApiResource {
+
+    OWNERS(Owner.class,
+            "id", "id",
+            "name", "name",
+            "email", "email",
+            "phone", "phone"),
+
+    PETS(Pet.class,
+            "id", "id",
+            "name", "name",
+            "species", "species",
+            "breed", "breed",
+            "birthDate", "birthDate",
+            "passportNumber", "passportNumber",
+            "ownerId", "owner.id",
+            "ownerName", "owner.name"),
+
+    VISITS(Visit.class,
+            "id", "id",
+            "date", "date",
+            "time", "time",
+            "diagnosis", "diagnosis",
+            "treatment", "treatment",
+            "petId", "pet.id",
+            "petName", "pet.name");
+
+    private final Class<?> entityType;
+    private final Map<String, String> paths = new LinkedHashMap<>();
+
+    ApiResource(Class<?> entityType, String... namesAndPaths) {
+        this.entityType = entityType;
+        for (int i = 0; i < namesAndPaths.length; i += 2) {
+            paths.put(namesAndPaths[i], namesAndPaths[i + 1]);
+        }
+    }
+
+    /**
+     * Разбирает параметр {@code fields}.
+     *
+     * @param fields имена полей через запятую или {@code null}
+     * @return выбранные поля в порядке запроса, {@code id} первым
+     * @throws IllegalArgumentException если поле неизвестно
+     */
+    public FieldSelection select(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return new FieldSelection(entityType, paths);
+        }
+
+        Map<String, String> selected = new LinkedHashMap<>();
+        selected.put("id", paths.get("id"));
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            String path = paths.get(field);
+            if (path == null) {
+                throw new IllegalArgumentException("Неизвестное поле: " + field + ", допустимые: " + paths.keySet());
+            }
+            selected.put(field, path);
+        }
+        return new FieldSelection(entityType, selected);
+    }
+}
@@ -0,0 +1,19 @@
+package com.hfbe_Polina.web_project.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Набор полей, запрошенных клиентом REST API.
+ *
+ * @param entityType сущность, из которой читаются поля
+ * @param paths      имя поля в ответе → путь свойства сущности (например,
+ *                   {@code ownerName → owner.name}), в порядке вывода
+ */
+public record FieldSelection(Class<?> entityType, Map<String, String> paths) {
+
+    public FieldSelection {
+        paths = Collections.unmodifiableMap(new LinkedHashMap<>(paths));
+    }
+}
@@ -0,0 +1,148 @@
+package com.hfbe_Polina.web_project.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничитель одновременных соединений с БД (bulkhead) перед пулом Hikari.
+ *
+ * <p>
+ * Каждое получение соединения сначала берёт разрешение честного (FIFO) семафора,
+ * а закрытие соединения его возвращает. Разрешений столько же, сколько соединений
+ * в пуле, поэтому сам пул никогда не ждёт: очередь выстраивается здесь, в порядке
+ * прихода запросов, и с собственным, более длинным тайм‑аутом.
+ * </p>
+ *
+ * <p><b>Поведение под нагрузкой:</b></p>
+ * <ul>
+ *     <li>Свободное разрешение выдаётся сразу, но без обгона уже ждущих потоков</li>
+ *     <li>Если ждущих больше {@code maxQueue}, запрос отклоняется сразу — лучше быстрый
+ *         отказ, чем тысячи потоков, которые всё равно не дождутся соединения</li>
+ *     <li>Не дождавшийся за {@code maxWait} получает {@link SQLTransientConnectionException},
+ *         как при тайм‑ауте самого Hikari</li>
+ *     <li>Семафор из {@code java.util.concurrent} паркует виртуальный поток, не занимая
+ *         поток‑носитель, — в режиме виртуальных потоков ожидание ничего не стоит</li>
+ * </ul>
+ *
+ * <p>Транзакция, открывающая вложенную ({@code REQUIRES_NEW}), держит два разрешения —
+ * как и два соединения пула.</p>
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final int maxQueue;
+    private final Duration maxWait;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param target     пул соединений
+     * @param maxPermits сколько соединений может быть выдано одновременно
+     * @param maxQueue   сколько потоков может ждать разрешения
+     * @param maxWait    сколько поток ждёт разрешения
+     */
+    public BulkheadDataSource(DataSource target, int maxPermits, int maxQueue, Duration maxWait) {
+        super(target);
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    public int inUse() {
+        return maxPermits - permits.availablePermits();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    private void acquire() throws SQLException {
+        // tryAcquire с тайм‑аутом соблюдает очередь честного семафора, tryAcquire() — нет
+        try {
+            if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                return;
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                rejected.increment();
+                throw new SQLTransientConnectionException(
+                        "Очередь к БД переполнена: ждут " + maxQueue + " запросов");
+            }
+            try {
+                if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                    rejected.increment();
+                    throw new SQLTransientConnectionException(
+                            "Соединение с БД не освободилось за " + maxWait.toMillis() + " мс");
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Ожидание соединения с БД прервано", e);
+        }
+    }
+
+    // Соединение, которое при первом закрытии возвращает разрешение
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                permits.release();
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
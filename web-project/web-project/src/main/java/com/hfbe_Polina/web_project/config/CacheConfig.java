@@ -0,0 +1,19 @@
+package com.hfbe_Polina.web_project.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Включает кэширование Spring ({@code @Cacheable}).
+ *
+ * <p>
+ * Сам кэш‑менеджер (Caffeine) настраивается Spring Boot по свойствам
+ * {@code spring.cache.*} в application.properties: имена кэшей, ограничение размера,
+ * время жизни и сбор статистики. Статистика попаданий и промахов публикуется
+ * Actuator как метрика {@code cache.gets}.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
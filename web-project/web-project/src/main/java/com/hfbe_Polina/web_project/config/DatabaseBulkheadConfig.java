@@ -0,0 +1,81 @@
+package com.hfbe_Polina.web_project.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Включает {@link BulkheadDataSource} перед пулом соединений.
+ *
+ * <p>
+ * Включается свойством {@code app.bulkhead.enabled=true} (по умолчанию в профиле
+ * {@code virtual}). Пока запросы обслуживает пул Tomcat из 200 потоков, он сам
+ * ограничивает число ожидающих соединения; с виртуальными потоками такого
+ * ограничения нет, и очередь к пулу Hikari нужно держать явно.
+ * </p>
+ *
+ * <p><b>Настройки:</b></p>
+ * <ul>
+ *     <li>{@code app.bulkhead.permits} — одновременные соединения, по умолчанию размер пула Hikari</li>
+ *     <li>{@code app.bulkhead.max-queue} — сколько запросов может ждать соединения</li>
+ *     <li>{@code app.bulkhead.max-wait} — сколько запрос ждёт; больше тайм‑аута Hikari,
+ *         чтобы отказ приходил из очереди bulkhead, а не из пула</li>
+ * </ul>
+ *
+ * <p>Метрики: {@code clinic.db.bulkhead.waiting}, {@code clinic.db.bulkhead.in.use}
+ * и {@code clinic.db.bulkhead.rejected}.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true")
+public class DatabaseBulkheadConfig {
+
+    /**
+     * Оборачивается только основной пул приложения (бин Spring Boot {@code dataSource}).
+     */
+    static final String BULKHEAD_TARGET = "dataSource";
+
+    // static: постпроцессор создаётся раньше остальных бинов конфигурации
+    @Bean
+    static BeanPostProcessor databaseBulkhead(Environment environment) {
+        int permits = environment.getProperty("app.bulkhead.permits", Integer.class,
+                environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        int maxQueue = environment.getProperty("app.bulkhead.max-queue", Integer.class, 10_000);
+        Duration maxWait = environment.getProperty("app.bulkhead.max-wait", Duration.class, Duration.ofSeconds(60));
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (BULKHEAD_TARGET.equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof BulkheadDataSource)) {
+                    return new BulkheadDataSource(dataSource, permits, maxQueue, maxWait);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    MeterBinder databaseBulkheadMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof BulkheadDataSource bulkhead) {
+                Gauge.builder("clinic.db.bulkhead.waiting", bulkhead, BulkheadDataSource::waiting)
+                        .description("Запросы, ждущие соединения с БД")
+                        .register(registry);
+                Gauge.builder("clinic.db.bulkhead.in.use", bulkhead, BulkheadDataSource::inUse)
+                        .description("Выданные соединения с БД")
+                        .register(registry);
+                FunctionCounter.builder("clinic.db.bulkhead.rejected", bulkhead, BulkheadDataSource::rejected)
+                        .description("Запросы, не дождавшиеся соединения с БД")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.hfbe_Polina.web_project.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Выравнивание последовательностей идентификаторов по уже существующим строкам.
+ *
+ * <p>
+ * Владельцы, животные и визиты получают идентификаторы из последовательностей
+ * {@code owners_seq}, {@code pets_seq} и {@code visits_seq} блоками по
+ * {@link #ALLOCATION_SIZE} значений. В базе, созданной до перехода с IDENTITY,
+ * строки уже занимают идентификаторы с 1, а новая последовательность
+ * ({@code ddl-auto=update}) начинается тоже с 1 — первые вставки получили бы
+ * занятые ключи.
+ * </p>
+ *
+ * <p><b>Правило выравнивания:</b></p>
+ * <ul>
+ *     <li>Hibernate (оптимизатор pooled) по значению последовательности {@code hi}
+ *         выдаёт идентификаторы {@code hi - 49 … hi}</li>
+ *     <li>Если очередное значение меньше максимального id таблицы, последовательность
+ *         перезапускается с {@code max(id) + 50}, и новые идентификаторы начинаются
+ *         с {@code max(id) + 1}</li>
+ *     <li>На уже выровненной базе шаг только пропускает один блок значений</li>
+ * </ul>
+ */
+@Component
+@DependsOn("entityManagerFactory") // таблицы и последовательности уже созданы Hibernate
+public class IdSequenceAligner {
+
+    /**
+     * Размер блока; совпадает с {@code allocationSize} в сущностях.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    /**
+     * Таблица → последовательность её идентификаторов.
+     */
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "owners", "owners_seq",
+            "pets", "pets_seq",
+            "visits", "visits_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void align() {
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long next = jdbcTemplate.queryForObject("SELECT nextval('" + sequence + "')", Long.class);
+            if (next < maxId) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + ALLOCATION_SIZE));
+            }
+        });
+    }
+}
@@ -0,0 +1,90 @@
+package com.hfbe_Polina.web_project.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверка уникальных индексов контактов владельцев при запуске.
+ *
+ * <p>
+ * Занятость email и телефона проверяется по индексу в памяти, а окончательно
+ * её решают уникальные индексы {@code owners.email} и {@code owners.phone}.
+ * При {@code ddl-auto=update} Hibernate не может добавить ограничение на
+ * таблицу, где уже есть повторяющиеся значения, и только пишет предупреждение
+ * в журнал — приложение запустилось бы без защиты от дублей.
+ * </p>
+ *
+ * <p><b>Правила:</b></p>
+ * <ul>
+ *     <li>Для каждого столбца должен существовать уникальный индекс ровно по нему</li>
+ *     <li>Если индекса нет, запуск прерывается; в сообщении перечислены
+ *         повторяющиеся значения, которые нужно исправить вручную</li>
+ *     <li>Дубли не удаляются автоматически: у владельцев есть животные и визиты,
+ *         и выбрать, какую запись оставить, может только человек</li>
+ * </ul>
+ */
+@Component
+@DependsOn("entityManagerFactory") // Hibernate уже попытался создать ограничения
+public class OwnerContactConstraintCheck {
+
+    private static final String TABLE = "owners";
+
+    private static final List<String> UNIQUE_COLUMNS = List.of("email", "phone");
+
+    /**
+     * Сколько повторяющихся значений показывать в сообщении об ошибке.
+     */
+    private static final int SHOWN_DUPLICATES = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OwnerContactConstraintCheck(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void check() {
+        List<List<String>> uniqueIndexes = jdbcTemplate.execute((ConnectionCallback<List<List<String>>>) this::uniqueIndexes);
+        for (String column : UNIQUE_COLUMNS) {
+            if (!uniqueIndexes.contains(List.of(column))) {
+                throw new IllegalStateException("Нет уникального индекса " + TABLE + "." + column
+                        + "; повторяющиеся значения: " + duplicates(column)
+                        + ". Исправьте дубли и перезапустите приложение");
+            }
+        }
+    }
+
+    // Столбцы каждого уникального индекса таблицы владельцев
+    private List<List<String>> uniqueIndexes(Connection connection) throws SQLException {
+        Map<String, List<String>> columns = new HashMap<>();
+        try (ResultSet rs = connection.getMetaData()
+                .getIndexInfo(connection.getCatalog(), connection.getSchema(), TABLE, true, false)) {
+            while (rs.next()) {
+                String column = rs.getString("COLUMN_NAME");
+                if (column != null) {
+                    columns.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new ArrayList<>())
+                            .add(column.toLowerCase());
+                }
+            }
+        }
+        return new ArrayList<>(columns.values());
+    }
+
+    // Первые повторяющиеся значения столбца — для сообщения об ошибке
+    private List<String> duplicates(String column) {
+        return jdbcTemplate.queryForList("SELECT " + column + " FROM " + TABLE
+                + " WHERE " + column + " IS NOT NULL GROUP BY " + column
+                + " HAVING COUNT(*) > 1 ORDER BY " + column + " LIMIT " + SHOWN_DUPLICATES, String.class);
+    }
+}
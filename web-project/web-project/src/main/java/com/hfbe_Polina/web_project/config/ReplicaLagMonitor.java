@@ -0,0 +1,139 @@
+package com.hfbe_Polina.web_project.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отставание реплики и решение, можно ли читать из неё.
+ *
+ * <p>
+ * Раз в {@code app.datasource.replica.lag-check-interval} выполняет на реплике
+ * запрос {@code app.datasource.replica.lag-query}, возвращающий отставание в секундах.
+ * Для PostgreSQL по умолчанию это время с последней применённой транзакции
+ * ({@code pg_last_xact_replay_timestamp()}), либо 0, если реплика догнала основную БД.
+ * </p>
+ *
+ * <p><b>Реплика читается, только если:</b></p>
+ * <ul>
+ *     <li>Последняя проверка прошла и отставание не больше {@code app.datasource.replica.max-lag};
+ *         до первой проверки (в том числе при заполнении индексов на старте) читается основная БД</li>
+ *     <li>Последняя проверка подтвердила, что реплика содержит все пишущие транзакции
+ *         этого экземпляра: транзакция началась и закоммичена раньше, чем
+ *         «момент начала проверки минус отставание»</li>
+ * </ul>
+ *
+ * <p><b>Почему записи учитываются для всех пользователей, а не только для автора:</b></p>
+ * <ul>
+ *     <li>Кэш второго уровня, {@code FragmentCache}, кэш свободного времени, список
+ *         животных и ETag условных GET помечаются версией {@code DataVersions}, которая
+ *         растёт сразу после коммита. Чтение отставшей реплики под новой версией
+ *         закэшировало бы старые данные до следующего изменения — устаревание не было бы
+ *         ограничено отставанием реплики</li>
+ *     <li>Поэтому после записи все чтения идут в основную БД, пока очередная проверка
+ *         не покажет, что реплика её догнала (не дольше {@code lag-check-interval} при
+ *         малом отставании); автор изменения тем более видит его сразу</li>
+ *     <li>Реплика разгружает основную БД в промежутках между записями, когда
+ *         выполняется большинство чтений списков</li>
+ *     <li>Записи других экземпляров здесь не учитываются: их версии {@code DataVersions}
+ *         перечитывает из таблицы транзакцией «только чтение», то есть с той же реплики,
+ *         что и данные; их видимость ограничена {@code max-lag}</li>
+ * </ul>
+ *
+ * <p>Переходы между состояниями пишутся в журнал; отставание публикуется метрикой
+ * {@code clinic.db.replica.lag} (см. {@link ReplicaRoutingConfig}).</p>
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final Duration maxLag;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = Double.NaN;
+
+    /**
+     * Транзакции, начатые и закоммиченные раньше этого момента (мс эпохи), уже есть на реплике.
+     */
+    private volatile long replicatedBefore = Long.MIN_VALUE;
+
+    /**
+     * Последнее начало или коммит пишущей транзакции, мс эпохи.
+     */
+    private final AtomicLong lastWrite = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param replica  пул соединений реплики
+     * @param lagQuery запрос, возвращающий отставание в секундах ({@code null} — нет отставания)
+     * @param maxLag   допустимое отставание
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval:5s}")
+    public void check() {
+        // Момент — до запроса: коммит во время проверки не считается доехавшим
+        long startedAt = System.currentTimeMillis();
+        try {
+            Double lag = replica.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            replicatedBefore = startedAt - (long) Math.ceil(lagSeconds * 1000);
+            update(lagSeconds * 1000 <= maxLag.toMillis(), "отставание " + lagSeconds + " с");
+        } catch (DataAccessException e) {
+            lagSeconds = Double.NaN;
+            update(false, e.getMessage());
+        }
+    }
+
+    public boolean isReplicaReadable() {
+        return available && lastWrite.get() < replicatedBefore;
+    }
+
+    /**
+     * Пишущая транзакция получила соединение или закоммичена: все чтения уходят
+     * в основную БД, пока проверка не покажет, что реплика её догнала.
+     */
+    public void recordWrite() {
+        lastWrite.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    /**
+     * Реплика не выдала соединение; чтения идут в основную БД до следующей удачной проверки.
+     */
+    public void replicaFailed(Exception e) {
+        update(false, e.getMessage());
+    }
+
+    public boolean available() {
+        return available;
+    }
+
+    /**
+     * @return отставание по последней проверке в секундах, {@code NaN} — проверка не удалась
+     */
+    public double lagSeconds() {
+        return lagSeconds;
+    }
+
+    private synchronized void update(boolean readable, String reason) {
+        if (readable != available) {
+            if (readable) {
+                log.info("Чтение переключено на реплику: {}", reason);
+            } else {
+                log.warn("Чтение переключено на основную БД: {}", reason);
+            }
+        }
+        available = readable;
+    }
+}
@@ -0,0 +1,104 @@
+package com.hfbe_Polina.web_project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Чтение из реплики для транзакций «только чтение».
+ *
+ * <p>
+ * Включается, когда задан {@code app.datasource.replica.jdbc-url}; без него
+ * приложение работает с одной БД, как раньше. Основная БД по-прежнему настраивается
+ * свойствами {@code spring.datasource.*}, реплика — {@code app.datasource.replica.*}
+ * (свойства пула Hikari: {@code jdbc-url}, {@code username}, {@code password},
+ * {@code maximum-pool-size} и т. д.).
+ * </p>
+ *
+ * <p><b>Бины:</b></p>
+ * <ul>
+ *     <li>{@code primaryDataSource}, {@code replicaDataSource} — два пула Hikari
+ *         (в метриках {@code hikaricp.*} различаются тегом pool)</li>
+ *     <li>{@code dataSource} — основной бин для JPA и JdbcTemplate:
+ *         {@link LazyConnectionDataSourceProxy} над {@link ReplicaRoutingDataSource}</li>
+ *     <li>{@link ReplicaLagMonitor} — проверка отставания по расписанию</li>
+ * </ul>
+ *
+ * <p>Hibernate по умолчанию держит соединение до закрытия EntityManager, а при
+ * open‑in‑view это весь HTTP‑запрос: запись после чтения в том же запросе ушла бы
+ * в соединение реплики. Поэтому здесь соединение возвращается в пул после каждой
+ * транзакции, и следующая транзакция выбирает БД заново.</p>
+ *
+ * <p>Локальная проверка — два экземпляра PostgreSQL, например основная БД на 5432 и
+ * потоковая реплика на 5433: {@code --app.datasource.replica.jdbc-url=jdbc:postgresql://localhost:5433/vetclinic2}.</p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.jdbc-url")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                        @Value("${app.datasource.replica.lag-query}") String lagQuery,
+                                        @Value("${app.datasource.replica.max-lag:5s}") Duration maxLag) {
+        return new ReplicaLagMonitor(replica, lagQuery, maxLag);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("replicaDataSource") DataSource replica,
+                          ReplicaLagMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, monitor));
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    MeterBinder replicaLagMetrics(ReplicaLagMonitor monitor) {
+        return registry -> {
+            Gauge.builder("clinic.db.replica.lag", monitor, ReplicaLagMonitor::lagSeconds)
+                    .description("Отставание реплики по последней проверке")
+                    .baseUnit("seconds")
+                    .register(registry);
+            Gauge.builder("clinic.db.replica.available", monitor, m -> m.available() ? 1 : 0)
+                    .description("Чтение из реплики разрешено")
+                    .register(registry);
+        };
+    }
+}
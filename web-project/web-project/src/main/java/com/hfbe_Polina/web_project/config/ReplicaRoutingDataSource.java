@@ -0,0 +1,91 @@
+package com.hfbe_Polina.web_project.config;
+
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Выбор между основной БД и репликой для каждого соединения.
+ *
+ * <p>
+ * Соединения для транзакций {@code @Transactional(readOnly = true)} берутся из
+ * реплики, все остальные — из основной БД. Решение принимается в момент получения
+ * физического соединения, поэтому перед этим источником стоит
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * Hibernate просит соединение ещё в начале транзакции, когда признак
+ * «только чтение» в {@link TransactionSynchronizationManager} не выставлен.
+ * </p>
+ *
+ * <p><b>Когда чтение всё равно идёт в основную БД:</b></p>
+ * <ul>
+ *     <li>{@link ReplicaLagMonitor} считает реплику отставшей или недоступной</li>
+ *     <li>После последней пишущей транзакции реплика ещё не подтвердила, что догнала
+ *         основную БД: иначе прочитанное попало бы в кэши под новой версией данных</li>
+ *     <li>Реплика не выдала соединение — сбой отмечается в мониторе, запрос не падает</li>
+ * </ul>
+ *
+ * <p>Пишущая транзакция сообщается монитору дважды: при получении соединения и после
+ * коммита, раньше слушателей {@code @TransactionalEventListener}, — иначе чтения
+ * в этих слушателях и дальше в том же запросе ушли бы на отстающую реплику. Соединение
+ * может понадобиться только при сбросе изменений во время коммита, поэтому
+ * отметки «перед коммитом» недостаточно.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        this.primary = primary;
+        this.replica = replica;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            watchCommit();
+            return primary.getConnection();
+        }
+        if (monitor.isReplicaReadable()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                monitor.replicaFailed(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // Соединение с явными учётными данными — только основная БД
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    private void watchCommit() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        monitor.recordWrite();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCommit() {
+                    monitor.recordWrite();
+                }
+            });
+        }
+    }
+}
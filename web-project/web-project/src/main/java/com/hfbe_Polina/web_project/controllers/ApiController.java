@@ -0,0 +1,116 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.api.ApiResource;
+import com.hfbe_Polina.web_project.dto.VisitSearchPage;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.OwnerService;
+import com.hfbe_Polina.web_project.services.PetService;
+import com.hfbe_Polina.web_project.services.VisitService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * REST API (JSON) для чтения владельцев, животных и визитов.
+ *
+ * <p>
+ * Параметр {@code fields} задаёт набор полей ответа и превращается в узкий
+ * SELECT только по этим столбцам (см. {@link ApiResource}); сущности и их ленивые
+ * коллекции не загружаются и не сериализуются.
+ * </p>
+ *
+ * <p><b>Основные маршруты:</b></p>
+ * <ul>
+ *     <li><b>GET /api/v1/owners</b>, <b>/api/v1/pets</b>, <b>/api/v1/visits</b> — страница списка</li>
+ *     <li><b>GET /api/v1/owners/{id}</b>, <b>/api/v1/pets/{id}</b>, <b>/api/v1/visits/{id}</b> — одна запись</li>
+ *     <li><b>GET /api/v1/visits/search?q=&amp;from=&amp;to=&amp;page=&amp;size=</b> — поиск визитов
+ *         по диагнозу и лечению, по убыванию релевантности</li>
+ * </ul>
+ *
+ * <p><b>Параметры списка:</b></p>
+ * <ul>
+ *     <li><b>fields</b> — поля через запятую, например {@code fields=name,email}</li>
+ *     <li><b>cursor</b>, <b>sort</b>, <b>dir</b>, <b>size</b> — keyset‑пагинация, как у HTML‑списков;
+ *         курсор следующей страницы приходит в {@code nextCursor}</li>
+ * </ul>
+ *
+ * <p><b>Пример:</b></p>
+ * <pre>
+ * curl "http://localhost:8080/api/v1/pets?fields=name,ownerName&amp;sort=name&amp;size=50"
+ * </pre>
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ApiController {
+
+    private final OwnerService ownerService;
+    private final PetService petService;
+    private final VisitService visitService;
+
+    public ApiController(OwnerService ownerService, PetService petService, VisitService visitService) {
+        this.ownerService = ownerService;
+        this.petService = petService;
+        this.visitService = visitService;
+    }
+
+    @GetMapping("/owners")
+    public KeysetPage<Map<String, Object>> owners(@ModelAttribute PageQuery pageQuery,
+                                                  @RequestParam(required = false) String fields) {
+        return ownerService.findFieldsPage(pageQuery, ApiResource.OWNERS.select(fields));
+    }
+
+    @GetMapping("/owners/{id}")
+    public Map<String, Object> owner(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        return found(ownerService.findFields(id, ApiResource.OWNERS.select(fields)));
+    }
+
+    @GetMapping("/pets")
+    public KeysetPage<Map<String, Object>> pets(@ModelAttribute PageQuery pageQuery,
+                                                @RequestParam(required = false) String fields) {
+        return petService.findFieldsPage(pageQuery, ApiResource.PETS.select(fields));
+    }
+
+    @GetMapping("/pets/{id}")
+    public Map<String, Object> pet(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        return found(petService.findFields(id, ApiResource.PETS.select(fields)));
+    }
+
+    @GetMapping("/visits")
+    public KeysetPage<Map<String, Object>> visits(@ModelAttribute PageQuery pageQuery,
+                                                  @RequestParam(required = false) String fields) {
+        return visitService.findFieldsPage(pageQuery, ApiResource.VISITS.select(fields));
+    }
+
+    @GetMapping("/visits/search")
+    public VisitSearchPage searchVisits(@RequestParam String q,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(required = false) Integer page,
+                                        @RequestParam(required = false) Integer size) {
+        return visitService.search(q, from, to, page, size);
+    }
+
+    @GetMapping("/visits/{id}")
+    public Map<String, Object> visit(@PathVariable Long id, @RequestParam(required = false) String fields) {
+        return found(visitService.findFields(id, ApiResource.VISITS.select(fields)));
+    }
+
+    /**
+     * Неизвестное поле в {@code fields} или неверный период поиска — ошибка клиента.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    private static Map<String, Object> found(Optional<Map<String, Object>> row) {
+        return row.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
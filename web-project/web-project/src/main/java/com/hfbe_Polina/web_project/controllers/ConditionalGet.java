@@ -0,0 +1,37 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.services.DataVersions;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Ответ 304 Not Modified для HTML‑страниц по версиям данных.
+ *
+ * <p>
+ * Проверка выполняется в начале метода контроллера, до обращения к сервисам:
+ * если {@code If-None-Match} (или {@code If-Modified-Since}) совпадает с текущей
+ * версией, метод возвращает {@code null}, и Spring MVC отправляет пустой ответ 304.
+ * {@code Cache-Control: no-cache} заставляет браузер проверять страницу при
+ * каждом обращении, а не показывать её из кэша по эвристике.
+ * </p>
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Выставляет ETag и Last-Modified и проверяет условные заголовки запроса.
+     *
+     * @param request запрос
+     * @param version текущая версия данных страницы
+     * @return {@code true}, если у клиента актуальная копия и страницу строить не нужно
+     */
+    static boolean notModified(WebRequest request, DataVersions.Version version) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return request.checkNotModified(version.etag(), version.lastModified());
+    }
+}
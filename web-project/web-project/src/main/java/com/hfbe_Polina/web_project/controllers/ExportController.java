@@ -0,0 +1,88 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.exports.ExportFormat;
+import com.hfbe_Polina.web_project.exports.ExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Контроллер выгрузки визитов и животных в файл.
+ *
+ * <p>Ответ пишется потоково ({@link StreamingResponseBody}) прямо из курсора БД,
+ * поэтому выгрузка всей таблицы не требует памяти под список строк.</p>
+ *
+ * <p><b>Параметры запроса:</b></p>
+ * <ul>
+ *     <li><b>from</b>, <b>to</b> — период (yyyy‑MM‑dd, включительно, необязательны):
+ *         дата визита или дата рождения животного</li>
+ *     <li><b>format</b> — {@code csv} (по умолчанию) или {@code ndjson}</li>
+ *     <li><b>gzip</b> — {@code true}, чтобы получить сжатый файл {@code .gz}</li>
+ * </ul>
+ *
+ * <p><b>Пример:</b></p>
+ * <pre>
+ * curl -o visits.csv.gz "http://localhost:8080/export/visits?from=2026-01-01&amp;to=2026-03-12&amp;gzip=true"
+ * </pre>
+ */
+@Controller
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/visits")
+    public ResponseEntity<StreamingResponseBody> visits(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        return download("visits", exportFormat, gzip,
+                out -> exportService.exportVisits(from, to, exportFormat, gzip, out));
+    }
+
+    @GetMapping("/pets")
+    public ResponseEntity<StreamingResponseBody> pets(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.fromName(format);
+        return download("pets", exportFormat, gzip,
+                out -> exportService.exportPets(from, to, exportFormat, gzip, out));
+    }
+
+    /**
+     * Неизвестный формат — ошибка клиента.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
+    // Ответ‑вложение; тело пишется уже после возврата из метода контроллера
+    private ResponseEntity<StreamingResponseBody> download(String name, ExportFormat format, boolean gzip,
+                                                           StreamingResponseBody body) {
+        String fileName = name + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? GZIP : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,141 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.DataVersions;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.View;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Кэш отрисованных HTML‑фрагментов страниц со списками.
+ *
+ * <p>
+ * Таблица списка вместе с навигацией по страницам объявлена в шаблоне фрагментом
+ * {@code listing}. При включённом кэше контроллер получает его HTML отсюда и передаёт
+ * в шаблон готовой строкой; при промахе фрагмент один раз отрисовывается тем же
+ * {@link ThymeleafViewResolver}, что и вся страница, поэтому разметка совпадает
+ * с обычной. При попадании не выполняются ни запрос к БД, ни обход строк в шаблоне.
+ * </p>
+ *
+ * <p><b>Особенности реализации:</b></p>
+ * <ul>
+ *     <li>Ключ содержит версию данных ({@link DataVersions}), поэтому после записи
+ *         старые фрагменты больше не выбираются и вытесняются по размеру и времени жизни</li>
+ *     <li>Кэш включается свойством {@code app.fragment-cache.enabled} (профиль
+ *         {@code prod}); при разработке шаблоны меняются, и кэш выключен</li>
+ *     <li>Меню данных не содержит, его разобранный шаблон кэширует сам Thymeleaf
+ *         ({@code spring.thymeleaf.cache=true})</li>
+ * </ul>
+ */
+@Component
+class FragmentCache {
+
+    static final String RENDERED_FRAGMENTS = "renderedFragments";
+
+    private final ThymeleafViewResolver viewResolver;
+    private final CacheManager cacheManager;
+    private final boolean enabled;
+
+    FragmentCache(ThymeleafViewResolver viewResolver,
+                  CacheManager cacheManager,
+                  @Value("${app.fragment-cache.enabled:false}") boolean enabled) {
+        this.viewResolver = viewResolver;
+        this.cacheManager = cacheManager;
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Возвращает HTML фрагмента страницы списка, при промахе отрисовывая его.
+     *
+     * @param template  шаблон, например {@code owners/list}
+     * @param fragment  имя фрагмента в шаблоне
+     * @param version   версия данных, выводимых фрагментом
+     * @param pageQuery параметры страницы
+     * @param request   текущий запрос
+     * @param model     модель фрагмента; вызывается только при промахе
+     * @return HTML фрагмента
+     */
+    String render(String template, String fragment, DataVersions.Version version, PageQuery pageQuery,
+                  ServletWebRequest request, Supplier<Map<String, Object>> model) {
+        String key = String.join("|", template, fragment, version.etag(), request.getContextPath(),
+                String.valueOf(pageQuery.cursor()), String.valueOf(pageQuery.sort()),
+                String.valueOf(pageQuery.dir()), String.valueOf(pageQuery.size()));
+        Cache cache = cacheManager.getCache(RENDERED_FRAGMENTS);
+        if (cache == null) {
+            return renderNow(template + " :: " + fragment, model.get(), request);
+        }
+        return cache.get(key, () -> renderNow(template + " :: " + fragment, model.get(), request));
+    }
+
+    private String renderNow(String viewName, Map<String, Object> model, ServletWebRequest request) {
+        try {
+            Locale locale = request.getLocale();
+            View view = viewResolver.resolveViewName(viewName, locale);
+            CapturingResponse response = new CapturingResponse(request.getResponse());
+            view.render(model, request.getRequest(), response);
+            return response.content();
+        } catch (Exception e) {
+            throw new IllegalStateException("Не удалось отрисовать фрагмент " + viewName, e);
+        }
+    }
+
+    // Ответ, который собирает текст в строку и не трогает заголовки настоящего ответа
+    private static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private final StringWriter buffer = new StringWriter();
+        private final PrintWriter writer = new PrintWriter(buffer);
+
+        CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            throw new IllegalStateException("Фрагмент пишется только через getWriter()");
+        }
+
+        @Override
+        public void setContentType(String type) {
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+        }
+
+        @Override
+        public void setLocale(Locale locale) {
+        }
+
+        @Override
+        public void flushBuffer() {
+            writer.flush();
+        }
+
+        String content() {
+            writer.flush();
+            return buffer.toString();
+        }
+    }
+}
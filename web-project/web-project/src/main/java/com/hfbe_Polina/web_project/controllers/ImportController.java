@@ -0,0 +1,63 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.imports.BulkImportService;
+import com.hfbe_Polina.web_project.imports.ImportFormat;
+import com.hfbe_Polina.web_project.imports.ImportKind;
+import com.hfbe_Polina.web_project.imports.ImportReport;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Контроллер массового импорта данных клиники.
+ *
+ * <p>Тело запроса — сам файл (CSV с заголовком или NDJSON); оно читается
+ * потоково, без загрузки целиком в память. В ответ возвращается
+ * {@link ImportReport} в JSON.</p>
+ *
+ * <p><b>Пример:</b></p>
+ * <pre>
+ * curl -X POST -H "Content-Type: text/csv" --data-binary @owners.csv http://localhost:8080/import/owners
+ * curl -X POST -H "Content-Type: application/x-ndjson" --data-binary @visits.ndjson http://localhost:8080/import/visits
+ * </pre>
+ *
+ * <p>Набор столбцов для каждого типа описан в {@link ImportKind}.</p>
+ */
+@Controller
+@RequestMapping("/import")
+public class ImportController {
+
+    private final BulkImportService bulkImportService;
+
+    public ImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    /**
+     * Импортирует файл из тела запроса.
+     *
+     * @param kind    owners, pets или visits
+     * @param request запрос; формат определяется по Content-Type
+     * @return отчёт об импорте
+     * @throws IOException при обрыве загрузки
+     */
+    @PostMapping(path = "/{kind}", consumes = {"text/csv", "application/x-ndjson"})
+    @ResponseBody
+    public ImportReport importRows(@PathVariable String kind, HttpServletRequest request) throws IOException {
+        return bulkImportService.importRows(ImportKind.fromName(kind),
+                ImportFormat.fromContentType(request.getContentType()),
+                request.getInputStream());
+    }
+
+    /**
+     * Неизвестный тип импорта — ошибка клиента.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+}
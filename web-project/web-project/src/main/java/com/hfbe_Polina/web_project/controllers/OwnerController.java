@@ -1,12 +1,31 @@
 package com.hfbe_Polina.web_project.controllers;
 
+import com.hfbe_Polina.web_project.dto.EditConflict;
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
 import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.ContactConflict;
+import com.hfbe_Polina.web_project.services.DataVersions;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
+import com.hfbe_Polina.web_project.services.OwnerDeletion;
+import com.hfbe_Polina.web_project.services.OwnerDeletionService;
+import com.hfbe_Polina.web_project.services.OwnerSearchIndex;
 import com.hfbe_Polina.web_project.services.OwnerService;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Контроллер, управляющий CRUD‑операциями над владельцами животных.
@@ -18,37 +37,71 @@ import org.springframework.web.bind.annotation.*;
  *
  * <p><b>Основные функции контроллера:</b></p>
  * <ul>
- *     <li>Отображение списка владельцев</li>
+ *     <li>Отображение списка владельцев (постранично)</li>
  *     <li>Добавление нового владельца</li>
  *     <li>Редактирование данных владельца</li>
- *     <li>Удаление владельца</li>
- *     <li>Проверка уникальности email при создании и редактировании</li>
+ *     <li>Удаление владельца; крупные удаляются в фоне, ход виден
+ *         на {@code GET /owners/delete/{id}/progress}</li>
+ *     <li>Проверка уникальности email и телефона при создании и редактировании</li>
+ *     <li>Оптимистическая блокировка при редактировании: если владельца успели
+ *         изменить, показывается страница конфликта с формой слияния</li>
+ *     <li>Подсказки для выбора владельца в формах животных ({@code GET /owners/search})</li>
  * </ul>
+ *
+ * <p>Уникальность проверяется {@link OwnerService#findContactConflict} — обычно без
+ * запроса к БД; окончательно её гарантируют уникальные индексы при сохранении.</p>
+ *
+ * <p>Список и форма редактирования отвечают 304 Not Modified, пока версия данных
+ * владельцев ({@link DataVersions}) не изменилась, — без запросов к БД.</p>
  */
 @Controller
 @RequestMapping("/owners")
 public class OwnerController {
 
     private final OwnerService ownerService;
+    private final OwnerDeletionService ownerDeletionService;
+    private final DataVersions dataVersions;
+    private final FragmentCache fragmentCache;
 
     /**
      * Конструктор контроллера.
      *
      * @param ownerService сервис для работы с владельцами
+     * @param ownerDeletionService удаление владельцев, в том числе фоновое
+     * @param dataVersions версии данных для ответов 304
+     * @param fragmentCache кэш отрисованной таблицы списка
      */
-    public OwnerController(OwnerService ownerService) {
+    public OwnerController(OwnerService ownerService,
+                           OwnerDeletionService ownerDeletionService,
+                           DataVersions dataVersions,
+                           FragmentCache fragmentCache) {
         this.ownerService = ownerService;
+        this.ownerDeletionService = ownerDeletionService;
+        this.dataVersions = dataVersions;
+        this.fragmentCache = fragmentCache;
     }
 
     /**
-     * Отображает список всех владельцев.
+     * Отображает одну страницу списка владельцев.
      *
-     * @param model модель представления, содержащая коллекцию владельцев
-     * @return шаблон owners/list.html
+     * @param pageQuery курсор, сортировка и размер страницы из параметров запроса
+     * @param model модель представления, содержащая страницу владельцев
+     *              (или готовый HTML таблицы из {@link FragmentCache})
+     * @param webRequest запрос с условными заголовками
+     * @return шаблон owners/list.html или {@code null} для ответа 304
      */
     @GetMapping
-    public String list(Model model) {
-        model.addAttribute("owners", ownerService.findAll());
+    public String list(@ModelAttribute PageQuery pageQuery, Model model, ServletWebRequest webRequest) {
+        DataVersions.Version version = dataVersions.current(Aggregate.OWNERS);
+        if (ConditionalGet.notModified(webRequest, version)) {
+            return null;
+        }
+        if (fragmentCache.isEnabled()) {
+            model.addAttribute("listingHtml", fragmentCache.render("owners/list", "listing", version, pageQuery,
+                    webRequest, () -> pageModel(pageQuery)));
+        } else {
+            model.addAllAttributes(pageModel(pageQuery));
+        }
         return "owners/list";
     }
 
@@ -68,7 +121,7 @@ public class OwnerController {
      * Обрабатывает отправку формы добавления владельца.
      *
      * <p>Выполняет стандартную валидацию данных, а также проверку
-     * уникальности email. При наличии ошибок возвращает форму с сообщениями.</p>
+     * уникальности email и телефона. При наличии ошибок возвращает форму с сообщениями.</p>
      *
      * @param owner объект владельца, прошедший валидацию
      * @param result результат проверки данных
@@ -84,18 +137,15 @@ public class OwnerController {
             return "owners/add";
         }
 
-        // Проверка уникальности email
-        if (ownerService.existsByEmail(owner.getEmail())) {
-            model.addAttribute("emailError", "Email уже используется");
-            return "owners/add";
+        // Проверка уникальности email и телефона
+        ContactConflict conflict = ownerService.findContactConflict(owner.getEmail(), owner.getPhone(), null);
+        if (conflict == ContactConflict.NONE) {
+            conflict = trySave(owner, null);
         }
-        if (ownerService.existsByPhone(owner.getPhone())) {
-            model.addAttribute("phoneError", "Телефон уже используется");
-            return "owners/add"; // или edit
+        if (hasContactError(conflict, model)) {
+            return "owners/add";
         }
 
-
-        ownerService.save(owner);
         return "redirect:/owners";
     }
 
@@ -104,10 +154,14 @@ public class OwnerController {
      *
      * @param id идентификатор владельца
      * @param model модель представления
-     * @return шаблон owners/edit.html
+     * @param webRequest запрос с условными заголовками
+     * @return шаблон owners/edit.html или {@code null} для ответа 304
      */
     @GetMapping("/edit/{id}")
-    public String editForm(@PathVariable Long id, Model model) {
+    public String editForm(@PathVariable Long id, Model model, WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, dataVersions.current(Aggregate.OWNERS))) {
+            return null;
+        }
         model.addAttribute("owner", ownerService.findById(id));
         return "owners/edit";
     }
@@ -115,8 +169,9 @@ public class OwnerController {
     /**
      * Обрабатывает отправку формы редактирования владельца.
      *
-     * <p>Выполняет стандартную валидацию данных, а также проверяет
-     * уникальность email, если он был изменён.</p>
+     * <p>Выполняет стандартную валидацию данных, а также проверяет, что email
+     * и телефон не заняты другим владельцем. Отдельная загрузка владельца
+     * для сравнения не нужна.</p>
      *
      * @param id идентификатор владельца
      * @param owner обновлённые данные владельца
@@ -135,44 +190,124 @@ public class OwnerController {
             return "owners/edit";
         }
 
-        Owner existing = ownerService.findById(id);
-
-        // Проверка email
-        if (!existing.getEmail().equals(owner.getEmail())
-                && ownerService.existsByEmail(owner.getEmail())) {
+        owner.setId(id);
 
-            model.addAttribute("emailError", "Email уже используется");
-            owner.setId(id);
-            return "owners/edit";
+        // Форму без версии нельзя сверить с текущей записью
+        if (owner.getVersion() == null) {
+            return showConflict(owner, model);
         }
 
-        // Проверка телефона
-        if (!existing.getPhone().equals(owner.getPhone())
-                && ownerService.existsByPhone(owner.getPhone())) {
-
-            model.addAttribute("phoneError", "Телефон уже используется");
-            owner.setId(id);
+        // Проверка email и телефона; собственные контакты владельца не считаются занятыми
+        ContactConflict conflict = ownerService.findContactConflict(owner.getEmail(), owner.getPhone(), id);
+        if (conflict == ContactConflict.NONE) {
+            try {
+                conflict = trySave(owner, id);
+            } catch (OptimisticLockingFailureException e) {
+                return showConflict(owner, model);
+            }
+        }
+        if (hasContactError(conflict, model)) {
             return "owners/edit";
         }
 
-        owner.setId(id);
-        ownerService.save(owner);
         return "redirect:/owners";
     }
 
 
     /**
-     * Удаляет владельца по идентификатору.
+     * Подсказки для выбора владельца в форме животного.
+     *
+     * <p>Ищет по началу имени, email или телефона в индексе в памяти
+     * ({@link OwnerSearchIndex}), без запросов к БД.</p>
+     *
+     * @param query начало имени, email или телефона
+     * @param limit сколько подсказок вернуть, не больше {@link OwnerSearchIndex#MAX_RESULTS}
+     * @return найденные владельцы в JSON
+     */
+    @GetMapping("/search")
+    @ResponseBody
+    public List<OwnerSuggestion> search(@RequestParam("q") String query,
+                                        @RequestParam(defaultValue = "10") int limit) {
+        return ownerService.suggest(query, limit);
+    }
+
+    /**
+     * Удаляет владельца по идентификатору вместе с животными и их визитами.
      *
-     * <p>Если в сущности Owner настроены каскадные зависимости,
-     * будут удалены также все животные владельца и их визиты.</p>
+     * <p>Сущности не загружаются: удаление выполняется операторами DELETE
+     * ({@link OwnerDeletionService}). Владелец с большим числом визитов удаляется
+     * в фоне порциями — тогда пользователь переходит на страницу хода удаления.</p>
      *
      * @param id идентификатор владельца
-     * @return перенаправление на список владельцев
+     * @return перенаправление на список владельцев или на страницу хода удаления
      */
     @GetMapping("/delete/{id}")
     public String delete(@PathVariable Long id) {
-        ownerService.delete(id);
-        return "redirect:/owners";
+        OwnerDeletion deletion = ownerDeletionService.delete(id);
+        return deletion.isRunning() ? "redirect:/owners/delete/" + id + "/progress" : "redirect:/owners";
+    }
+
+    /**
+     * Показывает ход фонового удаления владельца; страница обновляется,
+     * пока удаление не закончится.
+     *
+     * @param id идентификатор владельца
+     * @param model модель представления с ходом удаления {@code deletion}
+     *              (нет, если фоновое удаление не запускалось)
+     * @return шаблон owners/deletion.html
+     */
+    @GetMapping("/delete/{id}/progress")
+    public String deletionProgress(@PathVariable Long id, Model model) {
+        model.addAttribute("ownerId", id);
+        model.addAttribute("deletion", ownerDeletionService.find(id));
+        return "owners/deletion";
+    }
+
+    // Страница конфликта: значения из формы рядом с текущими значениями владельца
+    private String showConflict(Owner owner, Model model) {
+        Owner current = ownerService.findById(owner.getId());
+        if (current == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Владелец не найден");
+        }
+        model.addAttribute("conflict", new EditConflict("Владелец", "/owners/edit/" + current.getId(),
+                current.getVersion(), List.of(
+                        EditConflict.field("name", "Имя", owner.getName(), current.getName()),
+                        EditConflict.field("phone", "Телефон", owner.getPhone(), current.getPhone()),
+                        EditConflict.field("email", "Email", owner.getEmail(), current.getEmail()))));
+        return "conflict";
+    }
+
+    // Сохранение; если контакт успели занять после проверки, сработает уникальный индекс БД
+    private ContactConflict trySave(Owner owner, Long excludeOwnerId) {
+        try {
+            ownerService.save(owner);
+            return ContactConflict.NONE;
+        } catch (DataIntegrityViolationException e) {
+            ContactConflict conflict = ownerService.findStoredContactConflict(
+                    owner.getEmail(), owner.getPhone(), excludeOwnerId);
+            if (conflict == ContactConflict.NONE) {
+                throw e;
+            }
+            return conflict;
+        }
+    }
+
+    // Сообщение об ошибке уникальности для формы
+    private boolean hasContactError(ContactConflict conflict, Model model) {
+        if (conflict == ContactConflict.EMAIL) {
+            model.addAttribute("emailError", "Email уже используется");
+            return true;
+        }
+        if (conflict == ContactConflict.PHONE) {
+            model.addAttribute("phoneError", "Телефон уже используется");
+            return true;
+        }
+        return false;
+    }
+
+    // Страница списка для шаблона или фрагмента listing
+    private Map<String, Object> pageModel(PageQuery pageQuery) {
+        KeysetPage<Owner> page = ownerService.findPage(pageQuery);
+        return Map.of("page", page, "owners", page.content());
     }
 }
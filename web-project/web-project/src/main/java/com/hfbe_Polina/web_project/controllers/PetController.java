@@ -1,14 +1,27 @@
 package com.hfbe_Polina.web_project.controllers;
 
+import com.hfbe_Polina.web_project.dto.EditConflict;
+import com.hfbe_Polina.web_project.dto.PetListItem;
 import com.hfbe_Polina.web_project.entities.Pet;
-import com.hfbe_Polina.web_project.services.OwnerService;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.DataVersions;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
 import com.hfbe_Polina.web_project.services.PetService;
 import jakarta.validation.Valid;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Контроллер, управляющий CRUD‑операциями над животными.
@@ -33,13 +46,15 @@ import org.springframework.web.bind.annotation.*;
  *     <li>Номер паспорта животного должен быть уникальным — нарушение приводит к
  *         <code>DataIntegrityViolationException</code> и отображению ошибки</li>
  *     <li>При редактировании животного владелец не может быть изменён</li>
+ *     <li>Если животное изменили после открытия формы редактирования (устарело
+ *         поле version), показывается страница конфликта с формой слияния</li>
  *     <li>Животное нельзя удалить, если у него есть хотя бы один визит</li>
  *     <li>При ошибках валидации форма повторно отображается с сохранением введённых данных</li>
  * </ul>
  *
  * <p><b>Основные маршруты:</b></p>
  * <ul>
- *     <li><b>GET /pets</b> — отображение списка животных</li>
+ *     <li><b>GET /pets</b> — отображение списка животных (постранично, параметры cursor/sort/dir/size)</li>
  *     <li><b>GET /pets/add</b> — форма добавления животного</li>
  *     <li><b>POST /pets/add</b> — обработка создания животного</li>
  *     <li><b>GET /pets/edit/{id}</b> — форма редактирования животного</li>
@@ -49,10 +64,15 @@ import org.springframework.web.bind.annotation.*;
  *
  * <p><b>Особенности реализации:</b></p>
  * <ul>
- *     <li>Используются сервисы {@link PetService} и {@link OwnerService} для работы с данными</li>
+ *     <li>Используется сервис {@link PetService} для работы с данными</li>
  *     <li>Ошибки уникальности паспорта обрабатываются вручную через try/catch</li>
  *     <li>При редактировании данные владельца подставляются из существующей сущности</li>
  *     <li>При удалении выполняется проверка наличия визитов у животного</li>
+ *     <li>Владелец в форме добавления выбирается подсказками поиска ({@code GET /owners/search});
+ *         полный список владельцев в формы не загружается</li>
+ *     <li>Список и форма редактирования отвечают 304 Not Modified, пока не изменились
+ *         версии животных и владельцев ({@link DataVersions})</li>
+ *     <li>В режиме prod таблица списка берётся готовым HTML из {@link FragmentCache}</li>
  * </ul>
  *
  * <p><b>Используется в случаях:</b></p>
@@ -70,19 +90,30 @@ import org.springframework.web.bind.annotation.*;
 public class PetController {
 
     private final PetService petService;
-    private final OwnerService ownerService;
+    private final DataVersions dataVersions;
+    private final FragmentCache fragmentCache;
 
-    public PetController(PetService petService, OwnerService ownerService) {
+    public PetController(PetService petService, DataVersions dataVersions, FragmentCache fragmentCache) {
         this.petService = petService;
-        this.ownerService = ownerService;
+        this.dataVersions = dataVersions;
+        this.fragmentCache = fragmentCache;
     }
 
     // ============================
     // Список животных
     // ============================
     @GetMapping
-    public String list(Model model) {
-        model.addAttribute("pets", petService.findAll());
+    public String list(@ModelAttribute PageQuery pageQuery, Model model, ServletWebRequest webRequest) {
+        DataVersions.Version version = dataVersions.current(Aggregate.PETS, Aggregate.OWNERS);
+        if (ConditionalGet.notModified(webRequest, version)) {
+            return null;
+        }
+        if (fragmentCache.isEnabled()) {
+            model.addAttribute("listingHtml", fragmentCache.render("pets/list", "listing", version, pageQuery,
+                    webRequest, () -> pageModel(pageQuery)));
+        } else {
+            model.addAllAttributes(pageModel(pageQuery));
+        }
         return "pets/list";
     }
 
@@ -92,7 +123,6 @@ public class PetController {
     @GetMapping("/add")
     public String addForm(Model model) {
         model.addAttribute("pet", new Pet());
-        model.addAttribute("owners", ownerService.findAll());
         return "pets/add";
     }
 
@@ -104,8 +134,12 @@ public class PetController {
                       BindingResult result,
                       Model model) {
 
+        // Владелец выбирается из подсказок поиска; без выбора owner.id приходит пустым
+        if (pet.getOwner() != null && pet.getOwner().getId() == null) {
+            result.rejectValue("owner", "NotNull", "Выберите владельца из подсказок");
+        }
+
         if (result.hasErrors()) {
-            model.addAttribute("owners", ownerService.findAll());
             return "pets/add";
         }
 
@@ -113,7 +147,6 @@ public class PetController {
             petService.save(pet);
         } catch (DataIntegrityViolationException e) {
             model.addAttribute("passportError", "Животное с таким номером паспорта уже существует");
-            model.addAttribute("owners", ownerService.findAll());
             return "pets/add";
         }
 
@@ -124,9 +157,11 @@ public class PetController {
     // Форма редактирования
     // ============================
     @GetMapping("/edit/{id}")
-    public String editForm(@PathVariable Long id, Model model) {
+    public String editForm(@PathVariable Long id, Model model, WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, dataVersions.current(Aggregate.PETS, Aggregate.OWNERS))) {
+            return null;
+        }
         model.addAttribute("pet", petService.findById(id));
-        model.addAttribute("owners", ownerService.findAll());
         return "pets/edit";
     }
 
@@ -139,24 +174,32 @@ public class PetController {
                        BindingResult result,
                        Model model) {
 
-        if (result.hasErrors()) {
-            model.addAttribute("owners", ownerService.findAll());
-            return "pets/edit";
-        }
-
         Pet existing = petService.findById(id);
+        if (existing == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Животное не найдено");
+        }
 
-        // Владелец не меняется
+        // Владелец не меняется (owner.id из формы не используется); он же показывается в форме при ошибках
         pet.setOwner(existing.getOwner());
 
+        if (result.hasErrors()) {
+            return "pets/edit";
+        }
+
         pet.setId(id);
 
+        // Форму без версии нельзя сверить с текущей записью
+        if (pet.getVersion() == null) {
+            return showConflict(pet, model);
+        }
+
         try {
             petService.save(pet);
         } catch (DataIntegrityViolationException e) {
             model.addAttribute("passportError", "Животное с таким номером паспорта уже существует");
-            model.addAttribute("owners", ownerService.findAll());
             return "pets/edit";
+        } catch (OptimisticLockingFailureException e) {
+            return showConflict(pet, model);
         }
 
         return "redirect:/pets";
@@ -166,18 +209,42 @@ public class PetController {
     // Удаление
     // ============================
     @GetMapping("/delete/{id}")
-    public String delete(@PathVariable Long id, Model model) {
-
-        Pet pet = petService.findById(id);
+    public String delete(@PathVariable Long id,
+                         @ModelAttribute PageQuery pageQuery,
+                         Model model) {
 
         // Нельзя удалить животное, если у него есть визиты
-        if (!pet.getVisits().isEmpty()) {
+        if (petService.hasVisits(id)) {
             model.addAttribute("deleteError", "Нельзя удалить животное, у которого есть визиты");
-            model.addAttribute("pets", petService.findAll());
+            model.addAllAttributes(pageModel(pageQuery));
             return "pets/list";
         }
 
         petService.delete(id);
         return "redirect:/pets";
     }
+
+    // Страница конфликта: менять можно только имя, остальные поля берутся из текущей записи.
+    // Владелец передаётся скрытым полем — без него форма слияния не пройдёт проверку
+    private String showConflict(Pet pet, Model model) {
+        Pet current = petService.findById(pet.getId());
+        if (current == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Животное не найдено");
+        }
+        model.addAttribute("conflict", new EditConflict("Животное", "/pets/edit/" + current.getId(),
+                current.getVersion(), List.of(
+                        EditConflict.field("name", "Имя", pet.getName(), current.getName()),
+                        EditConflict.readOnly("species", "Вид", current.getSpecies()),
+                        EditConflict.readOnly("breed", "Порода", current.getBreed()),
+                        EditConflict.readOnly("birthDate", "Дата рождения", current.getBirthDate()),
+                        EditConflict.readOnly("passportNumber", "Номер паспорта", current.getPassportNumber()),
+                        EditConflict.readOnly("owner.id", "Владелец", current.getOwner().getId()))));
+        return "conflict";
+    }
+
+    // Страница списка для шаблона или фрагмента listing
+    private Map<String, Object> pageModel(PageQuery pageQuery) {
+        KeysetPage<PetListItem> page = petService.findPage(pageQuery);
+        return Map.of("page", page, "pets", page.content());
+    }
 }
@@ -0,0 +1,58 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.services.ClinicStatistics;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDate;
+
+/**
+ * Контроллер панели статистики клиники.
+ *
+ * <p>
+ * Панель показывает визиты по дням и неделям за выбранный период, частые диагнозы,
+ * виды животных и владельцев с наибольшим числом визитов. Все цифры берутся из
+ * счётчиков {@link ClinicStatistics} в памяти — страница не выполняет SQL‑запросов.
+ * </p>
+ *
+ * <p><b>Основные маршруты:</b></p>
+ * <ul>
+ *     <li><b>GET /stats?from=&amp;to=</b> — панель; без параметров — последние 30 дней с визитами</li>
+ *     <li><b>POST /stats/rebuild</b> — полный пересчёт счётчиков из БД (восстановление,
+ *         если счётчики разошлись с данными)</li>
+ * </ul>
+ */
+@Controller
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final ClinicStatistics clinicStatistics;
+
+    public StatsController(ClinicStatistics clinicStatistics) {
+        this.clinicStatistics = clinicStatistics;
+    }
+
+    @GetMapping
+    public String dashboard(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                            Model model) {
+        try {
+            model.addAttribute("stats", clinicStatistics.snapshot(from, to));
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("periodError", e.getMessage());
+            model.addAttribute("stats", clinicStatistics.snapshot(null, null));
+        }
+        return "stats/dashboard";
+    }
+
+    @PostMapping("/rebuild")
+    public String rebuild() {
+        clinicStatistics.reload();
+        return "redirect:/stats";
+    }
+}
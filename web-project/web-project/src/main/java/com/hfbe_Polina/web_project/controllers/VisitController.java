@@ -1,16 +1,34 @@
 package com.hfbe_Polina.web_project.controllers;
 
+import com.hfbe_Polina.web_project.dto.DayAvailability;
+import com.hfbe_Polina.web_project.dto.EditConflict;
+import com.hfbe_Polina.web_project.dto.VisitListItem;
+import com.hfbe_Polina.web_project.dto.VisitSearchPage;
 import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.BookingMetrics;
+import com.hfbe_Polina.web_project.services.BookingMetrics.Rejection;
+import com.hfbe_Polina.web_project.services.BookingResult;
+import com.hfbe_Polina.web_project.services.DataVersions;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
 import com.hfbe_Polina.web_project.services.PetService;
+import com.hfbe_Polina.web_project.services.VisitAvailabilityService;
 import com.hfbe_Polina.web_project.services.VisitService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
 /**
  * Контроллер, управляющий CRUD‑операциями над визитами животных.
  *
@@ -35,19 +53,33 @@ import java.time.LocalTime;
  *
  * <p><b>Основные маршруты:</b></p>
  * <ul>
- *     <li><b>GET /visits</b> — отображение списка всех визитов</li>
+ *     <li><b>GET /visits</b> — отображение списка визитов (постранично, параметры cursor/sort/dir/size)</li>
  *     <li><b>GET /visits/add</b> — форма создания визита</li>
  *     <li><b>POST /visits/add</b> — обработка создания визита</li>
  *     <li><b>GET /visits/edit/{id}</b> — форма редактирования визита</li>
  *     <li><b>POST /visits/edit/{id}</b> — обработка редактирования визита</li>
  *     <li><b>GET /visits/delete/{id}</b> — удаление визита</li>
+ *     <li><b>GET /visits/availability?from=&amp;to=</b> — свободное время по дням периода (JSON)</li>
+ *     <li><b>GET /visits/search?q=&amp;from=&amp;to=&amp;page=&amp;size=</b> — поиск по диагнозу и лечению</li>
  * </ul>
  *
  * <p><b>Особенности реализации:</b></p>
  * <ul>
  *     <li>При ошибках валидации форма повторно отображается с сохранением введённых данных.</li>
  *     <li>При редактировании визита поля diagnosis, treatment и pet недоступны для изменения.</li>
- *     <li>Проверка пересечения визитов выполняется через сервисный слой.</li>
+ *     <li>Пересечение визитов и лимит дня проверяет {@code VisitService.book()} в БД
+ *         под блокировкой дня, — одновременные записи не могут занять один час
+ *         или превысить лимит, а визиты, записанные другим экземпляром приложения,
+ *         импортом или SQL, учитываются сразу.</li>
+ *     <li>Редактирование переносит визит через {@code VisitService.reschedule()} —
+ *         одним условным UPDATE даты и времени, без загрузки визита.</li>
+ *     <li>Тот же UPDATE сверяет версию визита из формы; если визит изменили после
+ *         открытия формы, показывается страница конфликта с формой слияния.</li>
+ *     <li>Список животных для форм берётся из кэша ({@code PetService.findOptions()}).</li>
+ *     <li>Список и форма редактирования отвечают 304 Not Modified, пока не изменились
+ *         версии визитов и животных ({@link DataVersions}).</li>
+ *     <li>В режиме prod таблица списка берётся готовым HTML из {@link FragmentCache}.</li>
+ *     <li>Каждый отказ в записи и каждая успешная запись учитываются в {@link BookingMetrics}.</li>
  *     <li>Используются как стандартные ошибки BindingResult, так и кастомные ошибки (dateError, timeError, limitError).</li>
  * </ul>
  *
@@ -67,22 +99,73 @@ public class VisitController {
 
     private final VisitService visitService;
     private final PetService petService;
-
-    public VisitController(VisitService visitService, PetService petService) {
+    private final VisitAvailabilityService availabilityService;
+    private final DataVersions dataVersions;
+    private final FragmentCache fragmentCache;
+    private final BookingMetrics bookingMetrics;
+
+    public VisitController(VisitService visitService, PetService petService,
+                           VisitAvailabilityService availabilityService, DataVersions dataVersions,
+                           FragmentCache fragmentCache, BookingMetrics bookingMetrics) {
         this.visitService = visitService;
         this.petService = petService;
+        this.availabilityService = availabilityService;
+        this.dataVersions = dataVersions;
+        this.fragmentCache = fragmentCache;
+        this.bookingMetrics = bookingMetrics;
     }
 
     @GetMapping
-    public String list(Model model) {
-        model.addAttribute("visits", visitService.findAll());
+    public String list(@ModelAttribute PageQuery pageQuery, Model model, ServletWebRequest webRequest) {
+        DataVersions.Version version = dataVersions.current(Aggregate.VISITS, Aggregate.PETS);
+        if (ConditionalGet.notModified(webRequest, version)) {
+            return null;
+        }
+        if (fragmentCache.isEnabled()) {
+            model.addAttribute("listingHtml", fragmentCache.render("visits/list", "listing", version, pageQuery,
+                    webRequest, () -> pageModel(pageQuery)));
+        } else {
+            model.addAllAttributes(pageModel(pageQuery));
+        }
         return "visits/list";
     }
 
+    @GetMapping("/availability")
+    @ResponseBody
+    public List<DayAvailability> availability(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            return availabilityService.findAvailability(from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @GetMapping("/search")
+    public String search(@RequestParam(defaultValue = "") String q,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                         @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                         @RequestParam(required = false) Integer page,
+                         @RequestParam(required = false) Integer size,
+                         Model model) {
+        model.addAttribute("q", q);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        try {
+            VisitSearchPage result = visitService.search(q, from, to, page, size);
+            model.addAttribute("result", result);
+            model.addAttribute("visits", result.content());
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("searchError", e.getMessage());
+        }
+        return "visits/search";
+    }
+
     @GetMapping("/add")
     public String addForm(Model model) {
         model.addAttribute("visit", new Visit());
-        model.addAttribute("pets", petService.findAll());
+        model.addAttribute("pets", petService.findOptions());
         return "visits/add";
     }
 
@@ -92,56 +175,52 @@ public class VisitController {
                       Model model) {
 
         if (result.hasErrors()) {
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/add";
         }
 
         //  Дата не пришла
         if (visit.getDate() == null) {
             model.addAttribute("dateError", "Введите корректную дату визита");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/add";
         }
 
         // Ограничение даты
-        if (visit.getDate().isAfter(LocalDate.of(2026, 3, 12))) {
+        if (visit.getDate().isAfter(VisitService.LAST_VISIT_DATE)) {
+            bookingMetrics.rejected(Rejection.DATE_LIMIT);
             model.addAttribute("dateError", "Дата визита должна быть до 12 марта 2026");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/add";
         }
 
         // Ограничение времени
         if (visit.getTime() == null ||
-                visit.getTime().isBefore(LocalTime.of(8, 0)) ||
-                visit.getTime().isAfter(LocalTime.of(15, 0))) {
+                visit.getTime().isBefore(VisitService.OPENING_TIME) ||
+                visit.getTime().isAfter(VisitService.LAST_START_TIME)) {
 
+            bookingMetrics.rejected(Rejection.TIME_WINDOW);
             model.addAttribute("timeError", "Визиты принимаются с 08:00 до 15:00");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/add";
         }
 
-        // Пересечение визитов
-        if (visitService.hasOverlappingVisit(visit.getDate(), visit.getTime())) {
-            model.addAttribute("timeError", "Это время пересекается с другим визитом");
-            model.addAttribute("pets", petService.findAll());
+        // Пересечение и лимит дня проверяются в БД под блокировкой дня: индекс в памяти
+        // не видит визиты, записанные другими экземплярами приложения или в обход него
+        if (!isBooked(visitService.book(visit), model)) {
+            model.addAttribute("pets", petService.findOptions());
             return "visits/add";
         }
-
-        // Лимит 8 визитов
-        if (visitService.countByDate(visit.getDate()) >= 8) {
-            model.addAttribute("limitError", "На этот день уже записано 8 визитов");
-            model.addAttribute("pets", petService.findAll());
-            return "visits/add";
-        }
-
-        visitService.save(visit);
         return "redirect:/visits";
     }
 
     @GetMapping("/edit/{id}")
-    public String editForm(@PathVariable Long id, Model model) {
+    public String editForm(@PathVariable Long id, Model model, WebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, dataVersions.current(Aggregate.VISITS, Aggregate.PETS))) {
+            return null;
+        }
         model.addAttribute("visit", visitService.findById(id));
-        model.addAttribute("pets", petService.findAll());
+        model.addAttribute("pets", petService.findOptions());
         return "visits/edit";
     }
 
@@ -151,77 +230,95 @@ public class VisitController {
                        BindingResult result,
                        Model model) {
 
+        visit.setId(id);
+
         if (result.hasErrors()) {
-            visit.setId(id);
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/edit";
         }
 
         // ❗ Дата не пришла (браузер не отправил её)
         if (visit.getDate() == null) {
             model.addAttribute("dateError", "Введите корректную дату визита");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/edit";
         }
 
         // Ограничение даты
-        if (visit.getDate().isAfter(LocalDate.of(2026, 3, 12))) {
+        if (visit.getDate().isAfter(VisitService.LAST_VISIT_DATE)) {
+            bookingMetrics.rejected(Rejection.DATE_LIMIT);
             model.addAttribute("dateError", "Дата визита должна быть до 12 марта 2026");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/edit";
         }
 
         // Ограничение времени
         if (visit.getTime() == null ||
-                visit.getTime().isBefore(LocalTime.of(8, 0)) ||
-                visit.getTime().isAfter(LocalTime.of(15, 0))) {
+                visit.getTime().isBefore(VisitService.OPENING_TIME) ||
+                visit.getTime().isAfter(VisitService.LAST_START_TIME)) {
 
+            bookingMetrics.rejected(Rejection.TIME_WINDOW);
             model.addAttribute("timeError", "Визиты принимаются с 08:00 до 15:00");
-            model.addAttribute("pets", petService.findAll());
+            model.addAttribute("pets", petService.findOptions());
             return "visits/edit";
         }
 
-        Visit existing = visitService.findById(id);
-
-        // Запрет переноса на более раннюю дату
-        if (visit.getDate().isBefore(existing.getDate())) {
-            model.addAttribute("dateError", "Нельзя перенести визит на более раннюю дату");
-            model.addAttribute("pets", petService.findAll());
+        // Перенос одним UPDATE: пересечение, лимит дня и запрет переноса
+        // на более раннюю дату проверяются в самом операторе под блокировкой дня.
+        // Диагноз и лечение не меняются — их поля формы не используются.
+        // Животное и версия из формы сверяются в том же UPDATE
+        Long petId = visit.getPet() != null ? visit.getPet().getId() : null;
+        BookingResult booking = visitService.reschedule(id, petId, visit.getVersion(), visit.getDate(), visit.getTime());
+        if (booking == BookingResult.MISSING) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Визит не найден");
+        }
+        if (booking == BookingResult.STALE) {
+            return showConflict(visit, model);
+        }
+        if (!isBooked(booking, model)) {
+            model.addAttribute("pets", petService.findOptions());
             return "visits/edit";
         }
+        return "redirect:/visits";
+    }
 
-        boolean timeChanged = !existing.getTime().equals(visit.getTime())
-                || !existing.getDate().equals(visit.getDate());
-
-        // Пересечение визитов
-        if (timeChanged && visitService.hasOverlappingVisit(visit.getDate(), visit.getTime())) {
+    // Переводит отказ атомарной записи в сообщение формы
+    private boolean isBooked(BookingResult result, Model model) {
+        bookingMetrics.record(result);
+        if (result == BookingResult.OVERLAP) {
             model.addAttribute("timeError", "Это время пересекается с другим визитом");
-            model.addAttribute("pets", petService.findAll());
-            return "visits/edit";
+            return false;
         }
-
-        // Лимит 8 визитов
-        if (!existing.getDate().equals(visit.getDate())
-                && visitService.countByDate(visit.getDate()) >= 8) {
-
+        if (result == BookingResult.DAILY_LIMIT) {
             model.addAttribute("limitError", "На этот день уже записано 8 визитов");
-            model.addAttribute("pets", petService.findAll());
-            return "visits/edit";
+            return false;
         }
+        if (result == BookingResult.EARLIER_DATE) {
+            model.addAttribute("dateError", "Нельзя перенести визит на более раннюю дату");
+            return false;
+        }
+        return true;
+    }
 
-        // Поля, которые нельзя менять
-        visit.setId(id);
-        visit.setPet(existing.getPet());
-        visit.setDiagnosis(existing.getDiagnosis());
-        visit.setTreatment(existing.getTreatment());
-
-        visitService.save(visit);
-        return "redirect:/visits";
+    // Страница конфликта: переносятся только дата и время, остальное берётся из текущего визита
+    private String showConflict(Visit visit, Model model) {
+        Visit current = visitService.findById(visit.getId());
+        if (current == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Визит не найден");
+        }
+        model.addAttribute("conflict", new EditConflict("Визит", "/visits/edit/" + current.getId(),
+                current.getVersion(), List.of(
+                        EditConflict.field("date", "Дата", visit.getDate(), current.getDate()),
+                        EditConflict.field("time", "Время", visit.getTime(), current.getTime()),
+                        EditConflict.readOnly("diagnosis", "Диагноз", current.getDiagnosis()),
+                        EditConflict.readOnly("treatment", "Лечение", current.getTreatment()),
+                        EditConflict.readOnly("pet.id", "Животное", current.getPet().getId()))));
+        return "conflict";
     }
 
-    @GetMapping("/delete/{id}")
-    public String delete(@PathVariable Long id) {
-        visitService.delete(id);
-        return "redirect:/visits";
+    // Страница списка для шаблона или фрагмента listing
+    private Map<String, Object> pageModel(PageQuery pageQuery) {
+        KeysetPage<VisitListItem> page = visitService.findPage(pageQuery);
+        return Map.of("page", page, "visits", page.content());
     }
 }
@@ -0,0 +1,59 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Снимок статистики клиники для панели {@code /stats}.
+ *
+ * @param from        первый день периода
+ * @param to          последний день периода
+ * @param days        визиты по дням периода, включая дни без визитов
+ * @param weeks       визиты по неделям (с понедельника), пересекающим период
+ * @param diagnoses   самые частые диагнозы за всё время
+ * @param species     животные по видам, по убыванию
+ * @param owners      владельцы с наибольшим числом визитов за всё время
+ * @param totalVisits всего визитов
+ * @param totalPets   всего животных
+ * @param builtAt     время последнего полного пересчёта
+ */
+public record ClinicStats(LocalDate from,
+                          LocalDate to,
+                          List<DayCount> days,
+                          List<DayCount> weeks,
+                          List<LabelCount> diagnoses,
+                          List<LabelCount> species,
+                          List<OwnerCount> owners,
+                          int totalVisits,
+                          int totalPets,
+                          Instant builtAt) {
+
+    // Наибольшее число визитов за день периода — масштаб полосок на панели
+    public int busiestDay() {
+        return days.stream().mapToInt(DayCount::count).max().orElse(0);
+    }
+
+    // Наибольшее число визитов за неделю периода
+    public int busiestWeek() {
+        return weeks.stream().mapToInt(DayCount::count).max().orElse(0);
+    }
+
+    /**
+     * Число визитов за день или за неделю, начинающуюся с {@code day}.
+     */
+    public record DayCount(LocalDate day, int count) {
+    }
+
+    /**
+     * Число записей с одним значением (диагноз, вид животного).
+     */
+    public record LabelCount(String label, int count) {
+    }
+
+    /**
+     * Число визитов животных одного владельца.
+     */
+    public record OwnerCount(Long ownerId, String name, String email, int visits) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Свободное время одного дня.
+ *
+ * @param date              дата
+ * @param remainingCapacity сколько визитов ещё можно записать (из
+ *                          {@link com.hfbe_Polina.web_project.services.VisitService#DAILY_LIMIT})
+ * @param freeSlots         начала свободных часовых интервалов (08:00, 09:00 … 15:00),
+ *                          не пересекающихся с записанными визитами
+ */
+public record DayAvailability(LocalDate date, int remainingCapacity, List<LocalTime> freeSlots) {
+}
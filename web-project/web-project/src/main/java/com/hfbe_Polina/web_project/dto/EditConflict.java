@@ -0,0 +1,55 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Конфликт правки: форма редактирования открыта до того, как запись изменил
+ * другой пользователь, и её версия устарела.
+ *
+ * <p>
+ * Показывается шаблоном {@code conflict.html}: значения из формы стоят рядом
+ * с текущими значениями записи. Для каждого расходящегося поля пользователь
+ * выбирает одно из двух, остальные поля отправляются как есть. Форма слияния
+ * уходит на тот же адрес редактирования с текущей версией записи, поэтому
+ * повторное сохранение проходит обычные проверки и снова сверяет версию.
+ * </p>
+ *
+ * @param title   что редактировалось, для заголовка страницы
+ * @param action  адрес формы редактирования (GET — форма, POST — сохранение)
+ * @param version текущая версия записи
+ * @param fields  поля формы в порядке отображения
+ */
+public record EditConflict(String title, String action, Long version, List<Field> fields) {
+
+    /**
+     * Поле формы: имя параметра запроса, подпись и два значения в виде строк формы.
+     */
+    public record Field(String name, String label, String yours, String current) {
+
+        public boolean differs() {
+            return !Objects.equals(yours, current);
+        }
+    }
+
+    /**
+     * Поле, которое пользователь мог изменить.
+     */
+    public static Field field(String name, String label, Object yours, Object current) {
+        return new Field(name, label, Objects.toString(yours, ""), Objects.toString(current, ""));
+    }
+
+    /**
+     * Поле только для чтения: в форму слияния уходит текущее значение.
+     */
+    public static Field readOnly(String name, String label, Object current) {
+        return field(name, label, current, current);
+    }
+
+    /**
+     * Есть ли поля, где значения пользователя расходятся с текущими.
+     */
+    public boolean hasDifferences() {
+        return fields.stream().anyMatch(Field::differs);
+    }
+}
@@ -0,0 +1,13 @@
+package com.hfbe_Polina.web_project.dto;
+
+/**
+ * Естественные ключи владельца: email и телефон вместе с идентификатором.
+ *
+ * <p>
+ * Используется при массовом импорте: одним запросом на пакет строк проверяется,
+ * какие email и телефоны уже заняты, и находятся владельцы, на которых
+ * ссылаются импортируемые животные.
+ * </p>
+ */
+public record OwnerKey(Long id, String email, String phone) {
+}
@@ -0,0 +1,13 @@
+package com.hfbe_Polina.web_project.dto;
+
+/**
+ * Владелец в подсказках поиска (автодополнение в формах животных).
+ *
+ * <p>
+ * Содержит поля, по которым ищут и различают владельцев: имя, email и телефон.
+ * Хранится в {@link com.hfbe_Polina.web_project.services.OwnerSearchIndex}
+ * и отдаётся маршрутом {@code GET /owners/search} в JSON.
+ * </p>
+ */
+public record OwnerSuggestion(Long id, String name, String email, String phone) {
+}
@@ -0,0 +1,21 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Строка выгрузки животных.
+ *
+ * <p>
+ * Читается потоково одним запросом {@code pets JOIN owners}. Владелец задаётся
+ * email — выгрузку можно снова загрузить через импорт.
+ * </p>
+ */
+public record PetExportRow(Long id,
+                           String name,
+                           String species,
+                           String breed,
+                           LocalDate birthDate,
+                           String passportNumber,
+                           String ownerEmail,
+                           String ownerName) {
+}
@@ -0,0 +1,12 @@
+package com.hfbe_Polina.web_project.dto;
+
+/**
+ * Номер паспорта животного вместе с идентификатором.
+ *
+ * <p>
+ * Используется при массовом импорте для проверки уникальности паспортов
+ * и поиска животных, на которых ссылаются импортируемые визиты.
+ * </p>
+ */
+public record PetKey(Long id, String passportNumber) {
+}
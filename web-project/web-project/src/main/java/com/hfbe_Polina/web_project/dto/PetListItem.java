@@ -0,0 +1,23 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Строка списка животных (read‑only проекция).
+ *
+ * <p>
+ * Заполняется Spring Data одним запросом {@code pets LEFT JOIN owners}: выбираются только
+ * столбцы, которые выводит шаблон pets/list.html, а имя владельца берётся из того же
+ * запроса (свойство {@code ownerName} разрешается как путь {@code owner.name}).
+ * В отличие от сущности {@link com.hfbe_Polina.web_project.entities.Pet},
+ * проекция не попадает в persistence context и не требует отдельного SELECT владельца.
+ * </p>
+ */
+public record PetListItem(Long id,
+                          String name,
+                          LocalDate birthDate,
+                          String passportNumber,
+                          String species,
+                          String breed,
+                          String ownerName) {
+}
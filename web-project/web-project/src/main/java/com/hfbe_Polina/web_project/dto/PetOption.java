@@ -0,0 +1,8 @@
+package com.hfbe_Polina.web_project.dto;
+
+/**
+ * Элемент выпадающего списка животных в формах визитов.
+ * Хранится в кэше {@code petOptions}.
+ */
+public record PetOption(Long id, String name) {
+}
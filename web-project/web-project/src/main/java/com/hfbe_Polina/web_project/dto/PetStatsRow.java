@@ -0,0 +1,12 @@
+package com.hfbe_Polina.web_project.dto;
+
+/**
+ * Животное в том объёме, который нужен статистике клиники: владелец и вид.
+ *
+ * <p>
+ * Используется при полном пересчёте
+ * {@link com.hfbe_Polina.web_project.services.ClinicStatistics}.
+ * </p>
+ */
+public record PetStatsRow(Long id, Long ownerId, String species) {
+}
@@ -0,0 +1,22 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Строка выгрузки визитов.
+ *
+ * <p>
+ * Читается потоково одним запросом {@code visits LEFT JOIN pets} и не становится
+ * управляемой сущностью, поэтому контекст Hibernate не растёт во время выгрузки.
+ * Животное задаётся номером паспорта — выгрузку можно снова загрузить через импорт.
+ * </p>
+ */
+public record VisitExportRow(Long id,
+                             LocalDate date,
+                             LocalTime time,
+                             String diagnosis,
+                             String treatment,
+                             String passportNumber,
+                             String petName) {
+}
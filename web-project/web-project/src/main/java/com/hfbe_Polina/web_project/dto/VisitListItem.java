@@ -0,0 +1,22 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Строка списка визитов (read‑only проекция).
+ *
+ * <p>
+ * Заполняется Spring Data одним запросом {@code visits LEFT JOIN pets}: свойство
+ * {@code petName} разрешается как путь {@code pet.name}. Сущности
+ * {@link com.hfbe_Polina.web_project.entities.Visit} и
+ * {@link com.hfbe_Polina.web_project.entities.Pet} при этом не создаются.
+ * </p>
+ */
+public record VisitListItem(Long id,
+                            LocalDate date,
+                            LocalTime time,
+                            String diagnosis,
+                            String treatment,
+                            String petName) {
+}
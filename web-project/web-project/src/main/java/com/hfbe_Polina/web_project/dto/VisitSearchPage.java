@@ -0,0 +1,32 @@
+package com.hfbe_Polina.web_project.dto;
+
+import com.hfbe_Polina.web_project.services.VisitTextIndex;
+
+import java.util.List;
+
+/**
+ * Страница результатов полнотекстового поиска визитов.
+ *
+ * <p>
+ * Результаты упорядочены по рангу, а не по столбцу таблицы, поэтому страницы
+ * нумеруются (с нуля), а не задаются курсором, как в
+ * {@link com.hfbe_Polina.web_project.paging.KeysetPage}. Листать можно только первые
+ * {@link VisitTextIndex#MAX_WINDOW} результатов.
+ * </p>
+ *
+ * @param content строки страницы по убыванию ранга
+ * @param page    номер страницы
+ * @param size    размер страницы
+ * @param total   сколько всего визитов найдено
+ */
+public record VisitSearchPage(List<VisitListItem> content, int page, int size, int total) {
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean hasNext() {
+        long nextOffset = (long) (page + 1) * size;
+        return nextOffset < Math.min(total, VisitTextIndex.MAX_WINDOW);
+    }
+}
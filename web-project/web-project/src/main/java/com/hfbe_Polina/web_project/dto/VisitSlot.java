@@ -0,0 +1,15 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Занятый интервал расписания: визит без диагноза, лечения и животного.
+ *
+ * <p>
+ * Используется для расчёта свободного времени и проверки пакета при импорте:
+ * из таблицы visits читаются только три столбца.
+ * </p>
+ */
+public record VisitSlot(Long id, LocalDate date, LocalTime time) {
+}
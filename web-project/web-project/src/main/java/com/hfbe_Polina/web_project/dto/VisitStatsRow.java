@@ -0,0 +1,14 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Визит в том объёме, который нужен статистике клиники.
+ *
+ * <p>
+ * Используется при полном пересчёте
+ * {@link com.hfbe_Polina.web_project.services.ClinicStatistics}.
+ * </p>
+ */
+public record VisitStatsRow(Long id, Long petId, LocalDate date, String diagnosis) {
+}
@@ -0,0 +1,14 @@
+package com.hfbe_Polina.web_project.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Текстовые поля визита для полнотекстового поиска.
+ *
+ * <p>
+ * Используется для заполнения {@link com.hfbe_Polina.web_project.services.VisitTextIndex}:
+ * из таблицы visits читаются только идентификатор, дата, диагноз и лечение.
+ * </p>
+ */
+public record VisitText(Long id, LocalDate date, String diagnosis, String treatment) {
+}
@@ -0,0 +1,50 @@
+package com.hfbe_Polina.web_project.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Служебная строка версии данных одного агрегата (владельцы, животные, визиты).
+ *
+ * <p>
+ * Хранит счётчик изменений, общий для всех экземпляров приложения и импорта из
+ * командной строки. Строки создаются при запуске, увеличиваются в транзакции
+ * каждой записи и перечитываются по расписанию в
+ * {@link com.hfbe_Polina.web_project.services.DataVersions} через JdbcTemplate;
+ * сущность нужна только для того, чтобы Hibernate создал таблицу.
+ * </p>
+ */
+@Entity
+@Table(name = "data_versions")
+public class DataVersion {
+
+    /**
+     * Имя агрегата ({@code OWNERS}, {@code PETS}, {@code VISITS}).
+     */
+    @Id
+    @Column(name = "aggregate", length = 20)
+    private String aggregate;
+
+    /**
+     * Количество изменений агрегата.
+     */
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Время последнего изменения, мс эпохи.
+     */
+    @Column(name = "modified_at", nullable = false)
+    private long modifiedAt;
+
+    protected DataVersion() {
+    }
+
+    public String getAggregate() { return aggregate; }
+
+    public long getVersion() { return version; }
+
+    public long getModifiedAt() { return modifiedAt; }
+}
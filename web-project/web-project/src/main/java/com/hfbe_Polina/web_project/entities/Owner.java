@@ -5,6 +5,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
@@ -17,20 +20,30 @@ import java.util.List;
  *
  * <p><b>Особенности:</b></p>
  * <ul>
- *     <li>Уникальный email владельца</li>
+ *     <li>Уникальные email и телефон владельца (уникальные индексы БД)</li>
  *     <li>Валидация имени и телефона</li>
  *     <li>Каскадное удаление животных при удалении владельца (если включено)</li>
+ *     <li>Идентификатор из последовательности {@code owners_seq} (пакетная вставка)</li>
+ *     <li>Владелец и список его животных хранятся в кэше второго уровня
+ *         (регионы {@code owners} и {@code owner-pets}, см. hibernate-cache.conf)</li>
+ *     <li>Оптимистическая блокировка по полю {@code version}: сохранение формы,
+ *         открытой до чужого изменения, отклоняется</li>
  * </ul>
  */
 @Entity
 @Table(name = "owners")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "owners")
 public class Owner {
 
     /**
      * Уникальный идентификатор владельца.
+     * Выдаётся последовательностью блоками по 50 значений, поэтому
+     * Hibernate может объединять вставки в JDBC‑пакеты.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "owners_seq")
+    @SequenceGenerator(name = "owners_seq", sequenceName = "owners_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -50,17 +63,28 @@ public class Owner {
     private String email;
 
     /**
-     * Номер телефона владельца.
+     * Номер телефона владельца (уникальный).
      */
     @NotBlank(message = "Телефон обязателен")
     @Pattern(regexp = "^8\\d{10}$", message = "Телефон должен начинаться с 8 и содержать ровно 11 цифр")
+    @Column(unique = true)
     private String phone;
 
+    /**
+     * Версия записи для оптимистической блокировки.
+     * Передаётся через форму редактирования; у существующих строк начинается с 0.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 
     /**
      * Список животных, принадлежащих владельцу.
      */
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "owner-pets")
     private List<Pet> pets;
 
 
@@ -81,6 +105,9 @@ public class Owner {
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public List<Pet> getPets() { return pets; }
     public void setPets(List<Pet> pets) { this.pets = pets; }
 }
@@ -6,6 +6,9 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.AssertTrue;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
@@ -51,6 +54,12 @@ import java.util.List;
  *     <li>Метод <code>isBirthDateValid()</code> ограничивает дату рождения
  *         январём 2026 года согласно бизнес‑правилам</li>
  *     <li>Связь с визитами настроена с каскадным удалением и orphanRemoval</li>
+ *     <li>Идентификатор выдаётся последовательностью {@code pets_seq} блоками по 50,
+ *         что позволяет Hibernate объединять вставки в JDBC‑пакеты</li>
+ *     <li>Животное и список его визитов хранятся в кэше второго уровня
+ *         (регионы {@code pets} и {@code pet-visits}, см. hibernate-cache.conf)</li>
+ *     <li>Оптимистическая блокировка по полю {@code version}, которое передаётся
+ *         через форму редактирования</li>
  * </ul>
  *
  * <p><b>Используется в случаях:</b></p>
@@ -64,10 +73,13 @@ import java.util.List;
 
 @Entity
 @Table(name = "pets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pets")
 public class Pet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pets_seq")
+    @SequenceGenerator(name = "pets_seq", sequenceName = "pets_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Имя животного обязательно")
@@ -89,12 +101,19 @@ public class Pet {
     @Column(unique = true)
     private String passportNumber;
 
+    // Версия для оптимистической блокировки; у существующих строк начинается с 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne
     @JoinColumn(name = "owner_id", nullable = false)
     @NotNull(message = "Владелец обязателен")
     private Owner owner;
 
     @OneToMany(mappedBy = "pet", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pet-visits")
     private List<Visit> visits;
 
 
@@ -142,6 +161,9 @@ public class Pet {
     public String getPassportNumber() { return passportNumber; }
     public void setPassportNumber(String passportNumber) { this.passportNumber = passportNumber; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public Owner getOwner() { return owner; }
     public void setOwner(Owner owner) { this.owner = owner; }
 
@@ -4,19 +4,32 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.AssertTrue;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 
 /**
  * Сущность, представляющая визит животного в ветеринарную клинику.
+ * Индекс по дате и времени обслуживает проверки расписания и выгрузку за период.
+ * Визиты кэшируются во втором уровне (регион {@code visits}): закэшированный список
+ * {@code Pet.visits} хранит только идентификаторы, и без этого каждый визит
+ * загружался бы отдельным запросом.
+ * Поле {@code version} — оптимистическая блокировка: перенос визита по форме,
+ * открытой до чужого изменения, отклоняется.
  */
 @Entity
-@Table(name = "visits")
+@Table(name = "visits", indexes = @Index(name = "visits_date_time_idx", columnList = "visit_date, visit_time"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "visits")
 public class Visit {
 
+    // Последовательность блоками по 50 значений — вставки объединяются в пакеты
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "visits_seq")
+    @SequenceGenerator(name = "visits_seq", sequenceName = "visits_seq", allocationSize = 50)
     private Long id;
 
     /**
@@ -52,6 +65,14 @@ public class Visit {
     @JoinColumn(name = "pet_id")
     private Pet pet;
 
+    /**
+     * Версия записи; у существующих строк начинается с 0.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     /**
      * Проверка корректности даты визита.
      * Дата должна быть до 12 марта 2026 года.
@@ -81,4 +102,7 @@ public class Visit {
 
     public Pet getPet() { return pet; }
     public void setPet(Pet pet) { this.pet = pet; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
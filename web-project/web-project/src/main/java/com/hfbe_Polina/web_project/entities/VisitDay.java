@@ -0,0 +1,41 @@
+package com.hfbe_Polina.web_project.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Служебная строка дня расписания.
+ *
+ * <p>
+ * Одна строка на каждую дату, на которую когда‑либо записывались визиты.
+ * Строка не хранит бизнес‑данных: она служит блокировкой дня. Запись визита
+ * берёт её через {@code SELECT ... FOR UPDATE}, после чего проверяет пересечения
+ * и лимит в той же транзакции. Поэтому две одновременные записи на один день
+ * выполняются по очереди, а записи на разные дни — параллельно, в том числе
+ * на разных экземплярах приложения.
+ * </p>
+ */
+@Entity
+@Table(name = "visit_days")
+public class VisitDay {
+
+    /**
+     * Дата расписания.
+     */
+    @Id
+    @Column(name = "visit_date")
+    private LocalDate date;
+
+    protected VisitDay() {
+    }
+
+    public VisitDay(LocalDate date) {
+        this.date = date;
+    }
+
+    public LocalDate getDate() { return date; }
+}
@@ -0,0 +1,22 @@
+package com.hfbe_Polina.web_project.events;
+
+/**
+ * Вид изменения сущности, о котором сообщает событие.
+ */
+public enum ChangeType {
+
+    /**
+     * Сущность создана или обновлена.
+     */
+    SAVED,
+
+    /**
+     * У визита изменились только дата и время; остальные поля события пустые.
+     */
+    RESCHEDULED,
+
+    /**
+     * Сущность удалена.
+     */
+    DELETED
+}
@@ -0,0 +1,19 @@
+package com.hfbe_Polina.web_project.events;
+
+/**
+ * Событие изменения владельца.
+ *
+ * <p>
+ * Публикуется {@link com.hfbe_Polina.web_project.services.OwnerService} внутри транзакции;
+ * слушатели с {@code @TransactionalEventListener} получают его только после коммита.
+ * Удаление владельца каскадно удаляет его животных и их визиты.
+ * </p>
+ *
+ * @param ownerId идентификатор владельца
+ * @param name    имя после сохранения ({@code null} при удалении)
+ * @param email   email после сохранения ({@code null} при удалении)
+ * @param phone   телефон после сохранения ({@code null} при удалении)
+ * @param type    вид изменения
+ */
+public record OwnerChangedEvent(Long ownerId, String name, String email, String phone, ChangeType type) {
+}
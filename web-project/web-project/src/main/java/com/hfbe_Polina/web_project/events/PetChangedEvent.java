@@ -0,0 +1,17 @@
+package com.hfbe_Polina.web_project.events;
+
+/**
+ * Событие изменения животного.
+ *
+ * <p>
+ * Публикуется {@link com.hfbe_Polina.web_project.services.PetService} внутри транзакции;
+ * слушатели с {@code @TransactionalEventListener} получают его только после коммита.
+ * </p>
+ *
+ * @param petId   идентификатор животного
+ * @param ownerId владелец животного ({@code null} для удаления)
+ * @param species вид животного ({@code null} для удаления)
+ * @param type    вид изменения
+ */
+public record PetChangedEvent(Long petId, Long ownerId, String species, ChangeType type) {
+}
@@ -0,0 +1,26 @@
+package com.hfbe_Polina.web_project.events;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Событие изменения визита.
+ *
+ * <p>
+ * Публикуется {@link com.hfbe_Polina.web_project.services.VisitService} внутри транзакции;
+ * слушатели с {@code @TransactionalEventListener} получают его только после коммита,
+ * поэтому производные структуры (индекс расписания, поисковый индекс, статистика, кэши)
+ * не видят откатанных изменений.
+ * </p>
+ *
+ * @param visitId   идентификатор визита
+ * @param petId     животное визита ({@code null} для удаления и переноса)
+ * @param date      дата визита после изменения ({@code null} для удаления)
+ * @param time      время визита после изменения ({@code null} для удаления)
+ * @param diagnosis диагноз после изменения ({@code null} для удаления и переноса)
+ * @param treatment лечение после изменения ({@code null} для удаления и переноса)
+ * @param type      вид изменения
+ */
+public record VisitChangedEvent(Long visitId, Long petId, LocalDate date, LocalTime time,
+                                String diagnosis, String treatment, ChangeType type) {
+}
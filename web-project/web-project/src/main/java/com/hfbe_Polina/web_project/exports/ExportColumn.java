@@ -0,0 +1,13 @@
+package com.hfbe_Polina.web_project.exports;
+
+import java.util.function.Function;
+
+/**
+ * Столбец выгрузки: имя и способ получить значение из строки.
+ *
+ * @param name  имя столбца CSV или поля NDJSON
+ * @param value значение; {@code null} выгружается пустым
+ * @param <T>   тип строки выгрузки
+ */
+record ExportColumn<T>(String name, Function<T, ?> value) {
+}
@@ -0,0 +1,47 @@
+package com.hfbe_Polina.web_project.exports;
+
+/**
+ * Формат выгрузки.
+ *
+ * <ul>
+ *     <li><b>CSV</b> — заголовок с именами столбцов, UTF‑8 с BOM (чтобы Excel
+ *         правильно открыл кириллицу)</li>
+ *     <li><b>NDJSON</b> — по одному JSON‑объекту на строку</li>
+ * </ul>
+ *
+ * <p>Имена столбцов совпадают с ожидаемыми импортом, поэтому выгрузку
+ * можно загрузить обратно.</p>
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Формат по значению параметра запроса.
+     *
+     * @param name {@code csv} или {@code ndjson}
+     * @return формат
+     * @throws IllegalArgumentException если формат неизвестен
+     */
+    public static ExportFormat fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный формат выгрузки: " + name + " (ожидается csv или ndjson)");
+    }
+
+    public String getContentType() { return contentType; }
+
+    public String getExtension() { return extension; }
+}
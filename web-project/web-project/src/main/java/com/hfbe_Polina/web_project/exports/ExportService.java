@@ -0,0 +1,128 @@
+package com.hfbe_Polina.web_project.exports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfbe_Polina.web_project.dto.PetExportRow;
+import com.hfbe_Polina.web_project.dto.VisitExportRow;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка визитов и животных в CSV или NDJSON.
+ *
+ * <p>
+ * Строки читаются из БД курсором ({@link Stream} с fetch size) в виде проекций,
+ * а не сущностей, и сразу пишутся в выходной поток. Ни список строк, ни
+ * управляемые сущности не накапливаются, поэтому память не зависит от объёма
+ * выгрузки.
+ * </p>
+ *
+ * <p><b>Особенности реализации:</b></p>
+ * <ul>
+ *     <li>Курсор живёт только внутри транзакции, поэтому методы выгрузки
+ *         транзакционные (только чтение) и сами закрывают поток строк</li>
+ *     <li>Столбцы совпадают с ожидаемыми импортом ({@code passportNumber}
+ *         у визитов, {@code ownerEmail} у животных) — выгрузку можно загрузить обратно</li>
+ *     <li>Фильтр по периоду: у визитов — дата визита, у животных — дата рождения;
+ *         обе границы включительно и необязательны</li>
+ * </ul>
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private static final List<ExportColumn<VisitExportRow>> VISIT_COLUMNS = List.of(
+            new ExportColumn<>("id", VisitExportRow::id),
+            new ExportColumn<>("date", VisitExportRow::date),
+            new ExportColumn<>("time", VisitExportRow::time),
+            new ExportColumn<>("diagnosis", VisitExportRow::diagnosis),
+            new ExportColumn<>("treatment", VisitExportRow::treatment),
+            new ExportColumn<>("passportNumber", VisitExportRow::passportNumber),
+            new ExportColumn<>("petName", VisitExportRow::petName));
+
+    private static final List<ExportColumn<PetExportRow>> PET_COLUMNS = List.of(
+            new ExportColumn<>("id", PetExportRow::id),
+            new ExportColumn<>("name", PetExportRow::name),
+            new ExportColumn<>("species", PetExportRow::species),
+            new ExportColumn<>("breed", PetExportRow::breed),
+            new ExportColumn<>("birthDate", PetExportRow::birthDate),
+            new ExportColumn<>("passportNumber", PetExportRow::passportNumber),
+            new ExportColumn<>("ownerEmail", PetExportRow::ownerEmail),
+            new ExportColumn<>("ownerName", PetExportRow::ownerName));
+
+    private final VisitRepository visitRepository;
+    private final PetRepository petRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(VisitRepository visitRepository,
+                         PetRepository petRepository,
+                         ObjectMapper objectMapper) {
+        this.visitRepository = visitRepository;
+        this.petRepository = petRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Выгружает визиты за период в порядке даты и времени.
+     *
+     * @param from     первая дата или {@code null}
+     * @param to       последняя дата или {@code null}
+     * @param format   формат выгрузки
+     * @param compress сжимать ли выгрузку gzip
+     * @param out      выходной поток; не закрывается
+     * @return количество выгруженных строк
+     * @throws IOException при ошибке записи (например, клиент прервал загрузку)
+     */
+    @Transactional(readOnly = true)
+    public long exportVisits(LocalDate from, LocalDate to, ExportFormat format, boolean compress,
+                             OutputStream out) throws IOException {
+        try (Stream<VisitExportRow> rows = visitRepository.streamExportRows(from, to)) {
+            return write(rows, VISIT_COLUMNS, format, compress, out, "visits");
+        }
+    }
+
+    /**
+     * Выгружает животных с датой рождения в периоде.
+     *
+     * @param from     первая дата рождения или {@code null}
+     * @param to       последняя дата рождения или {@code null}
+     * @param format   формат выгрузки
+     * @param compress сжимать ли выгрузку gzip
+     * @param out      выходной поток; не закрывается
+     * @return количество выгруженных строк
+     * @throws IOException при ошибке записи
+     */
+    @Transactional(readOnly = true)
+    public long exportPets(LocalDate from, LocalDate to, ExportFormat format, boolean compress,
+                           OutputStream out) throws IOException {
+        try (Stream<PetExportRow> rows = petRepository.streamExportRows(from, to)) {
+            return write(rows, PET_COLUMNS, format, compress, out, "pets");
+        }
+    }
+
+    private <T> long write(Stream<T> rows, List<ExportColumn<T>> columns, ExportFormat format,
+                           boolean compress, OutputStream out, String name) throws IOException {
+        long started = System.nanoTime();
+        ExportWriter<T> writer = new ExportWriter<>(out, format, compress, columns, objectMapper);
+        long count = 0;
+        for (Iterator<T> it = rows.iterator(); it.hasNext(); count++) {
+            writer.write(it.next());
+        }
+        writer.finish();
+
+        log.info("Выгрузка {} ({}{}): {} строк за {} мс", name, format, compress ? ", gzip" : "",
+                count, (System.nanoTime() - started) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,112 @@
+package com.hfbe_Polina.web_project.exports;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая запись строк выгрузки в CSV или NDJSON.
+ *
+ * <p>
+ * Каждая строка сразу уходит в буфер вывода и больше не хранится, поэтому память
+ * не зависит от объёма выгрузки. При сжатии данные проходят через
+ * {@link GZIPOutputStream}. {@link #finish()} дописывает буферы и хвост gzip,
+ * но не закрывает исходный поток — им владеет контейнер сервлетов.
+ * </p>
+ *
+ * @param <T> тип строки выгрузки
+ */
+final class ExportWriter<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ExportColumn<T>> columns;
+    private final ExportFormat format;
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+    private final JsonGenerator json;
+
+    ExportWriter(OutputStream out, ExportFormat format, boolean compress,
+                 List<ExportColumn<T>> columns, ObjectMapper objectMapper) throws IOException {
+        this.columns = columns;
+        this.format = format;
+        this.gzip = compress ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(gzip != null ? gzip : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        if (format == ExportFormat.NDJSON) {
+            json = objectMapper.createGenerator(writer);
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            json.configure(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM, false);
+        } else {
+            json = null;
+            writer.write('\uFEFF');
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    void write(T row) throws IOException {
+        if (json != null) {
+            json.writeStartObject();
+            for (ExportColumn<T> column : columns) {
+                Object value = column.value().apply(row);
+                if (value != null) {
+                    json.writeObjectField(column.name(), value);
+                }
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        } else {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object value = columns.get(i).value().apply(row);
+                if (value != null) {
+                    writeCsvValue(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+    }
+
+    void finish() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    // Кавычки нужны, если значение содержит запятую, кавычку или перевод строки
+    private void writeCsvValue(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
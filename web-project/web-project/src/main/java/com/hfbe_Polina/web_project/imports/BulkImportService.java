@@ -0,0 +1,491 @@
+package com.hfbe_Polina.web_project.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfbe_Polina.web_project.dto.OwnerKey;
+import com.hfbe_Polina.web_project.dto.PetKey;
+import com.hfbe_Polina.web_project.dto.VisitSlot;
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.events.PetChangedEvent;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.BookingMetrics;
+import com.hfbe_Polina.web_project.services.BookingMetrics.Rejection;
+import com.hfbe_Polina.web_project.services.VisitService;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовый импорт владельцев, животных и визитов из CSV или NDJSON.
+ *
+ * <p>
+ * Файл читается потоково ({@link ImportRowReader}) и обрабатывается пакетами
+ * по {@code app.import.chunk-size} строк; каждый пакет сохраняется в своей транзакции.
+ * Благодаря идентификаторам из последовательностей Hibernate отправляет вставки
+ * JDBC‑пакетами ({@code hibernate.jdbc.batch_size}), а не по одной.
+ * </p>
+ *
+ * <p><b>Проверки строки (те же, что в формах):</b></p>
+ * <ul>
+ *     <li>Ограничения Bean Validation сущностей {@link Owner}, {@link Pet}, {@link Visit}</li>
+ *     <li>Владелец — email и телефон не заняты</li>
+ *     <li>Животное — владелец с указанным email существует, номер паспорта не занят</li>
+ *     <li>Визит — животное с указанным паспортом существует, дата не позже
+ *         {@link VisitService#LAST_VISIT_DATE}, время 08:00–15:00,
+ *         нет пересечения с другими визитами и не превышен лимит
+ *         {@link VisitService#DAILY_LIMIT} визитов в день</li>
+ * </ul>
+ *
+ * <p><b>Особенности реализации:</b></p>
+ * <ul>
+ *     <li>Занятые ключи и ссылки проверяются одним запросом на пакет, а не на строку</li>
+ *     <li>Дни импортируемых визитов блокируются так же, как при обычной записи
+ *         ({@link VisitService#lockDays}), поэтому импорт не нарушает расписание
+ *         параллельно с формами</li>
+ *     <li>Если пакет отклонён БД (например, email заняли между проверкой и вставкой),
+ *         он повторяется построчно — отклоняются только виновные строки</li>
+ *     <li>Для каждой сохранённой строки публикуется обычное событие изменения,
+ *         поэтому кэши и индекс расписания обновляются после коммита пакета</li>
+ *     <li>Записанные и отклонённые по правилам расписания визиты учитываются
+ *         в {@link BookingMetrics} наравне с формами — после коммита пакета, поэтому
+ *         откатанный и повторённый построчно пакет не учитывается дважды</li>
+ *     <li>Отклонённые строки не прерывают импорт; в отчёт попадают первые
+ *         {@link #MAX_REPORTED_REJECTS} с причинами</li>
+ * </ul>
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    /**
+     * Сколько отклонённых строк перечисляется в отчёте.
+     */
+    public static final int MAX_REPORTED_REJECTS = 1000;
+
+    private final OwnerRepository ownerRepository;
+    private final PetRepository petRepository;
+    private final VisitRepository visitRepository;
+    private final VisitService visitService;
+    private final BookingMetrics bookingMetrics;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    public BulkImportService(OwnerRepository ownerRepository,
+                             PetRepository petRepository,
+                             VisitRepository visitRepository,
+                             VisitService visitService,
+                             BookingMetrics bookingMetrics,
+                             Validator validator,
+                             EntityManager entityManager,
+                             ApplicationEventPublisher eventPublisher,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.import.chunk-size:500}") int chunkSize) {
+        this.ownerRepository = ownerRepository;
+        this.petRepository = petRepository;
+        this.visitRepository = visitRepository;
+        this.visitService = visitService;
+        this.bookingMetrics = bookingMetrics;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Импортирует все строки потока.
+     *
+     * @param kind   что импортируется
+     * @param format формат потока
+     * @param in     поток с данными; закрывается по окончании
+     * @return отчёт: скорость, количество сохранённых и отклонённых строк с причинами
+     * @throws IOException при ошибке чтения потока
+     */
+    public ImportReport importRows(ImportKind kind, ImportFormat format, InputStream in) throws IOException {
+        long started = System.nanoTime();
+        Tally tally = new Tally();
+
+        try (ImportRowReader reader = ImportRowReader.open(in, format, objectMapper)) {
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            for (ImportRow row = reader.next(); row != null; row = reader.next()) {
+                tally.read++;
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    importChunk(kind, chunk, tally);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(kind, chunk, tally);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double seconds = Math.max(elapsedNanos, 1) / 1e9;
+        ImportReport report = new ImportReport(kind, format, tally.read, tally.imported, tally.rejected,
+                elapsedNanos / 1_000_000, Math.round(tally.read / seconds * 10) / 10.0,
+                List.copyOf(tally.rejectedRows));
+        log.info("Импорт {} ({}): прочитано {}, сохранено {}, отклонено {} за {} мс ({} строк/с)",
+                kind, format, report.rowsRead(), report.imported(), report.rejected(),
+                report.elapsedMillis(), report.rowsPerSecond());
+        return report;
+    }
+
+    private void importChunk(ImportKind kind, List<ImportRow> rows, Tally tally) {
+        List<ImportRow> parsed = new ArrayList<>(rows.size());
+        List<RejectedRow> malformed = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (row.error() == null) {
+                parsed.add(row);
+            } else {
+                malformed.add(new RejectedRow(row.line(), row.error()));
+            }
+        }
+
+        ChunkResult result = new ChunkResult(0, malformed);
+        if (parsed.isEmpty()) {
+            tally.add(result);
+            return;
+        }
+        try {
+            result = result.plus(chunkTransaction.execute(status -> insertChunk(kind, parsed)));
+        } catch (DataAccessException | TransactionException e) {
+            // Пакет откатан целиком — повторяем построчно, чтобы отсеять только виновные строки
+            log.debug("Пакет импорта {} отклонён БД, повтор по строкам", kind, e);
+            for (ImportRow row : parsed) {
+                try {
+                    result = result.plus(chunkTransaction.execute(status -> insertChunk(kind, List.of(row))));
+                } catch (DataAccessException | TransactionException rowError) {
+                    result = result.plus(new ChunkResult(0, List.of(new RejectedRow(row.line(),
+                            NestedExceptionUtils.getMostSpecificCause(rowError).getMessage()))));
+                }
+            }
+        }
+        tally.add(result);
+        if (kind == ImportKind.VISITS) {
+            bookingMetrics.booked(result.imported());
+            result.bookingRejections().forEach(bookingMetrics::rejected);
+        }
+    }
+
+    private ChunkResult insertChunk(ImportKind kind, List<ImportRow> rows) {
+        ChunkResult result = switch (kind) {
+            case OWNERS -> insertOwners(rows);
+            case PETS -> insertPets(rows);
+            case VISITS -> insertVisits(rows);
+        };
+        // Вставки уходят пакетом; контекст очищается, чтобы память не росла от пакета к пакету
+        entityManager.flush();
+        entityManager.clear();
+        return result;
+    }
+
+    private ChunkResult insertOwners(List<ImportRow> rows) {
+        List<RejectedRow> rejected = new ArrayList<>();
+        Map<ImportRow, Owner> valid = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            Owner owner = new Owner();
+            owner.setName(row.get("name"));
+            owner.setEmail(row.get("email"));
+            owner.setPhone(row.get("phone"));
+            if (isValid(row, owner, rejected)) {
+                valid.put(row, owner);
+            }
+        }
+        if (valid.isEmpty()) {
+            return new ChunkResult(0, rejected);
+        }
+
+        Set<String> takenEmails = new HashSet<>();
+        Set<String> takenPhones = new HashSet<>();
+        for (OwnerKey key : ownerRepository.findKeysByEmailIn(collect(valid.values(), Owner::getEmail))) {
+            takenEmails.add(key.email());
+        }
+        for (OwnerKey key : ownerRepository.findKeysByPhoneIn(collect(valid.values(), Owner::getPhone))) {
+            takenPhones.add(key.phone());
+        }
+
+        int imported = 0;
+        for (Map.Entry<ImportRow, Owner> entry : valid.entrySet()) {
+            Owner owner = entry.getValue();
+            if (!takenEmails.add(owner.getEmail())) {
+                rejected.add(new RejectedRow(entry.getKey().line(), "Email уже используется"));
+            } else if (!takenPhones.add(owner.getPhone())) {
+                rejected.add(new RejectedRow(entry.getKey().line(), "Телефон уже используется"));
+            } else {
+                ownerRepository.save(owner);
+                eventPublisher.publishEvent(
+                        new OwnerChangedEvent(owner.getId(), owner.getName(), owner.getEmail(), owner.getPhone(), ChangeType.SAVED));
+                imported++;
+            }
+        }
+        return new ChunkResult(imported, rejected);
+    }
+
+    private ChunkResult insertPets(List<ImportRow> rows) {
+        List<RejectedRow> rejected = new ArrayList<>();
+
+        Map<String, Long> ownerIds = new HashMap<>();
+        for (OwnerKey key : ownerRepository.findKeysByEmailIn(collectColumn(rows, "ownerEmail"))) {
+            ownerIds.put(key.email(), key.id());
+        }
+
+        Map<ImportRow, Pet> valid = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            Pet pet = new Pet();
+            pet.setName(row.get("name"));
+            pet.setSpecies(row.get("species"));
+            pet.setBreed(row.get("breed"));
+            pet.setPassportNumber(row.get("passportNumber"));
+            try {
+                pet.setBirthDate(parseDate(row.get("birthDate")));
+            } catch (DateTimeParseException e) {
+                rejected.add(new RejectedRow(row.line(), "birthDate: некорректная дата «" + row.get("birthDate") + "»"));
+                continue;
+            }
+            String ownerEmail = row.get("ownerEmail");
+            Long ownerId = ownerEmail == null ? null : ownerIds.get(ownerEmail);
+            if (ownerEmail != null && ownerId == null) {
+                rejected.add(new RejectedRow(row.line(), "Владелец с email " + ownerEmail + " не найден"));
+                continue;
+            }
+            if (ownerId != null) {
+                pet.setOwner(ownerRepository.getReferenceById(ownerId));
+            }
+            if (isValid(row, pet, rejected)) {
+                valid.put(row, pet);
+            }
+        }
+        if (valid.isEmpty()) {
+            return new ChunkResult(0, rejected);
+        }
+
+        Set<String> takenPassports = petRepository.findKeysByPassportNumberIn(collect(valid.values(), Pet::getPassportNumber))
+                .stream()
+                .map(PetKey::passportNumber)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        int imported = 0;
+        for (Map.Entry<ImportRow, Pet> entry : valid.entrySet()) {
+            Pet pet = entry.getValue();
+            if (!takenPassports.add(pet.getPassportNumber())) {
+                rejected.add(new RejectedRow(entry.getKey().line(), "Животное с таким номером паспорта уже существует"));
+            } else {
+                petRepository.save(pet);
+                eventPublisher.publishEvent(new PetChangedEvent(pet.getId(), pet.getOwner().getId(), pet.getSpecies(), ChangeType.SAVED));
+                imported++;
+            }
+        }
+        return new ChunkResult(imported, rejected);
+    }
+
+    private ChunkResult insertVisits(List<ImportRow> rows) {
+        List<RejectedRow> rejected = new ArrayList<>();
+        List<Rejection> bookingRejections = new ArrayList<>();
+
+        Map<String, Long> petIds = new HashMap<>();
+        for (PetKey key : petRepository.findKeysByPassportNumberIn(collectColumn(rows, "passportNumber"))) {
+            petIds.put(key.passportNumber(), key.id());
+        }
+
+        Map<ImportRow, Visit> valid = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            Visit visit = new Visit();
+            visit.setDiagnosis(row.get("diagnosis"));
+            visit.setTreatment(row.get("treatment"));
+            try {
+                visit.setDate(parseDate(row.get("date")));
+            } catch (DateTimeParseException e) {
+                rejected.add(new RejectedRow(row.line(), "date: некорректная дата «" + row.get("date") + "»"));
+                continue;
+            }
+            try {
+                visit.setTime(row.get("time") == null ? null : LocalTime.parse(row.get("time")));
+            } catch (DateTimeParseException e) {
+                rejected.add(new RejectedRow(row.line(), "time: некорректное время «" + row.get("time") + "»"));
+                continue;
+            }
+            Long petId = petIds.get(row.get("passportNumber"));
+            if (petId == null) {
+                rejected.add(new RejectedRow(row.line(), "Животное с паспортом " + row.get("passportNumber") + " не найдено"));
+                continue;
+            }
+            visit.setPet(petRepository.getReferenceById(petId));
+            // До общей валидации — причина и метрика те же, что у формы записи
+            if (visit.getDate() != null && visit.getDate().isAfter(VisitService.LAST_VISIT_DATE)) {
+                bookingRejections.add(Rejection.DATE_LIMIT);
+                rejected.add(new RejectedRow(row.line(), "Дата визита должна быть до 12 марта 2026"));
+                continue;
+            }
+            if (!isValid(row, visit, rejected)) {
+                continue;
+            }
+            if (visit.getTime().isBefore(VisitService.OPENING_TIME)
+                    || visit.getTime().isAfter(VisitService.LAST_START_TIME)) {
+                bookingRejections.add(Rejection.TIME_WINDOW);
+                rejected.add(new RejectedRow(row.line(), "Визиты принимаются с 08:00 до 15:00"));
+                continue;
+            }
+            valid.put(row, visit);
+        }
+        if (valid.isEmpty()) {
+            return new ChunkResult(0, rejected, bookingRejections);
+        }
+
+        // Расписание затронутых дней читается под блокировкой и дополняется по мере вставки
+        Map<LocalDate, List<LocalTime>> schedule = new HashMap<>();
+        for (VisitSlot slot : visitService.lockDays(collect(valid.values(), Visit::getDate))) {
+            schedule.computeIfAbsent(slot.date(), d -> new ArrayList<>()).add(slot.time());
+        }
+
+        int imported = 0;
+        for (Map.Entry<ImportRow, Visit> entry : valid.entrySet()) {
+            Visit visit = entry.getValue();
+            List<LocalTime> day = schedule.computeIfAbsent(visit.getDate(), d -> new ArrayList<>());
+            if (overlaps(day, visit.getTime())) {
+                bookingRejections.add(Rejection.OVERLAP);
+                rejected.add(new RejectedRow(entry.getKey().line(), "Это время пересекается с другим визитом"));
+            } else if (day.size() >= VisitService.DAILY_LIMIT) {
+                bookingRejections.add(Rejection.DAILY_LIMIT);
+                rejected.add(new RejectedRow(entry.getKey().line(),
+                        "На этот день уже записано " + VisitService.DAILY_LIMIT + " визитов"));
+            } else {
+                visitRepository.save(visit);
+                day.add(visit.getTime());
+                eventPublisher.publishEvent(
+                        new VisitChangedEvent(visit.getId(), visit.getPet().getId(), visit.getDate(), visit.getTime(),
+                                visit.getDiagnosis(), visit.getTreatment(), ChangeType.SAVED));
+                imported++;
+            }
+        }
+        return new ChunkResult(imported, rejected, bookingRejections);
+    }
+
+    // Часовые визиты пересекаются, если их начала ближе часа
+    private static boolean overlaps(List<LocalTime> day, LocalTime time) {
+        int minute = time.toSecondOfDay() / 60;
+        for (LocalTime other : day) {
+            if (Math.abs(other.toSecondOfDay() / 60 - minute) < 60) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isValid(ImportRow row, Object entity, List<RejectedRow> rejected) {
+        Set<ConstraintViolation<Object>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return true;
+        }
+        String reason = violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+        rejected.add(new RejectedRow(row.line(), reason));
+        return false;
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value == null ? null : LocalDate.parse(value);
+    }
+
+    private static <E, K> Set<K> collect(Iterable<E> entities, Function<E, K> key) {
+        Set<K> keys = new HashSet<>();
+        entities.forEach(entity -> keys.add(key.apply(entity)));
+        return keys;
+    }
+
+    private static Set<String> collectColumn(List<ImportRow> rows, String column) {
+        Set<String> values = new HashSet<>();
+        for (ImportRow row : rows) {
+            String value = row.get(column);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Итог одного пакета; учитывается в отчёте и в {@link BookingMetrics} только после коммита.
+     * Для визитов {@code bookingRejections} — отказы по правилам расписания.
+     */
+    private record ChunkResult(int imported, List<RejectedRow> rejected, List<Rejection> bookingRejections) {
+
+        ChunkResult(int imported, List<RejectedRow> rejected) {
+            this(imported, rejected, List.of());
+        }
+
+        ChunkResult plus(ChunkResult other) {
+            List<RejectedRow> all = new ArrayList<>(rejected);
+            all.addAll(other.rejected());
+            List<Rejection> allBookingRejections = new ArrayList<>(bookingRejections);
+            allBookingRejections.addAll(other.bookingRejections());
+            return new ChunkResult(imported + other.imported(), all, allBookingRejections);
+        }
+    }
+
+    /**
+     * Счётчики импорта одного файла.
+     */
+    private static final class Tally {
+
+        long read;
+        long imported;
+        long rejected;
+        final List<RejectedRow> rejectedRows = new ArrayList<>();
+
+        void add(ChunkResult result) {
+            imported += result.imported();
+            result.rejected().stream()
+                    .sorted(Comparator.comparingLong(RejectedRow::line))
+                    .forEach(this::reject);
+        }
+
+        void reject(RejectedRow row) {
+            rejected++;
+            if (rejectedRows.size() < MAX_REPORTED_REJECTS) {
+                rejectedRows.add(row);
+            }
+        }
+    }
+}
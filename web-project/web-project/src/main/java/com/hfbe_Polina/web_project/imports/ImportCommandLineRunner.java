@@ -0,0 +1,65 @@
+package com.hfbe_Polina.web_project.imports;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Импорт файлов из командной строки.
+ *
+ * <p>
+ * Каждый аргумент {@code --import=<тип>:<путь>} импортируется по порядку,
+ * формат определяется по расширению ({@code .ndjson}/{@code .jsonl} — NDJSON, иначе CSV).
+ * Чтобы приложение завершилось после импорта, веб‑сервер отключается:
+ * </p>
+ *
+ * <pre>
+ * java -jar web-project.jar --spring.main.web-application-type=none \
+ *      --import=owners:owners.csv --import=pets:pets.csv --import=visits:visits.ndjson
+ * </pre>
+ *
+ * <p>Без аргумента {@code --import} ничего не делает.</p>
+ */
+@Component
+public class ImportCommandLineRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportCommandLineRunner.class);
+
+    private final BulkImportService bulkImportService;
+
+    public ImportCommandLineRunner(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        List<String> specs = args.getOptionValues("import");
+        if (specs == null) {
+            return;
+        }
+        for (String spec : specs) {
+            int separator = spec.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Ожидается --import=<тип>:<путь>, получено: " + spec);
+            }
+            ImportKind kind = ImportKind.fromName(spec.substring(0, separator));
+            Path path = Path.of(spec.substring(separator + 1));
+
+            ImportReport report;
+            try (InputStream in = Files.newInputStream(path)) {
+                report = bulkImportService.importRows(kind, ImportFormat.fromFileName(path.toString()), in);
+            }
+            for (RejectedRow row : report.rejectedRows()) {
+                log.warn("{}:{}: {}", path.getFileName(), row.line(), row.reason());
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.hfbe_Polina.web_project.imports;
+
+import java.util.Locale;
+
+/**
+ * Формат импортируемого файла.
+ *
+ * <ul>
+ *     <li><b>CSV</b> — первая строка содержит имена столбцов, значения в кавычках
+ *         могут содержать запятые, переводы строк и удвоенные кавычки</li>
+ *     <li><b>NDJSON</b> — по одному JSON‑объекту на строку</li>
+ * </ul>
+ */
+public enum ImportFormat {
+
+    CSV, NDJSON;
+
+    /**
+     * Формат по заголовку Content-Type запроса.
+     *
+     * @param contentType значение заголовка, может быть {@code null}
+     * @return NDJSON для {@code application/x-ndjson}, иначе CSV
+     */
+    public static ImportFormat fromContentType(String contentType) {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("ndjson") ? NDJSON : CSV;
+    }
+
+    /**
+     * Формат по расширению файла.
+     *
+     * @param fileName имя файла
+     * @return NDJSON для {@code .ndjson} и {@code .jsonl}, иначе CSV
+     */
+    public static ImportFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(".ndjson") || name.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+}
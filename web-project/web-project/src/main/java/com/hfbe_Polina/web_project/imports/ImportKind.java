@@ -0,0 +1,36 @@
+package com.hfbe_Polina.web_project.imports;
+
+/**
+ * Что импортируется: владельцы, животные или визиты.
+ *
+ * <p><b>Столбцы (заголовок CSV или поля объекта NDJSON):</b></p>
+ * <ul>
+ *     <li><b>owners</b> — name, email, phone</li>
+ *     <li><b>pets</b> — name, species, breed, birthDate, passportNumber, ownerEmail</li>
+ *     <li><b>visits</b> — date, time, diagnosis, treatment, passportNumber (паспорт животного)</li>
+ * </ul>
+ *
+ * <p>Связи задаются естественными ключами (email владельца, номер паспорта животного),
+ * поэтому файлы из другой системы не зависят от идентификаторов этой БД.</p>
+ */
+public enum ImportKind {
+
+    OWNERS, PETS, VISITS;
+
+    /**
+     * Определяет тип импорта по имени из URL или командной строки.
+     *
+     * @param name {@code owners}, {@code pets} или {@code visits}
+     * @return тип импорта
+     * @throws IllegalArgumentException если имя неизвестно
+     */
+    public static ImportKind fromName(String name) {
+        for (ImportKind kind : values()) {
+            if (kind.name().equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип импорта: " + name
+                + " (ожидается owners, pets или visits)");
+    }
+}
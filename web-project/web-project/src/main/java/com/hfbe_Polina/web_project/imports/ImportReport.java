@@ -0,0 +1,26 @@
+package com.hfbe_Polina.web_project.imports;
+
+import java.util.List;
+
+/**
+ * Итог импорта одного файла.
+ *
+ * @param kind          что импортировалось
+ * @param format        формат файла
+ * @param rowsRead      прочитано строк данных (без заголовка и пустых строк)
+ * @param imported      сохранено строк
+ * @param rejected      отклонено строк
+ * @param elapsedMillis длительность импорта
+ * @param rowsPerSecond скорость: прочитанные строки в секунду
+ * @param rejectedRows  первые отклонённые строки с причинами
+ *                      (не больше {@link BulkImportService#MAX_REPORTED_REJECTS})
+ */
+public record ImportReport(ImportKind kind,
+                           ImportFormat format,
+                           long rowsRead,
+                           long imported,
+                           long rejected,
+                           long elapsedMillis,
+                           double rowsPerSecond,
+                           List<RejectedRow> rejectedRows) {
+}
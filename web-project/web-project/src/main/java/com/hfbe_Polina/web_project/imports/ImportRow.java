@@ -0,0 +1,29 @@
+package com.hfbe_Polina.web_project.imports;
+
+import java.util.Map;
+
+/**
+ * Одна прочитанная строка файла импорта.
+ *
+ * @param line   номер строки файла, с которой начинается запись (с 1)
+ * @param values значения по именам столбцов
+ * @param error  причина, по которой строку не удалось разобрать, иначе {@code null}
+ */
+record ImportRow(long line, Map<String, String> values, String error) {
+
+    static ImportRow malformed(long line, String error) {
+        return new ImportRow(line, Map.of(), error);
+    }
+
+    /**
+     * Значение столбца без пробелов по краям; пустое значение — {@code null}.
+     */
+    String get(String column) {
+        String value = values.get(column);
+        if (value == null) {
+            return null;
+        }
+        value = value.strip();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,210 @@
+package com.hfbe_Polina.web_project.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потоковое чтение файла импорта по одной записи.
+ *
+ * <p>
+ * В памяти находится только текущая запись, поэтому размер файла не ограничен.
+ * Запись, которую не удалось разобрать, возвращается с причиной ошибки
+ * ({@link ImportRow#error()}), и чтение продолжается со следующей.
+ * </p>
+ */
+abstract class ImportRowReader implements Closeable {
+
+    protected final BufferedReader reader;
+
+    /**
+     * Номер последней прочитанной строки файла.
+     */
+    protected long lineNumber;
+
+    private ImportRowReader(InputStream in) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    static ImportRowReader open(InputStream in, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        return format == ImportFormat.NDJSON ? new Ndjson(in, objectMapper) : new Csv(in);
+    }
+
+    /**
+     * Читает следующую запись.
+     *
+     * @return запись или {@code null}, если файл закончился
+     */
+    abstract ImportRow next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * CSV с заголовком (RFC 4180): разделитель — запятая, значения в двойных кавычках
+     * могут содержать запятые и переводы строк, кавычка внутри значения удваивается.
+     */
+    private static final class Csv extends ImportRowReader {
+
+        private final List<String> header;
+
+        /**
+         * Первая строка файла последней прочитанной записи.
+         */
+        private long recordLine;
+
+        /**
+         * Ошибка разбора последней записи, иначе {@code null}.
+         */
+        private String recordError;
+
+        Csv(InputStream in) throws IOException {
+            super(in);
+            List<String> names = readRecord();
+            if (names == null) {
+                header = List.of();
+                return;
+            }
+            header = new ArrayList<>();
+            for (String name : names) {
+                header.add(name.replace("\uFEFF", "").strip());
+            }
+        }
+
+        @Override
+        ImportRow next() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank() && recordError == null);
+
+            long line = recordLine;
+            if (recordError != null) {
+                return ImportRow.malformed(line, recordError);
+            }
+            if (fields.size() != header.size()) {
+                return ImportRow.malformed(line, "ожидалось столбцов: " + header.size()
+                        + ", получено: " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new ImportRow(line, values, null);
+        }
+
+        // Одна запись CSV; значение в кавычках может занимать несколько строк файла
+        private List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            recordLine = ++lineNumber;
+            recordError = null;
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Перевод строки внутри значения в кавычках
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        recordError = "не закрыта кавычка";
+                        break;
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    line = continuation;
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * NDJSON: один JSON‑объект на строку, значения полей читаются как текст.
+     */
+    private static final class Ndjson extends ImportRowReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(InputStream in, ObjectMapper objectMapper) {
+            super(in);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                lineNumber++;
+            } while (line.isBlank());
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return ImportRow.malformed(lineNumber, "некорректный JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return ImportRow.malformed(lineNumber, "ожидался JSON‑объект");
+            }
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                JsonNode value = field.getValue();
+                if (!value.isNull()) {
+                    values.put(field.getKey(), value.isValueNode() ? value.asText() : value.toString());
+                }
+            });
+            return new ImportRow(lineNumber, values, null);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.hfbe_Polina.web_project.imports;
+
+/**
+ * Отклонённая строка импорта.
+ *
+ * @param line   номер строки файла
+ * @param reason причина: ошибки валидации, дубликат или конфликт расписания
+ */
+public record RejectedRow(long line, String reason) {
+}
@@ -0,0 +1,92 @@
+package com.hfbe_Polina.web_project.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Бюджет SQL‑запросов на один HTTP‑запрос.
+ *
+ * <p>
+ * Считает запросы к БД за время обработки HTTP‑запроса через {@link SqlStatementCounter}
+ * и публикует их число как метрику {@code http.server.requests.sql} (теги method и uri —
+ * шаблон маршрута, как у {@code http.server.requests}).
+ * </p>
+ *
+ * <p><b>Нарушения бюджета:</b></p>
+ * <ul>
+ *     <li>Если запросов больше {@code app.sql.statement-budget}, в журнал пишется
+ *         предупреждение с маршрутом и числом запросов</li>
+ *     <li>Запросы, повторённые не меньше {@code app.sql.repeat-threshold} раз,
+ *         перечисляются отдельно — это типичный признак N+1 (например, загрузка
+ *         коллекции для каждой строки списка)</li>
+ * </ul>
+ *
+ * <p>Считаются запросы потока, обрабатывающего запрос (включая отрисовку шаблона
+ * при open‑in‑view). Потоковая выгрузка пишет данные в другом потоке и в счёт не входит.</p>
+ */
+@Component
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry meterRegistry;
+    private final int budget;
+    private final int repeatThreshold;
+
+    public SqlBudgetFilter(SqlStatementCounter counter,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.sql.statement-budget:10}") int budget,
+                           @Value("${app.sql.repeat-threshold:5}") int repeatThreshold) {
+        this.counter = counter;
+        this.meterRegistry = meterRegistry;
+        this.budget = budget;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlStatementCounter.Recording recording = counter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            recording.close();
+            record(request, recording);
+        }
+    }
+
+    private void record(HttpServletRequest request, SqlStatementCounter.Recording recording) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.sql")
+                .description("SQL-запросы за один HTTP-запрос")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(recording.count());
+
+        if (recording.count() > budget) {
+            log.warn("{} {}: {} SQL-запросов при бюджете {}", request.getMethod(), request.getRequestURI(),
+                    recording.count(), budget);
+            for (Map.Entry<String, Integer> repeated : recording.repeated(repeatThreshold).entrySet()) {
+                log.warn("  повторён {} раз (возможен N+1): {}", repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+}
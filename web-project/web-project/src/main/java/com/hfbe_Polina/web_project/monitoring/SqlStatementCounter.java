@@ -0,0 +1,123 @@
+package com.hfbe_Polina.web_project.monitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счётчик SQL‑запросов, которые Hibernate отправляет в БД из текущего потока.
+ *
+ * <p>
+ * Регистрируется в Hibernate как {@link StatementInspector}: каждый подготовленный
+ * запрос проходит через {@link #inspect(String)} и засчитывается в открытую
+ * в этом потоке запись {@link Recording}. Без открытой записи запрос только
+ * пропускается дальше.
+ * </p>
+ *
+ * <p><b>Особенности реализации:</b></p>
+ * <ul>
+ *     <li>Записи вложенные: запрос засчитывается и во внешнюю запись — так тест
+ *         может считать запросы внутри HTTP‑запроса, который считает {@link SqlBudgetFilter}</li>
+ *     <li>Запрос считается один раз при подготовке; пакет вставок (JDBC batch) — один запрос</li>
+ *     <li>Одинаковые строки SQL группируются: Hibernate подставляет параметры как {@code ?},
+ *         поэтому N+1 видно как один и тот же запрос, повторённый N раз</li>
+ *     <li>Запросы через JdbcTemplate в обход Hibernate не считаются</li>
+ * </ul>
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<Recording> current = new ThreadLocal<>();
+
+    /**
+     * Открывает запись запросов в текущем потоке; закрывается через try‑with‑resources.
+     *
+     * @return новая запись
+     */
+    public Recording start() {
+        Recording recording = new Recording(current.get());
+        current.set(recording);
+        return recording;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Recording recording = current.get();
+        if (recording != null) {
+            recording.add(sql);
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    /**
+     * Запросы, выполненные в потоке с момента {@link #start()}.
+     */
+    public final class Recording implements AutoCloseable {
+
+        private final Recording parent;
+        private final Map<String, Integer> statements = new LinkedHashMap<>();
+        private int count;
+
+        private Recording(Recording parent) {
+            this.parent = parent;
+        }
+
+        private void add(String sql) {
+            count++;
+            statements.merge(sql, 1, Integer::sum);
+            if (parent != null) {
+                parent.add(sql);
+            }
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * Все запросы в порядке первого выполнения с числом повторов.
+         *
+         * @return SQL → сколько раз выполнен
+         */
+        public Map<String, Integer> statements() {
+            return Collections.unmodifiableMap(statements);
+        }
+
+        /**
+         * Запросы, повторённые не меньше заданного числа раз, — кандидаты в N+1.
+         *
+         * @param threshold минимальное число повторов
+         * @return SQL → сколько раз выполнен
+         */
+        public Map<String, Integer> repeated(int threshold) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            statements.forEach((sql, times) -> {
+                if (times >= threshold) {
+                    result.put(sql, times);
+                }
+            });
+            return result;
+        }
+
+        @Override
+        public void close() {
+            if (current.get() == this) {
+                if (parent != null) {
+                    current.set(parent);
+                } else {
+                    current.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.hfbe_Polina.web_project.paging;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Кодирование позиции keyset‑пагинации в строку для URL и обратно.
+ *
+ * <p>
+ * Курсор содержит направление прокрутки и значения ключей сортировки последней
+ * (или первой) строки страницы, например {@code F|name=Барсик&id=42}, упакованные
+ * в Base64 (URL‑safe). При разборе значения приводятся к типам свойств сущности,
+ * чтобы Spring Data мог подставить их в условие {@code WHERE (name, id) > (?, ?)}.
+ * </p>
+ */
+public final class KeysetCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Кодирует позицию в курсор.
+     *
+     * @param keys     значения ключей сортировки
+     * @param backward {@code true}, если курсор ведёт на предыдущую страницу
+     * @return строка курсора
+     */
+    public static String encode(Map<String, ?> keys, boolean backward) {
+        StringJoiner joiner = new StringJoiner("&", backward ? "B|" : "F|", "");
+        keys.forEach((name, value) ->
+                joiner.add(name + "=" + URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+        return ENCODER.encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор в позицию прокрутки.
+     *
+     * @param cursor     строка курсора, может быть {@code null}
+     * @param entityType сущность, к типам свойств которой приводятся значения
+     * @return позиция прокрутки; начальная, если курсор пуст
+     * @throws IllegalArgumentException если курсор повреждён
+     */
+    public static KeysetScrollPosition decode(String cursor, Class<?> entityType) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String raw = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        if (raw.length() < 2 || raw.charAt(1) != '|') {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (String pair : raw.substring(2).split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+            String name = pair.substring(0, eq);
+            String value = URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            keys.put(name, parse(value, BeanUtils.findPropertyType(name, entityType)));
+        }
+
+        return raw.charAt(0) == 'B' ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        try {
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            }
+            if (type == LocalTime.class) {
+                return LocalTime.parse(value);
+            }
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректное значение в курсоре: " + value, e);
+        }
+        if (type == String.class) {
+            return value;
+        }
+        throw new IllegalArgumentException("Свойство не поддерживается в курсоре: " + type.getName());
+    }
+}
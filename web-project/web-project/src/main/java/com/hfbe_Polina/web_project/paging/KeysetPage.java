@@ -0,0 +1,35 @@
+package com.hfbe_Polina.web_project.paging;
+
+import java.util.List;
+
+/**
+ * Одна страница списка, полученная keyset‑пагинацией.
+ *
+ * <p>
+ * Помимо строк страницы хранит применённые сортировку и размер, а также курсоры
+ * соседних страниц, чтобы шаблон мог построить ссылки навигации.
+ * </p>
+ *
+ * @param content    строки страницы
+ * @param sort       применённый ключ сортировки
+ * @param dir        применённое направление сортировки ({@code asc}/{@code desc})
+ * @param size       размер страницы
+ * @param nextCursor курсор следующей страницы или {@code null}, если она последняя
+ * @param prevCursor курсор предыдущей страницы или {@code null}, если она первая
+ * @param <T>        тип строки
+ */
+public record KeysetPage<T>(List<T> content,
+                            String sort,
+                            String dir,
+                            int size,
+                            String nextCursor,
+                            String prevCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return prevCursor != null;
+    }
+}
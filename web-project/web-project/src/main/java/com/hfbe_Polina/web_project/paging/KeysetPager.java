@@ -0,0 +1,105 @@
+package com.hfbe_Polina.web_project.paging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Общая логика keyset‑пагинации списков.
+ *
+ * <p>
+ * В отличие от OFFSET‑пагинации, следующая страница выбирается условием по ключам
+ * сортировки последней показанной строки, поэтому стоимость запроса не зависит от
+ * номера страницы и размера таблицы: БД проходит индекс ровно на {@code size + 1} строк.
+ * </p>
+ *
+ * <p><b>Настройки (application.properties):</b></p>
+ * <ul>
+ *     <li>{@code app.paging.default-size} — размер страницы по умолчанию</li>
+ *     <li>{@code app.paging.max-size} — верхняя граница размера страницы</li>
+ * </ul>
+ */
+@Component
+public class KeysetPager {
+
+    /**
+     * Запрос одной порции строк; сигнатура совпадает с методами репозиториев
+     * вида {@code Window<T> findBy(ScrollPosition, Sort, Limit)}.
+     *
+     * @param <T> тип строки
+     */
+    @FunctionalInterface
+    public interface Fetcher<T> {
+        Window<T> fetch(ScrollPosition position, Sort sort, Limit limit);
+    }
+
+    private final int defaultSize;
+    private final int maxSize;
+
+    public KeysetPager(@Value("${app.paging.default-size:20}") int defaultSize,
+                       @Value("${app.paging.max-size:100}") int maxSize) {
+        this.defaultSize = defaultSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Загружает страницу списка.
+     *
+     * <p>Повреждённый или устаревший курсор (например, после смены сортировки)
+     * не считается ошибкой — в этом случае возвращается первая страница.</p>
+     *
+     * @param query    параметры запроса страницы
+     * @param sortKeys допустимые ключи сортировки списка
+     * @param fetcher  метод репозитория, выполняющий запрос
+     * @param <T>      тип строки
+     * @return страница с курсорами соседних страниц
+     */
+    public <T> KeysetPage<T> fetch(PageQuery query, SortKeys sortKeys, Fetcher<T> fetcher) {
+        String sortKey = sortKeys.resolve(query.sort());
+        Sort.Direction direction = "desc".equalsIgnoreCase(query.dir()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = sortKeys.sort(sortKey, direction);
+        int size = query.size() == null || query.size() < 1 ? defaultSize : Math.min(query.size(), maxSize);
+
+        KeysetScrollPosition position = decode(query.cursor(), sortKeys, sort);
+        Window<T> window = fetcher.fetch(position, sort, Limit.of(size));
+
+        String next = null;
+        String prev = null;
+        if (!window.isEmpty()) {
+            Map<String, Object> first = keysAt(window, 0);
+            Map<String, Object> last = keysAt(window, window.size() - 1);
+
+            if (position.scrollsBackward()) {
+                // Пришли по ссылке «назад»: hasNext() означает, что раньше есть ещё строки
+                next = KeysetCursor.encode(last, false);
+                prev = window.hasNext() ? KeysetCursor.encode(first, true) : null;
+            } else {
+                next = window.hasNext() ? KeysetCursor.encode(last, false) : null;
+                prev = position.isInitial() ? null : KeysetCursor.encode(first, true);
+            }
+        }
+
+        return new KeysetPage<>(window.getContent(), sortKey, direction.name().toLowerCase(), size, next, prev);
+    }
+
+    private static KeysetScrollPosition decode(String cursor, SortKeys sortKeys, Sort sort) {
+        try {
+            KeysetScrollPosition position = KeysetCursor.decode(cursor, sortKeys.entityType());
+            // Курсор от другой сортировки не содержит нужных ключей
+            boolean matches = sort.stream().allMatch(order -> position.getKeys().containsKey(order.getProperty()));
+            return position.isInitial() || matches ? position : ScrollPosition.keyset();
+        } catch (IllegalArgumentException e) {
+            return ScrollPosition.keyset();
+        }
+    }
+
+    private static Map<String, Object> keysAt(Window<?> window, int index) {
+        return ((KeysetScrollPosition) window.positionAt(index)).getKeys();
+    }
+}
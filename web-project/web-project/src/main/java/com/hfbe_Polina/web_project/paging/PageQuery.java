@@ -0,0 +1,27 @@
+package com.hfbe_Polina.web_project.paging;
+
+/**
+ * Параметры запроса страницы списка.
+ *
+ * <p>
+ * Заполняется Spring MVC из параметров запроса ({@code ?cursor=&sort=&dir=&size=}).
+ * Любой параметр может отсутствовать — тогда используются значения по умолчанию,
+ * заданные в {@link KeysetPager}.
+ * </p>
+ *
+ * @param cursor непрозрачный курсор, выданный предыдущей страницей
+ * @param sort   ключ сортировки (например, {@code name})
+ * @param dir    направление сортировки: {@code asc} или {@code desc}
+ * @param size   размер страницы
+ */
+public record PageQuery(String cursor, String sort, String dir, Integer size) {
+
+    /**
+     * Запрос первой страницы с параметрами по умолчанию.
+     *
+     * @return пустой запрос страницы
+     */
+    public static PageQuery firstPage() {
+        return new PageQuery(null, null, null, null);
+    }
+}
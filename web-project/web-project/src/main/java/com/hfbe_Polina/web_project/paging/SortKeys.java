@@ -0,0 +1,82 @@
+package com.hfbe_Polina.web_project.paging;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Набор допустимых ключей сортировки для одного списка.
+ *
+ * <p>
+ * Каждый ключ, пришедший из параметра {@code sort}, отображается на одно или несколько
+ * свойств сущности. Неизвестные ключи заменяются ключом по умолчанию, поэтому
+ * произвольная строка из запроса никогда не попадает в ORDER BY.
+ * Идентификатор в конец сортировки добавляет Spring Data — он делает порядок
+ * однозначным, что обязательно для keyset‑пагинации.
+ * </p>
+ */
+public final class SortKeys {
+
+    private final Class<?> entityType;
+    private final String defaultKey;
+    private final Map<String, List<String>> keys;
+
+    private SortKeys(Class<?> entityType, String defaultKey, Map<String, List<String>> keys) {
+        this.entityType = entityType;
+        this.defaultKey = defaultKey;
+        this.keys = keys;
+    }
+
+    /**
+     * Создаёт набор ключей с единственным ключом по умолчанию.
+     *
+     * @param entityType      сущность, по свойствам которой выполняется сортировка
+     * @param defaultKey      ключ и одноимённое свойство сортировки по умолчанию
+     * @return новый набор ключей
+     */
+    public static SortKeys of(Class<?> entityType, String defaultKey) {
+        Map<String, List<String>> keys = new LinkedHashMap<>();
+        keys.put(defaultKey, List.of(defaultKey));
+        return new SortKeys(entityType, defaultKey, keys);
+    }
+
+    /**
+     * Возвращает копию набора с дополнительным ключом.
+     *
+     * @param key        ключ из параметра запроса
+     * @param properties свойства сущности в порядке сортировки
+     * @return новый набор ключей
+     */
+    public SortKeys with(String key, String... properties) {
+        Map<String, List<String>> copy = new LinkedHashMap<>(keys);
+        copy.put(key, List.of(properties));
+        return new SortKeys(entityType, defaultKey, copy);
+    }
+
+    public Class<?> entityType() {
+        return entityType;
+    }
+
+    /**
+     * Приводит ключ из запроса к допустимому.
+     *
+     * @param key ключ из запроса, может быть {@code null}
+     * @return тот же ключ, если он известен, иначе ключ по умолчанию
+     */
+    public String resolve(String key) {
+        return key != null && keys.containsKey(key) ? key : defaultKey;
+    }
+
+    /**
+     * Строит сортировку Spring Data для допустимого ключа.
+     *
+     * @param key       допустимый ключ (см. {@link #resolve(String)})
+     * @param direction направление сортировки
+     * @return сортировка по свойствам ключа
+     */
+    public Sort sort(String key, Sort.Direction direction) {
+        return Sort.by(direction, keys.get(key).toArray(String[]::new));
+    }
+}
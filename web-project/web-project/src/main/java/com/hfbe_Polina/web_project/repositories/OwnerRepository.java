@@ -1,9 +1,21 @@
 package com.hfbe_Polina.web_project.repositories;
 
+import com.hfbe_Polina.web_project.dto.OwnerKey;
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
 import com.hfbe_Polina.web_project.entities.Owner;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Репозиторий для работы с сущностью {@link Owner}.
  * <p>
@@ -15,15 +27,39 @@ import org.springframework.stereotype.Repository;
  * <ul>
  *     <li>Поиск владельцев</li>
  *     <li>Сохранение владельцев</li>
- *     <li>Удаление владельцев</li>
+ *     <li>Удаление владельцев одним DELETE, без загрузки сущности и её животных</li>
  *     <li>Поиск по email </li>
+ *     <li>Проверка уникальности email и телефона одним запросом</li>
+ *     <li>Постраничная выборка (keyset)</li>
+ *     <li>Имена и контакты для индекса поиска владельцев ({@link OwnerSuggestion})</li>
+ *     <li>Поиск занятых email и телефонов пакетом ({@link OwnerKey}) для импорта</li>
  * </ul>
  */
 
 @Repository
 public interface OwnerRepository extends JpaRepository<Owner, Long> {
-    boolean existsByEmail(String email);
-    boolean existsByPhone(String phone);
 
+    // Страница владельцев после (или до) позиции курсора
+    Window<Owner> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Имена и контакты всех владельцев — для заполнения индекса поиска
+    List<OwnerSuggestion> findSuggestionsBy();
+
+    // Владельцы, у которых совпадает email или телефон: одна проверка уникальности
+    // по обоим уникальным индексам (не больше двух строк)
+    List<OwnerKey> findKeysByEmailOrPhone(String email, String phone);
+
+    // Ключи всех владельцев — для прогрева индекса контактов
+    List<OwnerKey> findKeysBy();
+
+    // Владельцы с email из переданного списка
+    List<OwnerKey> findKeysByEmailIn(Collection<String> emails);
+
+    // Владельцы с телефоном из переданного списка
+    List<OwnerKey> findKeysByPhoneIn(Collection<String> phones);
 
+    // Удаляет строку владельца; животные и визиты к этому моменту должны быть удалены
+    @Modifying
+    @Query("DELETE FROM Owner o WHERE o.id = :id")
+    int deleteInBulkById(@Param("id") Long id);
 }
@@ -1,9 +1,29 @@
 package com.hfbe_Polina.web_project.repositories;
 
+import com.hfbe_Polina.web_project.dto.PetExportRow;
+import com.hfbe_Polina.web_project.dto.PetKey;
+import com.hfbe_Polina.web_project.dto.PetListItem;
+import com.hfbe_Polina.web_project.dto.PetOption;
+import com.hfbe_Polina.web_project.dto.PetStatsRow;
 import com.hfbe_Polina.web_project.entities.Pet;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Репозиторий для работы с сущностью {@link Pet}.
  * <p>
@@ -15,13 +35,56 @@ import org.springframework.stereotype.Repository;
  * <ul>
  *     <li>Поиск животных</li>
  *     <li>Сохранение животных</li>
- *     <li>Удаление животных</li>
+ *     <li>Удаление животных оператором DELETE — по id или всех животных владельца</li>
  *     <li>Поиск по номеру паспорта </li>
+ *     <li>Постраничная выборка (keyset), в том числе строк списка {@link PetListItem}</li>
+ *     <li>Лёгкий список для выпадающих списков форм ({@link PetOption})</li>
+ *     <li>Поиск животных по списку номеров паспортов ({@link PetKey}) для импорта</li>
+ *     <li>Потоковое чтение строк выгрузки {@link PetExportRow}</li>
+ *     <li>Владелец и вид всех животных ({@link PetStatsRow}) для статистики</li>
  * </ul>
  */
 @Repository
 public interface PetRepository extends JpaRepository<Pet, Long> {
 
+    // Страница животных после (или до) позиции курсора
+    Window<Pet> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Та же страница в виде строк списка: один запрос с JOIN владельца
+    Window<PetListItem> findListItemsBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // id и имя всех животных для выпадающего списка (кэшируется в PetService)
+    List<PetOption> findOptionsByOrderByNameAsc();
+
+    // Владелец и вид всех животных — для пересчёта статистики
+    List<PetStatsRow> findStatsRowsBy();
+
+    // Удаляет животное одним DELETE, не загружая его коллекцию визитов
+    @Modifying
+    @Query("DELETE FROM Pet p WHERE p.id = :id")
+    int deleteInBulkById(@Param("id") Long id);
+
+    // Удаляет всех животных владельца одним DELETE; визиты должны быть удалены раньше
+    @Modifying
+    @Query("DELETE FROM Pet p WHERE p.owner.id = :ownerId")
+    int deleteInBulkByOwnerId(@Param("ownerId") Long ownerId);
 
+    // id животных с переданными номерами паспортов
+    List<PetKey> findKeysByPassportNumberIn(Collection<String> passportNumbers);
 
+    // Строки выгрузки с датой рождения в периоде (границы необязательны);
+    // курсор БД читается порциями, вызывать внутри транзакции и закрывать поток
+    @Query("""
+            SELECT new com.hfbe_Polina.web_project.dto.PetExportRow(
+                   p.id, p.name, p.species, p.breed, p.birthDate, p.passportNumber, o.email, o.name)
+            FROM Pet p JOIN p.owner o
+            WHERE (:from IS NULL OR p.birthDate >= :from)
+              AND (:to IS NULL OR p.birthDate <= :to)
+            ORDER BY p.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<PetExportRow> streamExportRows(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
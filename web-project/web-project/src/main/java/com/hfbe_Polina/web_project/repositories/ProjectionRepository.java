@@ -0,0 +1,195 @@
+package com.hfbe_Polina.web_project.repositories;
+
+import com.hfbe_Polina.web_project.api.FieldSelection;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Запросы произвольного набора полей сущности для REST API.
+ *
+ * <p>
+ * Набор столбцов известен только во время запроса (параметр {@code fields}),
+ * поэтому запрос строится через Criteria API: в SELECT попадают только запрошенные
+ * свойства и ключи сортировки, связанная сущность присоединяется LEFT JOIN только
+ * если запрошено её поле, а для {@code owner.id}/{@code pet.id} читается внешний
+ * ключ без JOIN. Строки возвращаются как {@link Map}, сущности не загружаются.
+ * </p>
+ *
+ * <p><b>Keyset‑пагинация:</b></p>
+ * <ul>
+ *     <li>Метод {@code scroll()} повторяет контракт методов Spring Data
+ *         {@code Window<T> findBy(ScrollPosition, Sort, Limit)} и подходит
+ *         для {@link com.hfbe_Polina.web_project.paging.KeysetPager}</li>
+ *     <li>Как и в Spring Data, в конец сортировки добавляется {@code id},
+ *         а прокрутка назад выполняется в обратном порядке с разворотом результата</li>
+ * </ul>
+ */
+@Timed("clinic.repository")
+@Repository
+public class ProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    public ProjectionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Загружает порцию строк после (или до) позиции курсора.
+     *
+     * @param fields   запрошенные поля
+     * @param position позиция keyset‑прокрутки
+     * @param sort     сортировка по свойствам сущности
+     * @param limit    размер порции
+     * @return строки в порядке сортировки; позиции строк содержат значения ключей сортировки
+     */
+    public Window<Map<String, Object>> scroll(FieldSelection fields, ScrollPosition position, Sort sort, Limit limit) {
+        KeysetScrollPosition keyset = (KeysetScrollPosition) position;
+        boolean backward = keyset.scrollsBackward();
+
+        List<Sort.Order> orders = new ArrayList<>();
+        sort.forEach(orders::add);
+        if (orders.stream().noneMatch(order -> order.getProperty().equals("id"))) {
+            orders.add(Sort.Order.asc("id"));
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(fields.entityType());
+        Map<String, Join<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>();
+        fields.paths().values().forEach(path -> selections.add(resolve(root, joins, path)));
+        orders.forEach(order -> selections.add(root.get(order.getProperty())));
+        query.multiselect(selections);
+
+        Map<String, Object> keys = keyset.getKeys();
+        if (!keys.isEmpty()) {
+            query.where(after(cb, root, orders, keys, backward));
+        }
+
+        List<Order> orderBy = new ArrayList<>();
+        for (Sort.Order order : orders) {
+            Expression<?> path = root.get(order.getProperty());
+            orderBy.add(order.isAscending() != backward ? cb.asc(path) : cb.desc(path));
+        }
+        query.orderBy(orderBy);
+
+        List<Tuple> tuples = entityManager.createQuery(query)
+                .setMaxResults(limit.max() + 1)
+                .getResultList();
+        boolean hasNext = tuples.size() > limit.max();
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<Map<String, Object>> rowKeys = new ArrayList<>();
+        int fieldCount = fields.paths().size();
+        for (Tuple tuple : tuples.subList(0, Math.min(tuples.size(), limit.max()))) {
+            rows.add(toRow(fields, tuple));
+            Map<String, Object> sortKeys = new LinkedHashMap<>();
+            for (int i = 0; i < orders.size(); i++) {
+                sortKeys.put(orders.get(i).getProperty(), tuple.get(fieldCount + i));
+            }
+            rowKeys.add(sortKeys);
+        }
+        if (backward) {
+            Collections.reverse(rows);
+            Collections.reverse(rowKeys);
+        }
+
+        return Window.from(rows, index -> ScrollPosition.forward(rowKeys.get(index)), hasNext);
+    }
+
+    /**
+     * Загружает одну строку по идентификатору.
+     *
+     * @param fields запрошенные поля
+     * @param id     идентификатор
+     * @return строка или пустой Optional, если сущность не найдена
+     */
+    public Optional<Map<String, Object>> findById(FieldSelection fields, Long id) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(fields.entityType());
+        Map<String, Join<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>();
+        fields.paths().values().forEach(path -> selections.add(resolve(root, joins, path)));
+        query.multiselect(selections).where(cb.equal(root.get("id"), id));
+
+        return entityManager.createQuery(query).getResultStream()
+                .findFirst()
+                .map(tuple -> toRow(fields, tuple));
+    }
+
+    private static Map<String, Object> toRow(FieldSelection fields, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : fields.paths().keySet()) {
+            row.put(name, tuple.get(i++));
+        }
+        return row;
+    }
+
+    // Путь вида "owner.name" — через LEFT JOIN, "owner.id" — внешний ключ без JOIN
+    private static Expression<?> resolve(Root<?> root, Map<String, Join<?, ?>> joins, String path) {
+        int dot = path.indexOf('.');
+        if (dot < 0) {
+            return root.get(path);
+        }
+        String association = path.substring(0, dot);
+        String attribute = path.substring(dot + 1);
+        if (attribute.equals("id")) {
+            return root.get(association).get(attribute);
+        }
+        return joins.computeIfAbsent(association, name -> root.join(name, JoinType.LEFT)).get(attribute);
+    }
+
+    // (k1 > v1) OR (k1 = v1 AND k2 > v2) OR ... с учётом направления каждого ключа
+    private static Predicate after(CriteriaBuilder cb, Root<?> root, List<Sort.Order> orders,
+                                   Map<String, Object> keys, boolean backward) {
+        List<Predicate> alternatives = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            List<Predicate> conditions = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                String property = orders.get(j).getProperty();
+                conditions.add(cb.equal(root.get(property), keys.get(property)));
+            }
+            Sort.Order order = orders.get(i);
+            conditions.add(compare(cb, root.get(order.getProperty()), keys.get(order.getProperty()),
+                    order.isAscending() != backward));
+            alternatives.add(cb.and(conditions.toArray(Predicate[]::new)));
+        }
+        return cb.or(alternatives.toArray(Predicate[]::new));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate compare(CriteriaBuilder cb, Expression<?> path, Object value, boolean greater) {
+        Expression<Comparable> expression = (Expression<Comparable>) path;
+        Comparable comparable = (Comparable) value;
+        return greater ? cb.greaterThan(expression, comparable) : cb.lessThan(expression, comparable);
+    }
+}
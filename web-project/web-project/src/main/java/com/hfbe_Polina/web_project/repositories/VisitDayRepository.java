@@ -0,0 +1,43 @@
+package com.hfbe_Polina.web_project.repositories;
+
+import com.hfbe_Polina.web_project.entities.VisitDay;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * Репозиторий строк‑блокировок дней расписания {@link VisitDay}.
+ *
+ * <p>
+ * Используется {@link com.hfbe_Polina.web_project.services.VisitService} для того,
+ * чтобы запись визита на конкретный день выполнялась атомарно.
+ * </p>
+ */
+@Repository
+public interface VisitDayRepository extends JpaRepository<VisitDay, LocalDate> {
+
+    // Блокирует строку дня до конца транзакции (SELECT ... FOR UPDATE)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM VisitDay d WHERE d.date = :date")
+    Optional<VisitDay> lockByDate(@Param("date") LocalDate date);
+
+    // Создаёт строку дня; параллельная вставка той же даты не считается ошибкой.
+    // Таблица указана как пространство запроса — иначе Hibernate сбросил бы весь кэш второго уровня
+    @Modifying
+    @Query(
+            value = "INSERT INTO visit_days (visit_date) VALUES (:date) ON CONFLICT DO NOTHING",
+            nativeQuery = true
+    )
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "visit_days"))
+    int insertIfAbsent(@Param("date") LocalDate date);
+}
@@ -13,16 +13,28 @@
  *     <li>Получение и сохранение визитов</li>
  *     <li>Подсчёт количества визитов на выбранную дату</li>
  *     <li>Проверка пересечения визитов по времени</li>
+ *     <li>Постраничная выборка (keyset), в том числе строк списка {@link VisitListItem}</li>
+ *     <li>Выборка занятых интервалов {@link VisitSlot} для индекса расписания</li>
+ *     <li>Потоковое чтение строк выгрузки {@link VisitExportRow}</li>
+ *     <li>Потоковое чтение текстов {@link VisitText} для поискового индекса и строк
+ *         найденных визитов по идентификаторам</li>
+ *     <li>Потоковое чтение {@link VisitStatsRow} для пересчёта статистики</li>
+ *     <li>Перенос визита одним условным UPDATE с проверками пересечения и лимита дня</li>
+ *     <li>Подсчёт и удаление визитов владельца оператором DELETE — целиком
+ *         или порциями по идентификаторам</li>
  * </ul>
  *
  * <p><b>Особенности реализации:</b></p>
  * <ul>
  *     <li>Визит считается длительностью 1 час</li>
- *     <li>Метод {@code hasOverlappingVisit()} реализован через нативный SQL‑запрос</li>
+ *     <li>Метод {@code hasOverlappingVisit()} реализован через JPQL и не зависит от диалекта БД</li>
  *     <li>Проверка пересечения выполняется по правилу:
  *         <br>существующий визит пересекается с новым, если:
- *         <br><code>existing.start < new.end AND new.start < existing.end</code>
+ *         <br><code>existing.start < new.end AND new.start < existing.end</code>,
+ *         <br>что для часовых визитов равносильно
+ *         <code>new.start - 1h < existing.start < new.end</code>
  *     </li>
+ *     <li>Методы с параметром {@code excludeId} не учитывают редактируемый визит</li>
  *     <li>Используются параметры {@link LocalDate} и {@link LocalTime}</li>
  * </ul>
  *
@@ -37,40 +49,173 @@
 
 package com.hfbe_Polina.web_project.repositories;
 
+import com.hfbe_Polina.web_project.dto.VisitExportRow;
+import com.hfbe_Polina.web_project.dto.VisitListItem;
+import com.hfbe_Polina.web_project.dto.VisitSlot;
+import com.hfbe_Polina.web_project.dto.VisitStatsRow;
+import com.hfbe_Polina.web_project.dto.VisitText;
 import com.hfbe_Polina.web_project.entities.Visit;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface VisitRepository extends JpaRepository<Visit, Long> {
 
+    /**
+     * Пространство запросов переноса визита: не совпадает ни с одной таблицей,
+     * поэтому Hibernate не сбрасывает регионы кэша второго уровня целиком.
+     */
+    String RESCHEDULE_QUERY_SPACE = "visit_reschedule";
+
     // Проверка: сколько визитов уже записано на этот день
     int countByDate(LocalDate date);
 
-    // Проверка пересечения визитов (1 час)
-    @Query(
-            value = """
-            SELECT EXISTS(
-                SELECT 1
-                FROM visits v
-                WHERE v.visit_date = :date
-                  AND v.visit_time < :newEndTime
-                  AND :newStartTime < v.visit_time + INTERVAL '1 hour'
-            )
-            """,
-            nativeQuery = true
-    )
+    // Есть ли у животного визиты (SELECT ... LIMIT 1 вместо загрузки коллекции)
+    boolean existsByPetId(Long petId);
+
+    // Сколько визитов у всех животных владельца (JOIN только таблицы животных)
+    @Query("SELECT COUNT(v) FROM Visit v WHERE v.pet.owner.id = :ownerId")
+    long countByOwnerId(@Param("ownerId") Long ownerId);
+
+    // id очередной порции визитов владельца — для удаления порциями
+    @Query("SELECT v.id FROM Visit v WHERE v.pet.owner.id = :ownerId ORDER BY v.id")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId, Limit limit);
+
+    // Удаляет визиты с переданными id одним DELETE
+    @Modifying
+    @Query("DELETE FROM Visit v WHERE v.id IN :ids")
+    int deleteInBulkByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Удаляет все визиты животных владельца одним DELETE с подзапросом
+    @Modifying
+    @Query("DELETE FROM Visit v WHERE v.pet.id IN (SELECT p.id FROM Pet p WHERE p.owner.id = :ownerId)")
+    int deleteInBulkByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Сколько визитов на этот день, не считая редактируемого
+    @Query("""
+            SELECT COUNT(v)
+            FROM Visit v
+            WHERE v.date = :date
+              AND (:excludeId IS NULL OR v.id <> :excludeId)
+            """)
+    int countByDateExcluding(
+            @Param("date") LocalDate date,
+            @Param("excludeId") Long excludeId
+    );
+
+    // Проверка пересечения визитов (1 час): начало существующего визита
+    // лежит строго между (новое начало - 1 час) и новым концом
+    @Query("""
+            SELECT COUNT(v) > 0
+            FROM Visit v
+            WHERE v.date = :date
+              AND v.time > :earliestStartTime
+              AND v.time < :newEndTime
+              AND (:excludeId IS NULL OR v.id <> :excludeId)
+            """)
     boolean hasOverlappingVisit(
             @Param("date") LocalDate date,
-            @Param("newStartTime") LocalTime newStartTime,
-            @Param("newEndTime") LocalTime newEndTime
+            @Param("earliestStartTime") LocalTime earliestStartTime,
+            @Param("newEndTime") LocalTime newEndTime,
+            @Param("excludeId") Long excludeId
     );
 
+    // Переносит визит на новые дату и время одним UPDATE и увеличивает версию. Строка
+    // меняется, только если визит принадлежит этому животному, версия совпадает с открытой в форме, дата не раньше текущей, новое время не пересекается с другими визитами этого дня
+    // (то же правило, что в hasOverlappingVisit) и других визитов на день меньше лимита.
+    // Возвращает 1 при переносе и 0, если визита нет или условие не выполнено.
+    // Нативный запрос с собственным пространством: JPQL UPDATE сбросил бы все визиты и коллекции
+    // визитов животных в кэше второго уровня, а затронутые записи блокирует VisitService
+    @Modifying
+    @Query(value = """
+            UPDATE visits
+            SET visit_date = :date, visit_time = :time, version = version + 1
+            WHERE id = :id
+              AND pet_id = :petId
+              AND version = :version
+              AND visit_date <= :date
+              AND NOT EXISTS (
+                    SELECT 1 FROM visits o
+                    WHERE o.visit_date = :date
+                      AND o.visit_time > :earliestStartTime
+                      AND o.visit_time < :newEndTime
+                      AND o.id <> :id)
+              AND (SELECT COUNT(*) FROM visits o WHERE o.visit_date = :date AND o.id <> :id) < :dailyLimit
+            """, nativeQuery = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = RESCHEDULE_QUERY_SPACE))
+    int reschedule(
+            @Param("id") Long id,
+            @Param("petId") Long petId,
+            @Param("version") Long version,
+            @Param("date") LocalDate date,
+            @Param("time") LocalTime time,
+            @Param("earliestStartTime") LocalTime earliestStartTime,
+            @Param("newEndTime") LocalTime newEndTime,
+            @Param("dailyLimit") long dailyLimit
+    );
+
+    // Страница визитов после (или до) позиции курсора
+    Window<Visit> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Та же страница в виде строк списка: один запрос с JOIN животного
+    Window<VisitListItem> findListItemsBy(ScrollPosition position, Sort sort, Limit limit);
+
+    // Строки списка для найденных визитов; порядок задаёт вызывающий
+    List<VisitListItem> findListItemsByIdIn(Collection<Long> ids);
+
+    // Занятые интервалы на несколько дней сразу — для пакетного импорта
+    List<VisitSlot> findSlotsByDateIn(Collection<LocalDate> dates);
+
+    // Занятые интервалы за период одним запросом (индекс по дате и времени)
+    List<VisitSlot> findSlotsByDateBetween(LocalDate from, LocalDate to);
+
+    // Строки выгрузки за период (границы необязательны); курсор БД читается
+    // порциями по fetchSize строк, вызывать внутри транзакции и закрывать поток
+    @Query("""
+            SELECT new com.hfbe_Polina.web_project.dto.VisitExportRow(
+                   v.id, v.date, v.time, v.diagnosis, v.treatment, p.passportNumber, p.name)
+            FROM Visit v LEFT JOIN v.pet p
+            WHERE (:from IS NULL OR v.date >= :from)
+              AND (:to IS NULL OR v.date <= :to)
+            ORDER BY v.date, v.time, v.id
+            """)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<VisitExportRow> streamExportRows(@Param("from") LocalDate from, @Param("to") LocalDate to);
 
+    // Диагнозы и лечение всех визитов — для заполнения поискового индекса;
+    // вызывать внутри транзакции и закрывать поток
+    @Query("SELECT new com.hfbe_Polina.web_project.dto.VisitText(v.id, v.date, v.diagnosis, v.treatment) FROM Visit v")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<VisitText> streamTextsBy();
 
+    // Животное, дата и диагноз всех визитов — для пересчёта статистики;
+    // вызывать внутри транзакции и закрывать поток
+    @Query("SELECT new com.hfbe_Polina.web_project.dto.VisitStatsRow(v.id, v.pet.id, v.date, v.diagnosis) FROM Visit v")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<VisitStatsRow> streamStatsRowsBy();
 }
@@ -0,0 +1,89 @@
+package com.hfbe_Polina.web_project.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Счётчики записи визитов для Actuator (в Prometheus — {@code clinic_visits_booked_total}
+ * и {@code clinic_visits_booking_rejected_total}).
+ *
+ * <p><b>Причины отказа (тег {@code reason}):</b></p>
+ * <ul>
+ *     <li>{@code overlap} — время пересекается с другим визитом</li>
+ *     <li>{@code daily_limit} — на день уже записано {@link VisitService#DAILY_LIMIT} визитов</li>
+ *     <li>{@code time_window} — время вне часов приёма</li>
+ *     <li>{@code date_limit} — дата позже {@link VisitService#LAST_VISIT_DATE}</li>
+ * </ul>
+ *
+ * <p>Учитываются формы записи и редактирования и пакетный импорт. Часы приёма
+ * и последняя дата проверяются до записи, пересечение и лимит дня — только в БД
+ * под блокировкой дня ({@link VisitService#book}); каждая попытка записи даёт
+ * ровно один исход.</p>
+ */
+@Component
+public class BookingMetrics {
+
+    /**
+     * Причина отказа в записи визита.
+     */
+    public enum Rejection {
+        OVERLAP("overlap"),
+        DAILY_LIMIT("daily_limit"),
+        TIME_WINDOW("time_window"),
+        DATE_LIMIT("date_limit");
+
+        private final String tag;
+
+        Rejection(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Counter booked;
+    private final Map<Rejection, Counter> rejected = new EnumMap<>(Rejection.class);
+
+    public BookingMetrics(MeterRegistry registry) {
+        this.booked = Counter.builder("clinic.visits.booked")
+                .description("Записанные визиты")
+                .register(registry);
+        for (Rejection reason : Rejection.values()) {
+            rejected.put(reason, Counter.builder("clinic.visits.booking.rejected")
+                    .description("Отказы в записи визита")
+                    .tag("reason", reason.tag)
+                    .register(registry));
+        }
+    }
+
+    public void booked() {
+        booked.increment();
+    }
+
+    // Несколько записанных визитов сразу — для пакетного импорта
+    public void booked(int count) {
+        booked.increment(count);
+    }
+
+    public void rejected(Rejection reason) {
+        rejected.get(reason).increment();
+    }
+
+    /**
+     * Учитывает результат атомарной записи {@link VisitService#book}
+     * или переноса {@link VisitService#reschedule}.
+     *
+     * @param result результат записи
+     */
+    public void record(BookingResult result) {
+        switch (result) {
+            case BOOKED -> booked();
+            case OVERLAP -> rejected(Rejection.OVERLAP);
+            case DAILY_LIMIT -> rejected(Rejection.DAILY_LIMIT);
+            // Не отказы расписания: перенос назад, устаревшая форма и исчезнувший визит не считаются
+            case EARLIER_DATE, STALE, MISSING -> { }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.hfbe_Polina.web_project.services;
+
+/**
+ * Результат атомарной записи {@link VisitService#book} или переноса
+ * {@link VisitService#reschedule} визита.
+ */
+public enum BookingResult {
+
+    /**
+     * Визит сохранён.
+     */
+    BOOKED,
+
+    /**
+     * Время пересекается с другим визитом этого дня.
+     */
+    OVERLAP,
+
+    /**
+     * На этот день уже записано {@link VisitService#DAILY_LIMIT} визитов.
+     */
+    DAILY_LIMIT,
+
+    /**
+     * Перенос на дату раньше текущей даты визита.
+     */
+    EARLIER_DATE,
+
+    /**
+     * Визит изменён другим пользователем после открытия формы переноса.
+     */
+    STALE,
+
+    /**
+     * Переносимого визита нет (например, его удалили).
+     */
+    MISSING
+}
@@ -0,0 +1,381 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.dto.ClinicStats;
+import com.hfbe_Polina.web_project.dto.ClinicStats.DayCount;
+import com.hfbe_Polina.web_project.dto.ClinicStats.LabelCount;
+import com.hfbe_Polina.web_project.dto.ClinicStats.OwnerCount;
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
+import com.hfbe_Polina.web_project.dto.VisitStatsRow;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.events.PetChangedEvent;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Статистика клиники: визиты по дням и неделям, частые диагнозы, виды животных
+ * и визиты по владельцам.
+ *
+ * <p>
+ * Счётчики хранятся в памяти и меняются на ±1 после коммита каждого сохранения
+ * и удаления ({@link VisitChangedEvent}, {@link PetChangedEvent},
+ * {@link OwnerChangedEvent}), поэтому панель не перебирает визиты: снимок строится
+ * за время, пропорциональное числу дней периода, диагнозов, видов и владельцев.
+ * Чтобы вычесть изменённый или удалённый визит, для каждого визита запоминаются
+ * его животное, владелец, дата и диагноз, а для животного и владельца — их визиты
+ * и животные.
+ * </p>
+ *
+ * <p><b>Особенности:</b></p>
+ * <ul>
+ *     <li>Диагнозы группируются без учёта регистра и лишних пробелов («ё» равно «е»);
+ *         показывается написание, встреченное первым</li>
+ *     <li>Владелец животного не меняется, поэтому визит навсегда относится к владельцу,
+ *         известному при его записи</li>
+ *     <li>Удаление владельца или животного вычитает только их визиты, найденные по
+ *         спискам «животное → визиты» и «владелец → животные», без обращения к БД
+ *         и без перебора всех визитов</li>
+ *     <li>{@link #reload()} пересчитывает всё из БД: при старте и по кнопке
+ *         «Пересчитать» на панели ({@code POST /stats/rebuild}) — если счётчики
+ *         разошлись с БД, например после изменений в обход сервисов</li>
+ * </ul>
+ *
+ * <p>Память — порядка 150 байт на визит. Изменения и снимки сериализуются монитором.</p>
+ */
+@Component
+public class ClinicStatistics {
+
+    private static final Logger log = LoggerFactory.getLogger(ClinicStatistics.class);
+
+    /**
+     * Сколько строк в рейтингах диагнозов и владельцев.
+     */
+    public static final int TOP = 10;
+
+    /**
+     * Самый длинный период панели в днях.
+     */
+    public static final int MAX_PERIOD_DAYS = 366;
+
+    // Порядок рейтингов по возрастанию: при равенстве выше — раньше по алфавиту или id
+    private static final Comparator<Bucket> BY_COUNT = Comparator.<Bucket>comparingInt(b -> b.count)
+            .thenComparing(b -> b.label, Comparator.reverseOrder());
+    private static final Comparator<Map.Entry<Long, int[]>> BY_VISITS = Comparator
+            .<Map.Entry<Long, int[]>>comparingInt(e -> e.getValue()[0])
+            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final VisitRepository visitRepository;
+    private final PetRepository petRepository;
+    private final OwnerSearchIndex ownerSearchIndex;
+    private final TransactionTemplate readTransaction;
+
+    private Counters counters = new Counters();
+    private Instant builtAt;
+
+    public ClinicStatistics(VisitRepository visitRepository,
+                            PetRepository petRepository,
+                            OwnerSearchIndex ownerSearchIndex,
+                            PlatformTransactionManager transactionManager) {
+        this.visitRepository = visitRepository;
+        this.petRepository = petRepository;
+        this.ownerSearchIndex = ownerSearchIndex;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Полностью пересчитывает статистику из БД.
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        long started = System.nanoTime();
+        counters = readTransaction.execute(status -> {
+            Counters loaded = new Counters();
+            petRepository.findStatsRowsBy().forEach(pet -> loaded.putPet(pet.id(), pet.ownerId(), pet.species()));
+            try (Stream<VisitStatsRow> visits = visitRepository.streamStatsRowsBy()) {
+                visits.forEach(visit -> loaded.putVisit(visit.id(), visit.petId(), visit.date(), visit.diagnosis()));
+            }
+            return loaded;
+        });
+        builtAt = Instant.now();
+        log.info("Статистика пересчитана: {} визитов, {} животных за {} мс", counters.visits.size(),
+                counters.pets.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Строит снимок статистики за период.
+     *
+     * @param from первый день периода или {@code null} — за 30 дней до {@code to}
+     * @param to   последний день периода или {@code null} — день последнего визита
+     *             (сегодня, если визитов нет)
+     * @return снимок; рейтинги диагнозов, видов и владельцев — за всё время
+     * @throws IllegalArgumentException если период задан в обратном порядке или длиннее
+     *                                  {@value #MAX_PERIOD_DAYS} дней
+     */
+    public synchronized ClinicStats snapshot(LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : counters.byDay.isEmpty() ? LocalDate.now() : counters.byDay.lastKey();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Начало периода позже его конца");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException("Период длиннее " + MAX_PERIOD_DAYS + " дней");
+        }
+
+        List<DayCount> days = new ArrayList<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            days.add(new DayCount(day, counters.byDay.getOrDefault(day, 0)));
+        }
+        List<DayCount> weeks = new ArrayList<>();
+        for (LocalDate week = weekOf(start); !week.isAfter(end); week = week.plusWeeks(1)) {
+            weeks.add(new DayCount(week, counters.byWeek.getOrDefault(week, 0)));
+        }
+
+        List<LabelCount> diagnoses = top(counters.diagnoses.values(), BY_COUNT, TOP).stream()
+                .map(b -> new LabelCount(b.label, b.count))
+                .toList();
+        List<LabelCount> species = top(counters.species.values(), BY_COUNT, Integer.MAX_VALUE).stream()
+                .map(b -> new LabelCount(b.label, b.count))
+                .toList();
+        List<OwnerCount> owners = top(counters.byOwner.entrySet(), BY_VISITS, TOP).stream()
+                .map(e -> owner(e.getKey(), e.getValue()[0]))
+                .toList();
+
+        return new ClinicStats(start, end, days, weeks, diagnoses, species, owners,
+                counters.visits.size(), counters.pets.size(), builtAt);
+    }
+
+    @TransactionalEventListener
+    public synchronized void onVisitChanged(VisitChangedEvent event) {
+        if (event.type() == ChangeType.RESCHEDULED) {
+            counters.moveVisit(event.visitId(), event.date());
+            return;
+        }
+        counters.removeVisit(event.visitId());
+        if (event.type() != ChangeType.DELETED) {
+            counters.putVisit(event.visitId(), event.petId(), event.date(), event.diagnosis());
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onPetChanged(PetChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            counters.removePets(Set.of(event.petId()));
+        } else {
+            counters.putPet(event.petId(), event.ownerId(), event.species());
+        }
+    }
+
+    @TransactionalEventListener
+    public synchronized void onOwnerChanged(OwnerChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            counters.removePets(counters.petsOf(event.ownerId()));
+        }
+    }
+
+    // Первые limit элементов по убыванию без сортировки всей коллекции
+    private static <T> List<T> top(Collection<T> items, Comparator<T> ascending, int limit) {
+        PriorityQueue<T> best = new PriorityQueue<>(ascending);
+        for (T item : items) {
+            best.add(item);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<T> top = new ArrayList<>(best);
+        top.sort(ascending.reversed());
+        return top;
+    }
+
+    private OwnerCount owner(Long ownerId, int visits) {
+        OwnerSuggestion owner = ownerSearchIndex.find(ownerId);
+        return owner == null
+                ? new OwnerCount(ownerId, null, null, visits)
+                : new OwnerCount(ownerId, owner.name(), owner.email(), visits);
+    }
+
+    private static LocalDate weekOf(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    // Ключ группировки: без регистра, лишних пробелов и «ё»
+    private static String normalize(String value) {
+        return value.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    /**
+     * Счётчик одного значения (диагноза или вида) с написанием для показа.
+     */
+    private static final class Bucket {
+
+        private final String label;
+        private int count;
+
+        private Bucket(String label) {
+            this.label = label;
+        }
+    }
+
+    private record VisitFacts(Long petId, Long ownerId, LocalDate date, Bucket diagnosis) {
+    }
+
+    private record PetFacts(Long ownerId, Bucket species) {
+    }
+
+    /**
+     * Все счётчики и сведения о визитах и животных, нужные для их уменьшения.
+     */
+    private static final class Counters {
+
+        private final Map<Long, VisitFacts> visits = new HashMap<>();
+        private final Map<Long, PetFacts> pets = new HashMap<>();
+        private final Map<Long, Set<Long>> visitsByPet = new HashMap<>();
+        private final Map<Long, Set<Long>> petsByOwner = new HashMap<>();
+        private final TreeMap<LocalDate, Integer> byDay = new TreeMap<>();
+        private final Map<LocalDate, Integer> byWeek = new HashMap<>();
+        private final Map<String, Bucket> diagnoses = new HashMap<>();
+        private final Map<String, Bucket> species = new HashMap<>();
+        private final Map<Long, int[]> byOwner = new HashMap<>();
+
+        void putVisit(Long id, Long petId, LocalDate date, String diagnosis) {
+            PetFacts pet = pets.get(petId);
+            Long ownerId = pet == null ? null : pet.ownerId();
+            Bucket bucket = diagnosis == null ? null : increment(diagnoses, diagnosis);
+            visits.put(id, new VisitFacts(petId, ownerId, date, bucket));
+            link(visitsByPet, petId, id);
+            if (date != null) {
+                byDay.merge(date, 1, Integer::sum);
+                byWeek.merge(weekOf(date), 1, Integer::sum);
+            }
+            if (ownerId != null) {
+                byOwner.computeIfAbsent(ownerId, o -> new int[1])[0]++;
+            }
+        }
+
+        void removeVisit(Long id) {
+            VisitFacts visit = visits.remove(id);
+            if (visit == null) {
+                return;
+            }
+            unlink(visitsByPet, visit.petId(), id);
+            if (visit.date() != null) {
+                decrement(byDay, visit.date());
+                decrement(byWeek, weekOf(visit.date()));
+            }
+            if (visit.diagnosis() != null) {
+                decrement(diagnoses, visit.diagnosis());
+            }
+            if (visit.ownerId() != null) {
+                int[] count = byOwner.get(visit.ownerId());
+                if (count != null && --count[0] == 0) {
+                    byOwner.remove(visit.ownerId());
+                }
+            }
+        }
+
+        // Перенос меняет только счётчики дней и недель
+        void moveVisit(Long id, LocalDate date) {
+            VisitFacts visit = visits.get(id);
+            if (visit == null) {
+                return;
+            }
+            if (visit.date() != null) {
+                decrement(byDay, visit.date());
+                decrement(byWeek, weekOf(visit.date()));
+            }
+            byDay.merge(date, 1, Integer::sum);
+            byWeek.merge(weekOf(date), 1, Integer::sum);
+            visits.put(id, new VisitFacts(visit.petId(), visit.ownerId(), date, visit.diagnosis()));
+        }
+
+        void putPet(Long id, Long ownerId, String speciesName) {
+            PetFacts old = pets.get(id);
+            if (old != null) {
+                unlink(petsByOwner, old.ownerId(), id);
+                if (old.species() != null) {
+                    decrement(species, old.species());
+                }
+            }
+            Bucket bucket = speciesName == null ? null : increment(species, speciesName);
+            pets.put(id, new PetFacts(ownerId, bucket));
+            link(petsByOwner, ownerId, id);
+        }
+
+        // Каскадное удаление: животные и все их визиты
+        void removePets(Set<Long> petIds) {
+            for (Long petId : petIds) {
+                Set<Long> orphaned = visitsByPet.remove(petId);
+                if (orphaned != null) {
+                    orphaned.forEach(this::removeVisit);
+                }
+                PetFacts pet = pets.remove(petId);
+                if (pet != null) {
+                    unlink(petsByOwner, pet.ownerId(), petId);
+                    if (pet.species() != null) {
+                        decrement(species, pet.species());
+                    }
+                }
+            }
+        }
+
+        Set<Long> petsOf(Long ownerId) {
+            return new HashSet<>(petsByOwner.getOrDefault(ownerId, Set.of()));
+        }
+
+        private static void link(Map<Long, Set<Long>> links, Long from, Long to) {
+            if (from != null) {
+                links.computeIfAbsent(from, key -> new HashSet<>()).add(to);
+            }
+        }
+
+        private static void unlink(Map<Long, Set<Long>> links, Long from, Long to) {
+            if (from != null) {
+                links.computeIfPresent(from, (key, ids) -> ids.remove(to) && ids.isEmpty() ? null : ids);
+            }
+        }
+
+        private static Bucket increment(Map<String, Bucket> buckets, String value) {
+            Bucket bucket = buckets.computeIfAbsent(normalize(value), key -> new Bucket(value.strip()));
+            bucket.count++;
+            return bucket;
+        }
+
+        private static void decrement(Map<String, Bucket> buckets, Bucket bucket) {
+            if (--bucket.count == 0) {
+                buckets.remove(normalize(bucket.label));
+            }
+        }
+
+        private static void decrement(Map<LocalDate, Integer> counts, LocalDate key) {
+            counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.hfbe_Polina.web_project.services;
+
+/**
+ * Результат проверки уникальности контактов владельца.
+ *
+ * <p>Если заняты и email, и телефон, возвращается {@link #EMAIL} —
+ * форма показывает ошибки по одной, начиная с email.</p>
+ */
+public enum ContactConflict {
+
+    /**
+     * Email и телефон свободны.
+     */
+    NONE,
+
+    /**
+     * Email уже используется другим владельцем.
+     */
+    EMAIL,
+
+    /**
+     * Телефон уже используется другим владельцем.
+     */
+    PHONE
+}
@@ -0,0 +1,259 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.entities.DataVersion;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.events.PetChangedEvent;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии данных владельцев, животных и визитов для условных GET‑запросов.
+ *
+ * <p>
+ * Каждый агрегат имеет счётчик, который увеличивается при коммите любого
+ * сохранения или удаления (по событиям {@link OwnerChangedEvent},
+ * {@link PetChangedEvent}, {@link VisitChangedEvent}). Пока счётчики страницы
+ * не изменились, её содержимое тоже не изменилось, и контроллер может ответить
+ * 304 Not Modified, не обращаясь к БД и не выполняя шаблон.
+ * </p>
+ *
+ * <p><b>Хранение:</b></p>
+ * <ul>
+ *     <li>Счётчики хранятся в таблице {@code data_versions} ({@link DataVersion}),
+ *         общей для всех экземпляров приложения и импорта из командной строки</li>
+ *     <li>Строки агрегатов увеличиваются в той же транзакции, что и данные, перед
+ *         коммитом — по одному UPDATE на агрегат, сколько бы событий ни было в транзакции.
+ *         Копия в памяти обновляется после коммита: раньше новая версия досталась бы
+ *         чтению, которое ещё видит старые строки. Если версию записать не удалось,
+ *         не сохраняются и данные</li>
+ *     <li>Изменения других процессов видны после очередного перечитывания таблицы,
+ *         раз в {@code app.data-versions.refresh-interval}; до этого страницы и кэши
+ *         могут отдавать прежние данные</li>
+ *     <li>{@link #current} читает копию в памяти: условный GET не обращается к БД</li>
+ *     <li>Запись в таблицы в обход приложения (SQL вручную) должна увеличить
+ *         строку агрегата, иначе её не заметят до следующего изменения через приложение</li>
+ * </ul>
+ *
+ * <p><b>Особенности реализации:</b></p>
+ * <ul>
+ *     <li>ETag составляется из версий всех агрегатов, которые выводит страница
+ *         (например, список животных показывает имена владельцев)</li>
+ *     <li>Удаление владельца каскадно удаляет животных и визиты, удаление
+ *         животного — визиты, поэтому такие события повышают и их версии</li>
+ *     <li>В ETag входит время запуска экземпляра: после перезапуска (и смены
+ *         шаблонов) старые ETag браузеров не совпадут. За балансировщиком без
+ *         привязки сессий ETag другого экземпляра тоже не совпадёт — это лишний
+ *         полный ответ, а не устаревшие данные</li>
+ * </ul>
+ */
+@Component
+public class DataVersions {
+
+    private static final Logger log = LoggerFactory.getLogger(DataVersions.class);
+
+    /**
+     * Агрегаты, версии которых отслеживаются.
+     */
+    public enum Aggregate {
+        OWNERS, PETS, VISITS
+    }
+
+    /**
+     * Версия набора агрегатов.
+     *
+     * @param etag         строгий ETag (в кавычках)
+     * @param lastModified время последнего изменения, мс
+     */
+    public record Version(String etag, long lastModified) {
+    }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Aggregate, AtomicLong> counters = new EnumMap<>(Aggregate.class);
+    private final Map<Aggregate, AtomicLong> modifiedAt = new EnumMap<>(Aggregate.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final TransactionTemplate writeTransaction;
+    private final TransactionTemplate readTransaction;
+
+    public DataVersions(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                        PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+
+        long now = System.currentTimeMillis();
+        for (Aggregate aggregate : Aggregate.values()) {
+            counters.put(aggregate, new AtomicLong());
+            modifiedAt.put(aggregate, new AtomicLong(now));
+        }
+    }
+
+    /**
+     * Создаёт недостающие строки агрегатов и читает текущие версии.
+     */
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        writeTransaction.executeWithoutResult(status -> {
+            for (Aggregate aggregate : Aggregate.values()) {
+                jdbcTemplate.update("INSERT INTO data_versions (aggregate, version, modified_at) VALUES (?, 0, ?)"
+                        + " ON CONFLICT DO NOTHING", aggregate.name(), now);
+            }
+            load();
+        });
+    }
+
+    /**
+     * Возвращает текущую версию набора агрегатов.
+     *
+     * @param aggregates агрегаты, данные которых выводит страница
+     * @return ETag и время последнего изменения
+     */
+    public Version current(Aggregate... aggregates) {
+        StringJoiner etag = new StringJoiner("-", "\"", "\"").add(epoch);
+        long lastModified = 0;
+        for (Aggregate aggregate : aggregates) {
+            etag.add(aggregate.name().charAt(0) + Long.toString(counters.get(aggregate).get()));
+            lastModified = Math.max(lastModified, modifiedAt.get(aggregate).get());
+        }
+        return new Version(etag.toString(), lastModified);
+    }
+
+    /**
+     * Перечитывает версии из БД: так видны изменения других экземпляров и импорта.
+     *
+     * <p>Чтение идёт в транзакции «только чтение», то есть с реплики, когда она
+     * читается: версия не опережает данные, из которых затем заполняются кэши.</p>
+     */
+    @Scheduled(fixedDelayString = "${app.data-versions.refresh-interval:1s}")
+    public void refresh() {
+        try {
+            readTransaction.executeWithoutResult(status -> load());
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Не удалось перечитать версии данных: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            changed(Aggregate.OWNERS, Aggregate.PETS, Aggregate.VISITS);
+        } else {
+            changed(Aggregate.OWNERS);
+        }
+    }
+
+    @EventListener
+    public void onPetChanged(PetChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            changed(Aggregate.PETS, Aggregate.VISITS);
+        } else {
+            changed(Aggregate.PETS);
+        }
+    }
+
+    @EventListener
+    public void onVisitChanged(VisitChangedEvent event) {
+        changed(Aggregate.VISITS);
+    }
+
+    // Копит изменённые агрегаты до коммита текущей транзакции
+    private void changed(Aggregate... aggregates) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeTransaction.executeWithoutResult(status -> changed(aggregates));
+            return;
+        }
+        PendingBump pending = (PendingBump) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingBump();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        Collections.addAll(pending.aggregates, aggregates);
+    }
+
+    // Версии из таблицы; счётчики в памяти только растут
+    private void load() {
+        read().forEach(this::apply);
+    }
+
+    private List<StoredVersion> read() {
+        return jdbcTemplate.query("SELECT aggregate, version, modified_at FROM data_versions",
+                (rs, rowNum) -> new StoredVersion(Aggregate.valueOf(rs.getString("aggregate")),
+                        rs.getLong("version"), rs.getLong("modified_at")));
+    }
+
+    private void apply(StoredVersion stored) {
+        // Время — до счётчика: новый ETag никогда не сочетается со старым Last-Modified
+        modifiedAt.get(stored.aggregate()).accumulateAndGet(stored.modifiedAt(), Math::max);
+        counters.get(stored.aggregate()).accumulateAndGet(stored.version(), Math::max);
+    }
+
+    private record StoredVersion(Aggregate aggregate, long version, long modifiedAt) {
+    }
+
+    /**
+     * Агрегаты, изменённые в текущей транзакции.
+     *
+     * <p>Запись идёт через соединение самой транзакции: отдельная транзакция после
+     * коммита брала бы второе соединение, пока первое ещё занято, и при нагрузке
+     * пул исчерпывался бы ожидающими друг друга потоками.</p>
+     */
+    private final class PendingBump implements TransactionSynchronization {
+
+        private final Set<Aggregate> aggregates = EnumSet.noneOf(Aggregate.class);
+        private List<StoredVersion> stored = List.of();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Сначала строки данных: строка версии блокируется последней и
+            // держится только до коммита, взаимной блокировки с данными нет
+            entityManager.flush();
+            long now = System.currentTimeMillis();
+            // Строки всегда обновляются в одном порядке — параллельные транзакции не блокируют друг друга навсегда
+            for (Aggregate aggregate : aggregates) {
+                jdbcTemplate.update("UPDATE data_versions SET version = version + 1,"
+                        + " modified_at = GREATEST(modified_at, ?) WHERE aggregate = ?", now, aggregate.name());
+            }
+            stored = read();
+        }
+
+        @Override
+        public void afterCommit() {
+            stored.forEach(DataVersions.this::apply);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(DataVersions.this);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.dto.OwnerKey;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Индекс занятых email и телефонов владельцев, хранящийся в памяти.
+ *
+ * <p>
+ * Для каждого email и телефона хранит идентификатор владельца, которому он принадлежит.
+ * Проверка формы сначала обращается сюда: если контакт не занят другим владельцем,
+ * ответ получен без запроса к БД. Это самый частый случай — новый владелец с новыми
+ * контактами или редактирование без смены email и телефона.
+ * </p>
+ *
+ * <p><b>Согласованность с БД:</b></p>
+ * <ul>
+ *     <li>Индекс заполняется из таблицы owners при старте приложения</li>
+ *     <li>Изменения применяются после коммита ({@link TransactionalEventListener})
+ *         из {@link OwnerChangedEvent}, который несёт новые email и телефон</li>
+ *     <li>Ответ «занято» подтверждается запросом к БД: индекс мог ещё не получить удаление</li>
+ *     <li>Ответ «свободно» может устареть на время между чужим коммитом и событием
+ *         (или при записи другим экземпляром приложения) — окончательно уникальность
+ *         проверяют уникальные индексы БД при сохранении</li>
+ * </ul>
+ *
+ * <p>Хэш‑таблица, а не фильтр Блума: она поддерживает удаление и смену контактов
+ * и отличает контакты самого редактируемого владельца от чужих.</p>
+ */
+@Component
+public class OwnerContactIndex {
+
+    private final OwnerRepository ownerRepository;
+    private final TransactionTemplate readTransaction;
+
+    private volatile Map<String, Long> ownerByEmail = new ConcurrentHashMap<>();
+    private volatile Map<String, Long> ownerByPhone = new ConcurrentHashMap<>();
+    private volatile Map<Long, OwnerKey> keyById = new ConcurrentHashMap<>();
+
+    public OwnerContactIndex(OwnerRepository ownerRepository, PlatformTransactionManager transactionManager) {
+        this.ownerRepository = ownerRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Полностью перечитывает индекс из БД.
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        List<OwnerKey> keys = readTransaction.execute(status -> ownerRepository.findKeysBy());
+
+        Map<String, Long> newByEmail = new ConcurrentHashMap<>();
+        Map<String, Long> newByPhone = new ConcurrentHashMap<>();
+        Map<Long, OwnerKey> newById = new ConcurrentHashMap<>();
+        for (OwnerKey key : keys) {
+            index(key, newByEmail, newByPhone, newById);
+        }
+
+        ownerByEmail = newByEmail;
+        ownerByPhone = newByPhone;
+        keyById = newById;
+    }
+
+    /**
+     * Проверяет, могут ли email или телефон принадлежать другому владельцу.
+     *
+     * @param email          email
+     * @param phone          телефон
+     * @param excludeOwnerId редактируемый владелец, может быть {@code null}
+     * @return {@code false}, если оба контакта свободны; {@code true} — нужна проверка в БД
+     */
+    public boolean mayBeTaken(String email, String phone, Long excludeOwnerId) {
+        return takenByOther(ownerByEmail, email, excludeOwnerId)
+                || takenByOther(ownerByPhone, phone, excludeOwnerId);
+    }
+
+    @TransactionalEventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.ownerId());
+        } else {
+            put(new OwnerKey(event.ownerId(), event.email(), event.phone()));
+        }
+    }
+
+    private synchronized void put(OwnerKey key) {
+        remove(key.id());
+        index(key, ownerByEmail, ownerByPhone, keyById);
+    }
+
+    private synchronized void remove(Long id) {
+        OwnerKey old = keyById.remove(id);
+        if (old != null) {
+            if (old.email() != null) {
+                ownerByEmail.remove(old.email(), id);
+            }
+            if (old.phone() != null) {
+                ownerByPhone.remove(old.phone(), id);
+            }
+        }
+    }
+
+    private static void index(OwnerKey key, Map<String, Long> byEmail, Map<String, Long> byPhone,
+                              Map<Long, OwnerKey> byId) {
+        if (key.email() != null) {
+            byEmail.put(key.email(), key.id());
+        }
+        if (key.phone() != null) {
+            byPhone.put(key.phone(), key.id());
+        }
+        byId.put(key.id(), key);
+    }
+
+    private static boolean takenByOther(Map<String, Long> index, String value, Long excludeOwnerId) {
+        if (value == null) {
+            return false;
+        }
+        Long ownerId = index.get(value);
+        return ownerId != null && !Objects.equals(ownerId, excludeOwnerId);
+    }
+}
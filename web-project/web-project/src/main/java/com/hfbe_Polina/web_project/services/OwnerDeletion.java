@@ -0,0 +1,90 @@
+package com.hfbe_Polina.web_project.services;
+
+import java.time.Instant;
+
+/**
+ * Ход удаления владельца, запущенного через {@link OwnerDeletionService}.
+ *
+ * <p>
+ * Небольшие владельцы удаляются сразу, и объект создаётся уже завершённым.
+ * Для крупных визиты удаляются в фоне порциями; поток удаления обновляет счётчик
+ * после коммита каждой порции, а страница хода удаления читает его без блокировок.
+ * </p>
+ */
+public class OwnerDeletion {
+
+    /**
+     * Состояние удаления.
+     */
+    public enum Status {
+
+        /**
+         * Визиты ещё удаляются.
+         */
+        RUNNING,
+
+        /**
+         * Владелец, его животные и визиты удалены.
+         */
+        DONE,
+
+        /**
+         * Удаление прервано ошибкой; удалённые порции не восстанавливаются,
+         * повторный запуск продолжит с оставшихся визитов.
+         */
+        FAILED
+    }
+
+    private final Long ownerId;
+    private final long totalVisits;
+    private final Instant startedAt = Instant.now();
+
+    private volatile long deletedVisits;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    OwnerDeletion(Long ownerId, long totalVisits) {
+        this.ownerId = ownerId;
+        this.totalVisits = totalVisits;
+    }
+
+    public Long getOwnerId() { return ownerId; }
+    public long getTotalVisits() { return totalVisits; }
+    public long getDeletedVisits() { return deletedVisits; }
+    public Status getStatus() { return status; }
+    public String getError() { return error; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+
+    public boolean isRunning() {
+        return status == Status.RUNNING;
+    }
+
+    /**
+     * Доля удалённых визитов в процентах, от 0 до 100.
+     */
+    public int getPercent() {
+        if (status == Status.DONE) {
+            return 100;
+        }
+        return totalVisits == 0 ? 0 : (int) Math.min(99, deletedVisits * 100 / totalVisits);
+    }
+
+    // Вызывается только потоком удаления
+    void visitsDeleted(int count) {
+        deletedVisits += count;
+    }
+
+    void done() {
+        deletedVisits = Math.max(deletedVisits, totalVisits);
+        finishedAt = Instant.now();
+        status = Status.DONE;
+    }
+
+    void failed(String message) {
+        error = message;
+        finishedAt = Instant.now();
+        status = Status.FAILED;
+    }
+}
@@ -0,0 +1,173 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Удаление владельца с животными и визитами без загрузки сущностей.
+ *
+ * <p>
+ * Перед удалением визиты владельца считаются одним запросом. Если их не больше
+ * {@code app.delete.chunk-size}, владелец удаляется сразу тремя операторами DELETE
+ * ({@link OwnerService#delete}). Иначе удаление уходит в фон: визиты удаляются
+ * порциями по {@code app.delete.chunk-size}, каждая в своей короткой транзакции,
+ * а владелец и животные — последним шагом. Так ни транзакция, ни память
+ * не растут с числом визитов, а блокировки строк держатся недолго.
+ * </p>
+ *
+ * <p><b>Особенности:</b></p>
+ * <ul>
+ *     <li>Фоновые удаления выполняются по одному в отдельном потоке, чтобы не занимать
+ *         пул соединений и потоки запросов</li>
+ *     <li>Для визитов каждой удалённой порции публикуются {@link VisitChangedEvent},
+ *         поэтому индексы, статистика и кэши не показывают уже удалённые визиты</li>
+ *     <li>Повторный запуск для того же владельца, пока удаление идёт, возвращает
+ *         текущий ход удаления</li>
+ *     <li>Ход удаления ({@link OwnerDeletion}) хранится в памяти, пока удаление идёт,
+ *         и ещё {@code app.delete.status-ttl} после завершения — чтобы страница хода
+ *         успела показать итог; затем запись вытесняется</li>
+ * </ul>
+ */
+@Service
+public class OwnerDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnerDeletionService.class);
+
+    private final OwnerService ownerService;
+    private final VisitRepository visitRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    private final Cache<Long, OwnerDeletion> deletions;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "owner-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OwnerDeletionService(OwnerService ownerService,
+                                VisitRepository visitRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.delete.chunk-size:1000}") int chunkSize,
+                                @Value("${app.delete.status-ttl:1h}") Duration statusTtl) {
+        this.ownerService = ownerService;
+        this.visitRepository = visitRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        // Идущее удаление не вытесняется: иначе повторный запуск начал бы второе параллельно
+        this.deletions = Caffeine.newBuilder()
+                .expireAfter(Expiry.<Long, OwnerDeletion>writing((ownerId, deletion) ->
+                        deletion.isRunning() ? ChronoUnit.FOREVER.getDuration() : statusTtl))
+                .build();
+    }
+
+    /**
+     * Удаляет владельца сразу или запускает фоновое удаление порциями.
+     *
+     * @param ownerId идентификатор владельца
+     * @return завершённое удаление или ход запущенного (уже идущего) фонового удаления
+     */
+    public OwnerDeletion delete(Long ownerId) {
+        OwnerDeletion running = deletions.getIfPresent(ownerId);
+        if (running != null && running.isRunning()) {
+            return running;
+        }
+
+        long visits = visitRepository.countByOwnerId(ownerId);
+        OwnerDeletion deletion = new OwnerDeletion(ownerId, visits);
+        if (visits <= chunkSize) {
+            ownerService.delete(ownerId);
+            deletion.done();
+            return deletion;
+        }
+
+        OwnerDeletion started = deletions.asMap().compute(ownerId,
+                (id, current) -> current != null && current.isRunning() ? current : deletion);
+        if (started == deletion) {
+            log.info("Удаление владельца {} запущено в фоне: {} визитов порциями по {}", ownerId, visits, chunkSize);
+            worker.execute(() -> run(deletion));
+        }
+        return started;
+    }
+
+    /**
+     * Ход фонового удаления владельца.
+     *
+     * @param ownerId идентификатор владельца
+     * @return ход удаления или {@code null}, если фоновое удаление не запускалось
+     */
+    public OwnerDeletion find(Long ownerId) {
+        return deletions.getIfPresent(ownerId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void run(OwnerDeletion deletion) {
+        Long ownerId = deletion.getOwnerId();
+        long started = System.nanoTime();
+        try {
+            int deleted;
+            do {
+                deleted = chunkTransaction.execute(status -> deleteChunk(ownerId));
+                deletion.visitsDeleted(deleted);
+                log.debug("Удаление владельца {}: удалено {} из {} визитов", ownerId,
+                        deletion.getDeletedVisits(), deletion.getTotalVisits());
+            } while (deleted == chunkSize && !Thread.currentThread().isInterrupted());
+            if (Thread.currentThread().isInterrupted()) {
+                deletion.failed("Приложение остановлено");
+                return;
+            }
+
+            // Визиты, записанные во время удаления, удаляются вместе с владельцем
+            ownerService.delete(ownerId);
+            deletion.done();
+            log.info("Владелец {} удалён: {} визитов за {} мс", ownerId, deletion.getDeletedVisits(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } catch (RuntimeException e) {
+            deletion.failed(NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            log.error("Удаление владельца {} прервано после {} визитов", ownerId, deletion.getDeletedVisits(), e);
+        } finally {
+            // Повторная запись запускает отсчёт app.delete.status-ttl для завершённого удаления
+            deletions.asMap().replace(ownerId, deletion, deletion);
+        }
+    }
+
+    // Одна порция: id визитов по первичному ключу и DELETE по этим id
+    private int deleteChunk(Long ownerId) {
+        List<Long> ids = visitRepository.findIdsByOwnerId(ownerId, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        visitRepository.deleteInBulkByIdIn(ids);
+        for (Long id : ids) {
+            eventPublisher.publishEvent(new VisitChangedEvent(id, null, null, null, null, null, ChangeType.DELETED));
+        }
+        return ids.size();
+    }
+}
@@ -0,0 +1,226 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Поиск владельцев по началу имени, email или телефона в памяти.
+ *
+ * <p>
+ * Подсказки формы животного не должны перебирать таблицу владельцев: при сотнях
+ * тысяч строк {@code LIKE 'ив%'} по имени без специального индекса — полный просмотр.
+ * Здесь каждое поле хранится в упорядоченной карте ({@link ConcurrentSkipListMap}),
+ * и поиск по началу строки — это спуск к первому подходящему ключу за O(log n)
+ * и чтение следующих {@code limit} ключей.
+ * </p>
+ *
+ * <p><b>Что ищется:</b></p>
+ * <ul>
+ *     <li>Имя — с начала и с начала каждого слова («ив» найдёт «Иванов Пётр» и «Пётр Иванов»),
+ *         без учёта регистра, «ё» равно «е»</li>
+ *     <li>Email — с начала, без учёта регистра</li>
+ *     <li>Телефон — по цифрам запроса, если в нём нет ничего, кроме цифр, пробелов,
+ *         скобок, дефисов и «+» («+7 999» ищется как «8999»)</li>
+ *     <li>Результаты идут в порядке: совпадения по имени, по email, по телефону</li>
+ * </ul>
+ *
+ * <p><b>Согласованность с БД</b> — как у {@link OwnerContactIndex}: индекс заполняется
+ * при старте и обновляется после коммита из {@link OwnerChangedEvent}. Изменения,
+ * сделанные другим экземпляром приложения, появятся после {@link #reload()}.</p>
+ *
+ * <p>Память — порядка 300 байт на владельца (три ключа поиска и общая запись подсказки).</p>
+ */
+@Component
+public class OwnerSearchIndex {
+
+    /**
+     * Больше подсказок за один запрос не отдаётся.
+     */
+    public static final int MAX_RESULTS = 50;
+
+    // Отделяет значение от id в ключе: одинаковые имена не перезаписывают друг друга
+    private static final char ID_SEPARATOR = '\u0000';
+
+    private final OwnerRepository ownerRepository;
+    private final TransactionTemplate readTransaction;
+
+    private volatile Map<Long, OwnerSuggestion> byId = new ConcurrentHashMap<>();
+    private volatile NavigableMap<String, OwnerSuggestion> byName = new ConcurrentSkipListMap<>();
+    private volatile NavigableMap<String, OwnerSuggestion> byEmail = new ConcurrentSkipListMap<>();
+    private volatile NavigableMap<String, OwnerSuggestion> byPhone = new ConcurrentSkipListMap<>();
+
+    public OwnerSearchIndex(OwnerRepository ownerRepository, PlatformTransactionManager transactionManager) {
+        this.ownerRepository = ownerRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Полностью перечитывает индекс из БД.
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        List<OwnerSuggestion> owners = readTransaction.execute(status -> ownerRepository.findSuggestionsBy());
+
+        Map<Long, OwnerSuggestion> newById = new ConcurrentHashMap<>();
+        NavigableMap<String, OwnerSuggestion> newByName = new ConcurrentSkipListMap<>();
+        NavigableMap<String, OwnerSuggestion> newByEmail = new ConcurrentSkipListMap<>();
+        NavigableMap<String, OwnerSuggestion> newByPhone = new ConcurrentSkipListMap<>();
+        for (OwnerSuggestion owner : owners) {
+            newById.put(owner.id(), owner);
+            index(owner, newByName, newByEmail, newByPhone);
+        }
+
+        byId = newById;
+        byName = newByName;
+        byEmail = newByEmail;
+        byPhone = newByPhone;
+    }
+
+    /**
+     * Ищет владельцев, у которых имя, email или телефон начинаются с запроса.
+     *
+     * @param query начало имени, email или телефона
+     * @param limit сколько подсказок вернуть (не больше {@link #MAX_RESULTS})
+     * @return подсказки без повторов; пустой список для пустого запроса
+     */
+    public List<OwnerSuggestion> search(String query, int limit) {
+        String prefix = normalize(query);
+        int max = Math.min(limit, MAX_RESULTS);
+        if (prefix.isEmpty() || max < 1) {
+            return List.of();
+        }
+
+        Map<Long, OwnerSuggestion> found = new LinkedHashMap<>();
+        collect(byName, prefix, found, max);
+        collect(byEmail, prefix, found, max);
+        String digits = phoneDigits(query);
+        if (digits != null) {
+            collect(byPhone, digits, found, max);
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Возвращает владельца по идентификатору без обращения к БД.
+     *
+     * @param id идентификатор владельца
+     * @return имя, email и телефон или {@code null}, если владельца нет
+     */
+    public OwnerSuggestion find(Long id) {
+        return byId.get(id);
+    }
+
+    @TransactionalEventListener
+    public void onOwnerChanged(OwnerChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.ownerId());
+        } else {
+            put(new OwnerSuggestion(event.ownerId(), event.name(), event.email(), event.phone()));
+        }
+    }
+
+    private synchronized void put(OwnerSuggestion owner) {
+        remove(owner.id());
+        byId.put(owner.id(), owner);
+        index(owner, byName, byEmail, byPhone);
+    }
+
+    private synchronized void remove(Long id) {
+        OwnerSuggestion old = byId.remove(id);
+        if (old != null) {
+            nameKeys(old).forEach(byName::remove);
+            if (old.email() != null) {
+                byEmail.remove(key(normalize(old.email()), id));
+            }
+            if (old.phone() != null) {
+                byPhone.remove(key(old.phone(), id));
+            }
+        }
+    }
+
+    private static void index(OwnerSuggestion owner, Map<String, OwnerSuggestion> byName,
+                              Map<String, OwnerSuggestion> byEmail, Map<String, OwnerSuggestion> byPhone) {
+        for (String key : nameKeys(owner)) {
+            byName.put(key, owner);
+        }
+        if (owner.email() != null) {
+            byEmail.put(key(normalize(owner.email()), owner.id()), owner);
+        }
+        if (owner.phone() != null) {
+            byPhone.put(key(owner.phone(), owner.id()), owner);
+        }
+    }
+
+    // Полное имя и его хвосты с начала каждого следующего слова
+    private static List<String> nameKeys(OwnerSuggestion owner) {
+        String name = normalize(owner.name());
+        if (name.isEmpty()) {
+            return List.of();
+        }
+        List<String> keys = new ArrayList<>();
+        keys.add(key(name, owner.id()));
+        for (int i = 1; i < name.length(); i++) {
+            char previous = name.charAt(i - 1);
+            if ((previous == ' ' || previous == '-') && name.charAt(i) != ' ' && name.charAt(i) != '-') {
+                keys.add(key(name.substring(i), owner.id()));
+            }
+        }
+        return keys;
+    }
+
+    private static void collect(NavigableMap<String, OwnerSuggestion> index, String prefix,
+                                Map<Long, OwnerSuggestion> found, int limit) {
+        if (found.size() >= limit) {
+            return;
+        }
+        for (OwnerSuggestion owner : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            found.putIfAbsent(owner.id(), owner);
+            if (found.size() >= limit) {
+                return;
+            }
+        }
+    }
+
+    private static String key(String value, Long id) {
+        return value + ID_SEPARATOR + id;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    // Цифры телефона из запроса или null, если запрос не похож на телефон
+    private static String phoneDigits(String query) {
+        String stripped = query.strip();
+        if (!stripped.matches("\\+?[\\d\\s()\\-]*\\d[\\d\\s()\\-]*")) {
+            return null;
+        }
+        String digits = stripped.replaceAll("\\D", "");
+        if (stripped.startsWith("+7")) {
+            digits = "8" + digits.substring(1);
+        }
+        return digits;
+    }
+}
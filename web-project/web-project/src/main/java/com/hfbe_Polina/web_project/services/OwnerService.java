@@ -1,10 +1,29 @@
 package com.hfbe_Polina.web_project.services;
 
+import com.hfbe_Polina.web_project.api.FieldSelection;
+import com.hfbe_Polina.web_project.dto.OwnerKey;
+import com.hfbe_Polina.web_project.dto.OwnerSuggestion;
 import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.OwnerChangedEvent;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.KeysetPager;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.paging.SortKeys;
 import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.ProjectionRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Сервисный слой для работы с владельцами животных.
@@ -16,25 +35,94 @@ import java.util.List;
  * <p><b>Основные задачи сервиса:</b></p>
  * <ul>
  *     <li>Получение списка владельцев</li>
+ *     <li>Поиск владельцев для подсказок в формах (см. {@link OwnerSearchIndex})</li>
+ *     <li>Постраничная выборка владельцев</li>
+ *     <li>Выборка отдельных полей для REST API (см. {@link ProjectionRepository})</li>
  *     <li>Поиск владельца по идентификатору</li>
  *     <li>Сохранение нового или обновлённого владельца</li>
- *     <li>Удаление владельца</li>
+ *     <li>Удаление владельца вместе с животными и визитами тремя операторами DELETE
+ *         (крупных владельцев удаляет порциями {@link OwnerDeletionService})</li>
+ *     <li>Проверка уникальности email и телефона</li>
  * </ul>
+ *
+ * <p>Сохранение и удаление публикуют {@link OwnerChangedEvent}; по нему
+ * {@link OwnerSearchIndex} обновляет подсказки поиска,
+ * а {@link OwnerContactIndex} — занятые контакты.</p>
  */
+@Timed("clinic.service")
 @Service
 public class OwnerService {
 
+    /**
+     * Допустимые ключи сортировки списка владельцев.
+     */
+    private static final SortKeys SORT_KEYS = SortKeys.of(Owner.class, "id")
+            .with("name", "name")
+            .with("email", "email");
+
     private final OwnerRepository ownerRepository;
+    private final PetRepository petRepository;
+    private final VisitRepository visitRepository;
+    private final KeysetPager keysetPager;
+    private final ProjectionRepository projectionRepository;
+    private final OwnerContactIndex contactIndex;
+    private final OwnerSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OwnerService(OwnerRepository ownerRepository) {
+    public OwnerService(OwnerRepository ownerRepository,
+                        PetRepository petRepository,
+                        VisitRepository visitRepository,
+                        KeysetPager keysetPager,
+                        ProjectionRepository projectionRepository,
+                        OwnerContactIndex contactIndex,
+                        OwnerSearchIndex searchIndex,
+                        ApplicationEventPublisher eventPublisher) {
         this.ownerRepository = ownerRepository;
+        this.petRepository = petRepository;
+        this.visitRepository = visitRepository;
+        this.keysetPager = keysetPager;
+        this.projectionRepository = projectionRepository;
+        this.contactIndex = contactIndex;
+        this.searchIndex = searchIndex;
+        this.eventPublisher = eventPublisher;
     }
 
-    public boolean existsByEmail(String email) {
-        return ownerRepository.existsByEmail(email);
+    /**
+     * Проверяет, не заняты ли email и телефон другим владельцем.
+     *
+     * <p>Свободные контакты определяются по {@link OwnerContactIndex} без обращения
+     * к БД; если индекс видит совпадение, оно подтверждается одним запросом
+     * по обоим уникальным индексам.</p>
+     *
+     * @param email          email владельца
+     * @param phone          телефон владельца
+     * @param excludeOwnerId редактируемый владелец (его собственные контакты не считаются занятыми),
+     *                       для нового — {@code null}
+     * @return занятый контакт или {@link ContactConflict#NONE}
+     */
+    public ContactConflict findContactConflict(String email, String phone, Long excludeOwnerId) {
+        if (!contactIndex.mayBeTaken(email, phone, excludeOwnerId)) {
+            return ContactConflict.NONE;
+        }
+        return findStoredContactConflict(email, phone, excludeOwnerId);
     }
-    public boolean existsByPhone(String phone) {
-        return ownerRepository.existsByPhone(phone);
+
+    /**
+     * То же, что {@link #findContactConflict}, но всегда по данным БД.
+     * Используется после нарушения уникального индекса при сохранении.
+     */
+    public ContactConflict findStoredContactConflict(String email, String phone, Long excludeOwnerId) {
+        ContactConflict conflict = ContactConflict.NONE;
+        for (OwnerKey key : ownerRepository.findKeysByEmailOrPhone(email, phone)) {
+            if (key.id().equals(excludeOwnerId)) {
+                continue;
+            }
+            if (key.email().equals(email)) {
+                return ContactConflict.EMAIL;
+            }
+            conflict = ContactConflict.PHONE;
+        }
+        return conflict;
     }
 
 
@@ -44,16 +132,68 @@ public class OwnerService {
      *
      * @return список владельцев
      */
+    @Transactional(readOnly = true)
     public List<Owner> findAll() {
         return ownerRepository.findAll();
     }
 
+    /**
+     * Подсказки для выбора владельца в формах животных.
+     *
+     * <p>Ищет по началу имени, email или телефона в {@link OwnerSearchIndex},
+     * без обращения к БД.</p>
+     *
+     * @param query начало имени, email или телефона
+     * @param limit сколько подсказок вернуть
+     * @return найденные владельцы
+     */
+    public List<OwnerSuggestion> suggest(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Возвращает одну страницу списка владельцев.
+     *
+     * @param query курсор, сортировка и размер страницы
+     * @return страница владельцев
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Owner> findPage(PageQuery query) {
+        return keysetPager.fetch(query, SORT_KEYS, ownerRepository::findBy);
+    }
+
+    /**
+     * Возвращает страницу владельцев для REST API с выбранными полями.
+     *
+     * @param query  курсор, сортировка и размер страницы
+     * @param fields поля, попадающие в SELECT
+     * @return страница строк «поле → значение»
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Map<String, Object>> findFieldsPage(PageQuery query, FieldSelection fields) {
+        return keysetPager.fetch(query, SORT_KEYS,
+                (position, sort, limit) -> projectionRepository.scroll(fields, position, sort, limit));
+    }
+
+    /**
+     * Возвращает выбранные поля одной записи для REST API.
+     *
+     * @param id     идентификатор
+     * @param fields поля, попадающие в SELECT
+     * @return строка «поле → значение» или пустой Optional
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFields(Long id, FieldSelection fields) {
+        return projectionRepository.findById(fields, id);
+    }
+
     /**
      * Ищет владельца по идентификатору.
      *
      * @param id идентификатор владельца
      * @return найденный владелец
      */
+    @Transactional(readOnly = true)
     public Owner findById(Long id) {
         return ownerRepository.findById(id).orElse(null);
     }
@@ -63,16 +203,34 @@ public class OwnerService {
      *
      * @param owner объект владельца
      */
+    @Transactional
     public void save(Owner owner) {
-        ownerRepository.save(owner);
+        Owner saved = ownerRepository.save(owner);
+        eventPublisher.publishEvent(
+                new OwnerChangedEvent(saved.getId(), saved.getName(), saved.getEmail(), saved.getPhone(), ChangeType.SAVED));
     }
 
     /**
-     * Удаляет владельца по идентификатору.
+     * Удаляет владельца по идентификатору вместе с его животными и их визитами.
+     *
+     * <p>Читает только id визитов владельца и выполняет три оператора DELETE
+     * (визиты, животные, владелец), поэтому число запросов не зависит от числа
+     * животных и визитов. Кэш второго уровня Hibernate сбрасывает затронутые
+     * регионы сам. Для каждого визита публикуется {@link VisitChangedEvent}, чтобы
+     * индексы визитов не перечитывались целиком. Время и размер транзакции растут
+     * с числом визитов — крупных владельцев удаляет {@link OwnerDeletionService}.</p>
      *
      * @param id идентификатор владельца
      */
+    @Transactional
     public void delete(Long id) {
-        ownerRepository.deleteById(id);
+        List<Long> visitIds = visitRepository.findIdsByOwnerId(id, Limit.unlimited());
+        visitRepository.deleteInBulkByOwnerId(id);
+        petRepository.deleteInBulkByOwnerId(id);
+        ownerRepository.deleteInBulkById(id);
+        for (Long visitId : visitIds) {
+            eventPublisher.publishEvent(new VisitChangedEvent(visitId, null, null, null, null, null, ChangeType.DELETED));
+        }
+        eventPublisher.publishEvent(new OwnerChangedEvent(id, null, null, null, ChangeType.DELETED));
     }
 }
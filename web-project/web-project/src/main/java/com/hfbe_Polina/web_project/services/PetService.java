@@ -1,10 +1,29 @@
 package com.hfbe_Polina.web_project.services;
 
+import com.hfbe_Polina.web_project.api.FieldSelection;
+import com.hfbe_Polina.web_project.dto.PetListItem;
+import com.hfbe_Polina.web_project.dto.PetOption;
 import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.PetChangedEvent;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.KeysetPager;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.paging.SortKeys;
 import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.ProjectionRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Сервисный слой для работы с животными.
@@ -16,18 +35,54 @@ import java.util.List;
  * <p><b>Основные задачи сервиса:</b></p>
  * <ul>
  *     <li>Получение списка животных</li>
+ *     <li>Постраничная выборка животных</li>
+ *     <li>Выборка отдельных полей для REST API (см. {@link ProjectionRepository})</li>
  *     <li>Поиск животного по идентификатору</li>
+ *     <li>Проверка наличия визитов перед удалением</li>
  *     <li>Сохранение нового или обновлённого животного</li>
  *     <li>Удаление животного</li>
  * </ul>
+ *
+ * <p>Сохранение и удаление публикуют {@link PetChangedEvent}; по нему
+ * {@link DataVersions} повышает версию животных, а с ней меняется ключ
+ * кэша выпадающего списка животных.</p>
  */
+@Timed("clinic.service")
 @Service
 public class PetService {
 
+    public static final String PET_OPTIONS = "petOptions";
+
+    /**
+     * Допустимые ключи сортировки списка животных.
+     */
+    private static final SortKeys SORT_KEYS = SortKeys.of(Pet.class, "id")
+            .with("name", "name")
+            .with("species", "species")
+            .with("birthDate", "birthDate");
+
     private final PetRepository petRepository;
+    private final VisitRepository visitRepository;
+    private final KeysetPager keysetPager;
+    private final ProjectionRepository projectionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
 
-    public PetService(PetRepository petRepository) {
+    public PetService(PetRepository petRepository,
+                      VisitRepository visitRepository,
+                      KeysetPager keysetPager,
+                      ProjectionRepository projectionRepository,
+                      ApplicationEventPublisher eventPublisher,
+                      CacheManager cacheManager,
+                      DataVersions dataVersions) {
         this.petRepository = petRepository;
+        this.visitRepository = visitRepository;
+        this.keysetPager = keysetPager;
+        this.projectionRepository = projectionRepository;
+        this.eventPublisher = eventPublisher;
+        this.cacheManager = cacheManager;
+        this.dataVersions = dataVersions;
     }
 
     /**
@@ -35,10 +90,70 @@ public class PetService {
      *
      * @return список животных
      */
+    @Transactional(readOnly = true)
     public List<Pet> findAll() {
         return petRepository.findAll();
     }
 
+    /**
+     * Возвращает животных для выпадающего списка в формах визитов.
+     *
+     * <p>Результат кэшируется в {@code petOptions} по версии животных
+     * ({@link DataVersions}), как свободное время в {@link VisitAvailabilityService}.
+     * Версия берётся до чтения из БД: список, прочитанный до коммита изменения,
+     * попадает под старый ключ и не может подменить новый. Удаление владельца
+     * повышает и версию животных.</p>
+     *
+     * @return неизменяемый список животных, отсортированный по имени
+     */
+    public List<PetOption> findOptions() {
+        String key = dataVersions.current(Aggregate.PETS).etag();
+        Cache cache = cacheManager.getCache(PET_OPTIONS);
+        if (cache == null) {
+            return List.copyOf(petRepository.findOptionsByOrderByNameAsc());
+        }
+        return cache.get(key, () -> List.copyOf(petRepository.findOptionsByOrderByNameAsc()));
+    }
+
+    /**
+     * Возвращает одну страницу списка животных.
+     *
+     * <p>Строки загружаются проекцией {@link PetListItem} одним SQL‑запросом
+     * вместе с именами владельцев.</p>
+     *
+     * @param query курсор, сортировка и размер страницы
+     * @return страница животных
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<PetListItem> findPage(PageQuery query) {
+        return keysetPager.fetch(query, SORT_KEYS, petRepository::findListItemsBy);
+    }
+
+    /**
+     * Возвращает страницу животных для REST API с выбранными полями.
+     *
+     * @param query  курсор, сортировка и размер страницы
+     * @param fields поля, попадающие в SELECT
+     * @return страница строк «поле → значение»
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Map<String, Object>> findFieldsPage(PageQuery query, FieldSelection fields) {
+        return keysetPager.fetch(query, SORT_KEYS,
+                (position, sort, limit) -> projectionRepository.scroll(fields, position, sort, limit));
+    }
+
+    /**
+     * Возвращает выбранные поля одной записи для REST API.
+     *
+     * @param id     идентификатор
+     * @param fields поля, попадающие в SELECT
+     * @return строка «поле → значение» или пустой Optional
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFields(Long id, FieldSelection fields) {
+        return projectionRepository.findById(fields, id);
+    }
+
     /**
      * Ищет животное по идентификатору.
      *
@@ -49,21 +164,40 @@ public class PetService {
         return petRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Проверяет, есть ли у животного визиты, не загружая коллекцию {@code Pet.visits}.
+     *
+     * @param id идентификатор животного
+     * @return {@code true}, если записан хотя бы один визит
+     */
+    public boolean hasVisits(Long id) {
+        return visitRepository.existsByPetId(id);
+    }
+
     /**
      * Сохраняет новое или обновлённое животное.
      *
      * @param pet объект животного
      */
+    @Transactional
     public void save(Pet pet) {
-        petRepository.save(pet);
+        Pet saved = petRepository.save(pet);
+        eventPublisher.publishEvent(new PetChangedEvent(saved.getId(),
+                saved.getOwner() == null ? null : saved.getOwner().getId(), saved.getSpecies(), ChangeType.SAVED));
     }
 
     /**
-     * Удаляет животное по идентификатору.
+     * Удаляет животное по идентификатору одним оператором DELETE.
+     *
+     * <p>Коллекция визитов не загружается: удалять можно только животное без визитов
+     * ({@link #hasVisits}), а визит, записанный после проверки, не даст удалить
+     * строку внешним ключом.</p>
      *
      * @param id идентификатор животного
      */
+    @Transactional
     public void delete(Long id) {
-        petRepository.deleteById(id);
+        petRepository.deleteInBulkById(id);
+        eventPublisher.publishEvent(new PetChangedEvent(id, null, null, ChangeType.DELETED));
     }
 }
@@ -0,0 +1,139 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.dto.DayAvailability;
+import com.hfbe_Polina.web_project.dto.VisitSlot;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Свободное время для записи за период.
+ *
+ * <p>
+ * Для каждого дня периода возвращает оставшееся количество визитов (из
+ * {@link VisitService#DAILY_LIMIT}) и свободные часовые интервалы с
+ * {@link VisitService#OPENING_TIME} до {@link VisitService#LAST_START_TIME}.
+ * Все визиты периода читаются одним запросом по индексу (дата, время),
+ * сетка свободного времени строится в памяти.
+ * </p>
+ *
+ * <p><b>Правила расчёта:</b></p>
+ * <ul>
+ *     <li>Интервал свободен, если не пересекается ни с одним визитом дня
+ *         (визит длится 1 час, как в проверке {@link VisitService#book})</li>
+ *     <li>Если дневной лимит исчерпан, свободных интервалов нет</li>
+ *     <li>Дни после {@link VisitService#LAST_VISIT_DATE} закрыты для записи</li>
+ * </ul>
+ *
+ * <p><b>Кэширование:</b></p>
+ * <ul>
+ *     <li>Результат кэшируется в {@code visitAvailability} по паре дат и версии
+ *         визитов ({@link DataVersions}), как в кэше фрагментов списков</li>
+ *     <li>Версия визитов растёт после коммита изменения визита, а также удаления
+ *         владельца или животного, поэтому старые записи больше не выбираются
+ *         и вытесняются по размеру и времени жизни</li>
+ *     <li>Версия берётся до чтения из БД: если чтение началось до записи визита,
+ *         его результат попадает под старую версию и не может вытеснить новый</li>
+ * </ul>
+ */
+@Service
+public class VisitAvailabilityService {
+
+    public static final String VISIT_AVAILABILITY = "visitAvailability";
+
+    /**
+     * Максимальная длина запрашиваемого периода в днях.
+     */
+    public static final int MAX_DAYS = 93;
+
+    private static final int VISIT_MINUTES = 60;
+
+    private final VisitRepository visitRepository;
+    private final CacheManager cacheManager;
+    private final DataVersions dataVersions;
+
+    public VisitAvailabilityService(VisitRepository visitRepository, CacheManager cacheManager,
+                                    DataVersions dataVersions) {
+        this.visitRepository = visitRepository;
+        this.cacheManager = cacheManager;
+        this.dataVersions = dataVersions;
+    }
+
+    /**
+     * Возвращает свободное время по дням периода.
+     *
+     * @param from первая дата (включительно)
+     * @param to   последняя дата (включительно)
+     * @return по одному элементу на каждый день периода, в порядке дат
+     * @throws IllegalArgumentException если период пуст или длиннее {@link #MAX_DAYS} дней
+     */
+    public List<DayAvailability> findAvailability(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Дата окончания раньше даты начала");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+            throw new IllegalArgumentException("Период не должен превышать " + MAX_DAYS + " дней");
+        }
+
+        String key = String.join("|", dataVersions.current(Aggregate.VISITS).etag(), from.toString(), to.toString());
+        Cache cache = cacheManager.getCache(VISIT_AVAILABILITY);
+        if (cache == null) {
+            return load(from, to);
+        }
+        return cache.get(key, () -> load(from, to));
+    }
+
+    // Все визиты периода одним запросом и сетка свободного времени по дням
+    private List<DayAvailability> load(LocalDate from, LocalDate to) {
+        Map<LocalDate, List<LocalTime>> booked = new HashMap<>();
+        for (VisitSlot slot : visitRepository.findSlotsByDateBetween(from, to)) {
+            booked.computeIfAbsent(slot.date(), date -> new ArrayList<>()).add(slot.time());
+        }
+
+        List<DayAvailability> days = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            days.add(dayAvailability(date, booked.getOrDefault(date, List.of())));
+        }
+        return List.copyOf(days);
+    }
+
+    private static DayAvailability dayAvailability(LocalDate date, List<LocalTime> times) {
+        if (date.isAfter(VisitService.LAST_VISIT_DATE)) {
+            return new DayAvailability(date, 0, List.of());
+        }
+
+        int remaining = Math.max(0, VisitService.DAILY_LIMIT - times.size());
+        List<LocalTime> free = new ArrayList<>();
+        if (remaining > 0) {
+            for (LocalTime start = VisitService.OPENING_TIME;
+                 !start.isAfter(VisitService.LAST_START_TIME);
+                 start = start.plusMinutes(VISIT_MINUTES)) {
+                if (isFree(start, times)) {
+                    free.add(start);
+                }
+            }
+        }
+        return new DayAvailability(date, remaining, List.copyOf(free));
+    }
+
+    private static boolean isFree(LocalTime start, List<LocalTime> times) {
+        int minute = start.toSecondOfDay() / 60;
+        for (LocalTime time : times) {
+            // Визиты [s, s+60) и [m, m+60) пересекаются, если |s - m| < 60
+            if (Math.abs(time.toSecondOfDay() / 60 - minute) < VISIT_MINUTES) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -11,20 +11,34 @@
  * <p><b>Назначение сервиса:</b></p>
  * <ul>
  *     <li>Получение списка всех визитов</li>
+ *     <li>Постраничная выборка визитов</li>
+ *     <li>Выборка отдельных полей для REST API (см. {@link ProjectionRepository})</li>
  *     <li>Поиск визита по идентификатору</li>
  *     <li>Сохранение нового или обновлённого визита</li>
  *     <li>Удаление визита</li>
- *     <li>Проверка пересечения визитов по времени</li>
- *     <li>Подсчёт количества визитов на выбранную дату</li>
+ *     <li>Запись визита с проверкой пересечения по времени и лимита дня</li>
+ *     <li>Полнотекстовый поиск по диагнозу и лечению</li>
  * </ul>
  *
  * <p><b>Особенности реализации:</b></p>
  * <ul>
  *     <li>Визит считается длительностью 1 час</li>
- *     <li>Метод {@code hasOverlappingVisit()} вычисляет временной интервал
- *         и передаёт его в репозиторий для проверки пересечения</li>
- *     <li>Метод {@code countByDate()} используется для ограничения
- *         количества визитов в день (например, максимум 8)</li>
+ *     <li>Сохранение и удаление публикуют {@link VisitChangedEvent}; индекс
+ *         поиска применяет его после коммита</li>
+ *     <li>Метод {@code search()} ранжирует визиты по {@link VisitTextIndex} в памяти,
+ *         а из БД одним запросом читает только строки найденной страницы</li>
+ *     <li>Метод {@code book()} записывает визит атомарно: блокирует строку дня
+ *         {@link VisitDay} и повторяет проверки пересечения и лимита в БД под этой
+ *         блокировкой. Одновременные записи на один день выполняются по очереди,
+ *         на разные дни — параллельно</li>
+ *     <li>Метод {@code reschedule()} переносит визит одним условным UPDATE:
+ *         пересечение, лимит дня и запрет переноса назад проверяются в самом
+ *         операторе, под той же блокировкой дня; остальные поля визита не читаются
+ *         и не перезаписываются</li>
+ *     <li>Метод {@code lockDays()} берёт те же блокировки сразу для нескольких дней —
+ *         им пользуется пакетный импорт визитов</li>
+ *     <li>Время каждого публичного метода пишется в таймер {@code clinic.service}
+ *         (теги class и method), как и у OwnerService и PetService</li>
  * </ul>
  *
  * <p><b>Используется в случаях:</b></p>
@@ -37,51 +51,300 @@
  */
 
 package com.hfbe_Polina.web_project.services;
+import com.hfbe_Polina.web_project.api.FieldSelection;
+import com.hfbe_Polina.web_project.dto.VisitListItem;
+import com.hfbe_Polina.web_project.dto.VisitSearchPage;
+import com.hfbe_Polina.web_project.dto.VisitSlot;
+import com.hfbe_Polina.web_project.entities.Pet;
 import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.entities.VisitDay;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.KeysetPager;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.paging.SortKeys;
+import com.hfbe_Polina.web_project.repositories.ProjectionRepository;
+import com.hfbe_Polina.web_project.repositories.VisitDayRepository;
 import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.access.CachedDomainDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
 
 /**
  * Сервисный слой для работы с визитами животных.
  */
+@Timed("clinic.service")
 @Service
 public class VisitService {
 
+    /**
+     * Допустимые ключи сортировки списка визитов; дата сортируется вместе со временем.
+     */
+    private static final SortKeys SORT_KEYS = SortKeys.of(Visit.class, "id")
+            .with("date", "date", "time")
+            .with("diagnosis", "diagnosis");
+
+    /**
+     * Максимальное количество визитов в день.
+     */
+    public static final int DAILY_LIMIT = 8;
+
+    /**
+     * Самое раннее и самое позднее время начала визита.
+     */
+    public static final LocalTime OPENING_TIME = LocalTime.of(8, 0);
+    public static final LocalTime LAST_START_TIME = LocalTime.of(15, 0);
+
+    /**
+     * Последняя дата, на которую принимается запись.
+     */
+    public static final LocalDate LAST_VISIT_DATE = LocalDate.of(2026, 3, 12);
+
+    /**
+     * Размер страницы поиска по умолчанию и его верхняя граница.
+     */
+    private static final int SEARCH_PAGE_SIZE = 20;
+    private static final int SEARCH_MAX_PAGE_SIZE = 100;
+
     private final VisitRepository visitRepository;
+    private final VisitDayRepository visitDayRepository;
+    private final KeysetPager keysetPager;
+    private final ProjectionRepository projectionRepository;
+    private final VisitTextIndex textIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
-    public VisitService(VisitRepository visitRepository) {
+    public VisitService(VisitRepository visitRepository,
+                        VisitDayRepository visitDayRepository,
+                        KeysetPager keysetPager,
+                        ProjectionRepository projectionRepository,
+                        VisitTextIndex textIndex,
+                        ApplicationEventPublisher eventPublisher,
+                        EntityManager entityManager) {
         this.visitRepository = visitRepository;
+        this.visitDayRepository = visitDayRepository;
+        this.keysetPager = keysetPager;
+        this.projectionRepository = projectionRepository;
+        this.textIndex = textIndex;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
     }
 
+    @Transactional(readOnly = true)
     public List<Visit> findAll() {
         return visitRepository.findAll();
     }
 
+    // Строки списка вместе с именами животных — один SQL‑запрос на страницу
+    @Transactional(readOnly = true)
+    public KeysetPage<VisitListItem> findPage(PageQuery query) {
+        return keysetPager.fetch(query, SORT_KEYS, visitRepository::findListItemsBy);
+    }
+
+    // Страница для REST API: в SELECT только запрошенные поля
+    @Transactional(readOnly = true)
+    public KeysetPage<Map<String, Object>> findFieldsPage(PageQuery query, FieldSelection fields) {
+        return keysetPager.fetch(query, SORT_KEYS,
+                (position, sort, limit) -> projectionRepository.scroll(fields, position, sort, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFields(Long id, FieldSelection fields) {
+        return projectionRepository.findById(fields, id);
+    }
+
+    /**
+     * Ищет визиты по словам диагноза и лечения.
+     *
+     * @param text слова запроса; пустой запрос ничего не находит
+     * @param from первая дата периода или {@code null}
+     * @param to   последняя дата периода или {@code null}
+     * @param page номер страницы с нуля
+     * @param size размер страницы (по умолчанию 20, не больше 100)
+     * @return страница найденных визитов по убыванию ранга
+     * @throws IllegalArgumentException если период задан в обратном порядке
+     */
+    @Transactional(readOnly = true)
+    public VisitSearchPage search(String text, LocalDate from, LocalDate to, Integer page, Integer size) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Начало периода позже его конца");
+        }
+        int pageSize = size == null || size < 1 ? SEARCH_PAGE_SIZE : Math.min(size, SEARCH_MAX_PAGE_SIZE);
+        int pageNumber = page == null || page < 0 ? 0 : Math.min(page, (VisitTextIndex.MAX_WINDOW - 1) / pageSize);
+
+        VisitTextIndex.Hits hits = textIndex.search(text, from, to, pageNumber * pageSize, pageSize);
+        if (hits.ids().isEmpty()) {
+            return new VisitSearchPage(List.of(), pageNumber, pageSize, hits.total());
+        }
+        // Строки приходят в порядке БД — возвращаем порядок ранга
+        Map<Long, VisitListItem> rows = new HashMap<>();
+        visitRepository.findListItemsByIdIn(hits.ids()).forEach(row -> rows.put(row.id(), row));
+        List<VisitListItem> content = hits.ids().stream().map(rows::get).filter(Objects::nonNull).toList();
+        return new VisitSearchPage(content, pageNumber, pageSize, hits.total());
+    }
+
     public Visit findById(Long id) {
         return visitRepository.findById(id).orElse(null);
     }
 
+    @Transactional
     public void save(Visit visit) {
-        visitRepository.save(visit);
+        Visit saved = visitRepository.save(visit);
+        eventPublisher.publishEvent(
+                new VisitChangedEvent(saved.getId(), saved.getPet() == null ? null : saved.getPet().getId(),
+                        saved.getDate(), saved.getTime(), saved.getDiagnosis(), saved.getTreatment(), ChangeType.SAVED));
     }
 
-    public void delete(Long id) {
-        visitRepository.deleteById(id);
+    /**
+     * Атомарно записывает новый визит или переносит существующий.
+     *
+     * <p>Пересечение и лимит дня проверяются в БД под блокировкой строки дня, поэтому
+     * результат окончательный: учтены и одновременные записи, и визиты, записанные
+     * другим экземпляром приложения, импортом или SQL в обход приложения.</p>
+     *
+     * <p>Время визита должно быть уже проверено на интервал 08:00–15:00.</p>
+     *
+     * @param visit новый визит или визит с идентификатором для переноса
+     * @return результат записи
+     */
+    @Transactional
+    public BookingResult book(Visit visit) {
+        LocalDate date = visit.getDate();
+        LocalTime time = visit.getTime();
+
+        lockDay(date);
+
+        if (visitRepository.hasOverlappingVisit(date, time.minusHours(1), time.plusHours(1), visit.getId())) {
+            return BookingResult.OVERLAP;
+        }
+        if (visitRepository.countByDateExcluding(date, visit.getId()) >= DAILY_LIMIT) {
+            return BookingResult.DAILY_LIMIT;
+        }
+
+        save(visit);
+        return BookingResult.BOOKED;
     }
 
-    public boolean hasOverlappingVisit(LocalDate date, LocalTime time) {
-        LocalTime newStart = time;
-        LocalTime newEnd = time.plusHours(1);
-        return visitRepository.hasOverlappingVisit(date, newStart, newEnd);
+    /**
+     * Атомарно переносит визит на другие дату и время.
+     *
+     * <p>Блокирует строку нового дня, как {@link #book}, и выполняет один условный
+     * UPDATE ({@link VisitRepository#reschedule}), в котором проверены версия визита,
+     * пересечение, лимит дня и запрет переноса на более раннюю дату. Визит не загружается,
+     * животное, диагноз и лечение не перезаписываются. Только если UPDATE не изменил
+     * строку, причина отказа уточняется дополнительными запросами.</p>
+     *
+     * <p>В кэше второго уровня до конца транзакции блокируются только запись этого
+     * визита и коллекция визитов его животного; остальные визиты остаются в кэше.</p>
+     *
+     * <p>Время должно быть уже проверено на интервал 08:00–15:00.</p>
+     *
+     * @param id      идентификатор визита
+     * @param petId   животное визита из формы; сверяется в том же UPDATE
+     * @param version версия визита, открытая в форме
+     * @param date    новая дата
+     * @param time    новое время
+     * @return результат переноса; {@code STALE}, если версия или животное не совпали
+     */
+    @Transactional
+    public BookingResult reschedule(Long id, Long petId, Long version, LocalDate date, LocalTime time) {
+        lockDay(date);
+
+        if (visitRepository.reschedule(id, petId, version, date, time, time.minusHours(1), time.plusHours(1), DAILY_LIMIT) == 1) {
+            lockCached(id, petId);
+            eventPublisher.publishEvent(new VisitChangedEvent(id, null, date, time, null, null, ChangeType.RESCHEDULED));
+            return BookingResult.BOOKED;
+        }
+
+        // Строка не изменилась — выясняем, какое условие не выполнено
+        Visit current = visitRepository.findById(id).orElse(null);
+        if (current == null) {
+            return BookingResult.MISSING;
+        }
+        if (!current.getVersion().equals(version)
+                || current.getPet() == null || !current.getPet().getId().equals(petId)) {
+            return BookingResult.STALE;
+        }
+        if (current.getDate().isAfter(date)) {
+            return BookingResult.EARLIER_DATE;
+        }
+        if (visitRepository.hasOverlappingVisit(date, time.minusHours(1), time.plusHours(1), id)) {
+            return BookingResult.OVERLAP;
+        }
+        return BookingResult.DAILY_LIMIT;
     }
 
+    /**
+     * Блокирует строки нескольких дней и возвращает уже записанные на них визиты.
+     *
+     * <p>Дни блокируются по возрастанию даты, поэтому два пакета с пересекающимися
+     * днями не блокируют друг друга навсегда. Блокировки держатся до конца
+     * текущей транзакции — вызывающий проверяет и сохраняет визиты в ней же.</p>
+     *
+     * @param dates даты визитов пакета
+     * @return занятые интервалы на эти даты
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<VisitSlot> lockDays(Collection<LocalDate> dates) {
+        TreeSet<LocalDate> ordered = new TreeSet<>(dates);
+        ordered.forEach(this::lockDay);
+        return visitRepository.findSlotsByDateIn(ordered);
+    }
 
-    public int countByDate(LocalDate date) {
-        return visitRepository.countByDate(date);
+    // Нативный UPDATE обходит кэш второго уровня: без мягкой блокировки кэш отдавал бы старый визит и его коллекцию
+    private void lockCached(Long id, Long petId) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        SessionFactoryImplementor factory = session.getFactory();
+        EntityPersister visits = factory.getMappingMetamodel().getEntityDescriptor(Visit.class);
+        if (visits.canWriteToCache()) {
+            lockUntilCompletion(session, visits.getCacheAccessStrategy(),
+                    visits.getCacheAccessStrategy().generateCacheKey(id, visits, factory, null));
+        }
+        CollectionPersister petVisits = factory.getMappingMetamodel()
+                .getCollectionDescriptor(Pet.class.getName() + ".visits");
+        if (petVisits.hasCache()) {
+            lockUntilCompletion(session, petVisits.getCacheAccessStrategy(),
+                    petVisits.getCacheAccessStrategy().generateCacheKey(petId, petVisits, factory, null));
+        }
+    }
+
+    private static void lockUntilCompletion(SessionImplementor session, CachedDomainDataAccess access, Object key) {
+        SoftLock lock = access.lockItem(session, key, null);
+        session.getActionQueue().registerProcess((success, s) -> access.unlockItem(s, key, lock));
+    }
+
+    // Блокировка строки дня; строка создаётся при первой записи на эту дату
+    private void lockDay(LocalDate date) {
+        if (visitDayRepository.lockByDate(date).isEmpty()) {
+            visitDayRepository.insertIfAbsent(date);
+            visitDayRepository.lockByDate(date);
+        }
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        visitRepository.deleteById(id);
+        eventPublisher.publishEvent(new VisitChangedEvent(id, null, null, null, null, null, ChangeType.DELETED));
     }
 }
 
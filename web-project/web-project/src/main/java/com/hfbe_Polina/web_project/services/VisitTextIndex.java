@@ -0,0 +1,496 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.dto.VisitText;
+import com.hfbe_Polina.web_project.events.ChangeType;
+import com.hfbe_Polina.web_project.events.VisitChangedEvent;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Полнотекстовый поиск по диагнозу и лечению визитов (обратный индекс в памяти).
+ *
+ * <p>
+ * Текст разбивается на слова, и для каждого слова хранится список визитов, в которых
+ * оно встречается, вместе с весом слова в визите. Запрос «дерматит уши» — это
+ * пересечение списков двух слов; найденные визиты ранжируются по BM25, как
+ * в поисковых системах: редкие слова весят больше частых, короткие записи — больше
+ * длинных, а слово в диагнозе — вдвое больше, чем в лечении.
+ * </p>
+ *
+ * <p><b>Правила поиска:</b></p>
+ * <ul>
+ *     <li>Без учёта регистра, «ё» равно «е»; слова короче двух символов не учитываются</li>
+ *     <li>Визит должен содержать все слова запроса</li>
+ *     <li>Слово запроса от трёх символов ищется и как начало слова: «дерматит» найдёт
+ *         «дерматита» и «дерматитом» (до {@value #MAX_EXPANSIONS} вариантов); точное
+ *         совпадение ранжируется выше</li>
+ *     <li>Необязательный период дат отсекает визиты при обходе списков</li>
+ *     <li>Страницы берутся из первых {@value #MAX_WINDOW} результатов по рангу</li>
+ * </ul>
+ *
+ * <p><b>Согласованность с БД:</b> индекс
+ * заполняется при старте и обновляется после коммита из {@link VisitChangedEvent},
+ * в том числе для каждого визита, удалённого вместе с владельцем.</p>
+ *
+ * <p><b>Устройство:</b> визиты нумеруются по порядку добавления, поэтому новые
+ * номера всегда дописываются в конец списков и те остаются отсортированными.
+ * Изменённый визит получает новый номер, старый помечается удалённым и пропускается
+ * при поиске; когда удалённых больше половины, списки пересобираются без них.
+ * Поиск идёт под блокировкой чтения, изменения — под блокировкой записи.</p>
+ *
+ * <p>Память — порядка 100 байт на визит при обычных коротких диагнозах.</p>
+ */
+@Component
+public class VisitTextIndex {
+
+    /**
+     * Сколько лучших результатов доступно для постраничного просмотра.
+     */
+    public static final int MAX_WINDOW = 1000;
+
+    /**
+     * Сколько слов индекса может подставиться вместо начала слова запроса.
+     */
+    public static final int MAX_EXPANSIONS = 64;
+
+    private static final int MIN_TOKEN = 2;
+    private static final int MIN_PREFIX = 3;
+    private static final float DIAGNOSIS_WEIGHT = 2f;
+    private static final float TREATMENT_WEIGHT = 1f;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final VisitRepository visitRepository;
+    private final TransactionTemplate readTransaction;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Заменяется и изменяется под lock.writeLock()
+    private Corpus corpus = new Corpus();
+
+    public VisitTextIndex(VisitRepository visitRepository, PlatformTransactionManager transactionManager) {
+        this.visitRepository = visitRepository;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Полностью перечитывает индекс из БД.
+     *
+     * <p>Новый индекс строится рядом со старым, поиск в это время продолжает
+     * работать по старому.</p>
+     */
+    @PostConstruct
+    public synchronized void reload() {
+        Corpus loaded = readTransaction.execute(status -> {
+            Corpus newCorpus = new Corpus();
+            try (Stream<VisitText> texts = visitRepository.streamTextsBy()) {
+                texts.forEach(newCorpus::add);
+            }
+            return newCorpus;
+        });
+
+        lock.writeLock().lock();
+        try {
+            corpus = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет визиты, в диагнозе или лечении которых есть все слова запроса.
+     *
+     * @param query  слова запроса
+     * @param from   первая дата периода или {@code null}
+     * @param to     последняя дата периода или {@code null}
+     * @param offset сколько лучших результатов пропустить
+     * @param limit  сколько результатов вернуть
+     * @return идентификаторы визитов по убыванию ранга и общее число найденных
+     */
+    public Hits search(String query, LocalDate from, LocalDate to, int offset, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokens(query));
+        int window = Math.min(offset + limit, MAX_WINDOW);
+        if (words.isEmpty() || offset >= window) {
+            return Hits.NONE;
+        }
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+
+        lock.readLock().lock();
+        try {
+            Corpus c = corpus;
+            Matches found = null;
+            for (String word : words) {
+                Matches matches = c.match(word, fromDay, toDay);
+                found = found == null ? matches : found.intersect(matches);
+                if (found.size == 0) {
+                    return Hits.NONE;
+                }
+            }
+            return new Hits(c.top(found, offset, window), found.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onVisitChanged(VisitChangedEvent event) {
+        if (event.type() == ChangeType.DELETED) {
+            remove(event.visitId());
+        } else if (event.type() == ChangeType.RESCHEDULED) {
+            move(event.visitId(), event.date());
+        } else {
+            put(new VisitText(event.visitId(), event.date(), event.diagnosis(), event.treatment()));
+        }
+    }
+
+    private synchronized void put(VisitText visit) {
+        lock.writeLock().lock();
+        try {
+            corpus.remove(visit.id());
+            corpus.add(visit);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            corpus.remove(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Перенос меняет только дату: текст и номер визита остаются прежними
+    private synchronized void move(Long id, LocalDate date) {
+        lock.writeLock().lock();
+        try {
+            corpus.move(id, date);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfSparse() {
+        if (corpus.deleted > 1024 && corpus.deleted * 2 > corpus.docCount) {
+            corpus = corpus.compact();
+        }
+    }
+
+    // Слова текста: без регистра, «ё» как «е», без знаков препинания
+    static List<String> tokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(text.toLowerCase(Locale.ROOT).replace('ё', 'е'))) {
+            if (token.length() >= MIN_TOKEN) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Результат поиска.
+     *
+     * @param ids   идентификаторы визитов запрошенной страницы по убыванию ранга
+     * @param total сколько всего визитов подходит под запрос
+     */
+    public record Hits(List<Long> ids, int total) {
+
+        static final Hits NONE = new Hits(List.of(), 0);
+    }
+
+    /**
+     * Все визиты индекса: номера визитов, их даты и длины, списки слов.
+     */
+    private static final class Corpus {
+
+        private long[] ids = new long[1024];
+        private int[] days = new int[1024];
+        private float[] lengths = new float[1024];
+        private int docCount;
+        private int deleted;
+        private double totalLength;
+        private final Map<Long, Integer> docById = new HashMap<>();
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+
+        void add(VisitText visit) {
+            Map<String, Float> weights = new LinkedHashMap<>();
+            tokens(visit.diagnosis()).forEach(t -> weights.merge(t, DIAGNOSIS_WEIGHT, Float::sum));
+            tokens(visit.treatment()).forEach(t -> weights.merge(t, TREATMENT_WEIGHT, Float::sum));
+
+            int doc = docCount++;
+            if (doc == ids.length) {
+                ids = Arrays.copyOf(ids, doc * 2);
+                days = Arrays.copyOf(days, doc * 2);
+                lengths = Arrays.copyOf(lengths, doc * 2);
+            }
+            float length = 0;
+            for (Map.Entry<String, Float> weight : weights.entrySet()) {
+                terms.computeIfAbsent(weight.getKey(), t -> new Postings()).add(doc, weight.getValue());
+                length += weight.getValue();
+            }
+            ids[doc] = visit.id();
+            days[doc] = visit.date() == null ? Integer.MIN_VALUE : (int) visit.date().toEpochDay();
+            lengths[doc] = length;
+            totalLength += length;
+            docById.put(visit.id(), doc);
+        }
+
+        void move(Long id, LocalDate date) {
+            Integer doc = docById.get(id);
+            if (doc != null) {
+                days[doc] = (int) date.toEpochDay();
+            }
+        }
+
+        // Номер остаётся в списках слов, но пропускается при поиске
+        void remove(Long id) {
+            Integer doc = docById.remove(id);
+            if (doc != null) {
+                ids[doc] = 0;
+                totalLength -= lengths[doc];
+                deleted++;
+            }
+        }
+
+        // Визиты со словом или его продолжениями, с весами BM25
+        Matches match(String word, int fromDay, int toDay) {
+            Map<String, Postings> candidates = word.length() < MIN_PREFIX
+                    ? (terms.containsKey(word) ? Map.of(word, terms.get(word)) : Map.of())
+                    : terms.subMap(word, true, word + Character.MAX_VALUE, false);
+
+            List<Map.Entry<String, Postings>> expansions = candidates.entrySet().stream()
+                    .limit(MAX_EXPANSIONS)
+                    .toList();
+            // Редкость считается для слова запроса целиком, а не для каждого варианта:
+            // иначе редкая словоформа обгоняла бы точное совпадение
+            int frequency = 0;
+            for (Map.Entry<String, Postings> term : expansions) {
+                frequency += term.getValue().size;
+            }
+            int live = docCount - deleted;
+            float averageLength = live == 0 ? 1 : (float) (totalLength / live);
+            float idf = (float) Math.log(1 + Math.max(0, live - frequency + 0.5) / (frequency + 0.5));
+
+            Matches matches = Matches.EMPTY;
+            for (Map.Entry<String, Postings> term : expansions) {
+                float boost = term.getKey().equals(word) ? idf : idf * PREFIX_WEIGHT;
+                matches = matches.union(score(term.getValue(), boost, averageLength, fromDay, toDay));
+            }
+            return matches;
+        }
+
+        private Matches score(Postings postings, float boost, float averageLength, int fromDay, int toDay) {
+            int[] docs = new int[postings.size];
+            float[] scores = new float[postings.size];
+            int n = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.docs[i];
+                if (ids[doc] == 0 || days[doc] < fromDay || days[doc] > toDay) {
+                    continue;
+                }
+                float tf = postings.weights[i];
+                docs[n] = doc;
+                scores[n++] = boost * tf * (K1 + 1) / (tf + K1 * (1 - B + B * lengths[doc] / averageLength));
+            }
+            return new Matches(docs, scores, n);
+        }
+
+        // Идентификаторы лучших результатов [offset, window); при равном ранге новее — выше
+        List<Long> top(Matches found, int offset, int window) {
+            // Куча позиций лучших результатов, в корне — худший из них. Обход от новых
+            // визитов к старым: визит с тем же рангом, что у корня, старше и не нужен
+            int[] heap = new int[Math.min(window, found.size)];
+            int size = 0;
+            for (int i = found.size - 1; i >= 0; i--) {
+                if (size < heap.length) {
+                    heap[size] = i;
+                    siftUp(found, heap, size++);
+                } else if (found.scores[i] > found.scores[heap[0]]) {
+                    heap[0] = i;
+                    siftDown(found, heap, size);
+                }
+            }
+            Long[] ranked = new Long[size];
+            for (int n = size - 1; n >= 0; n--) {
+                ranked[n] = ids[found.docs[heap[0]]];
+                heap[0] = heap[n];
+                siftDown(found, heap, n);
+            }
+            return offset >= ranked.length ? List.of() : List.of(ranked).subList(offset, ranked.length);
+        }
+
+        private static void siftUp(Matches found, int[] heap, int k) {
+            while (k > 0) {
+                int parent = (k - 1) / 2;
+                if (!found.worse(heap[k], heap[parent])) {
+                    return;
+                }
+                swap(heap, k, parent);
+                k = parent;
+            }
+        }
+
+        private static void siftDown(Matches found, int[] heap, int size) {
+            int k = 0;
+            while (2 * k + 1 < size) {
+                int child = 2 * k + 1;
+                if (child + 1 < size && found.worse(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!found.worse(heap[child], heap[k])) {
+                    return;
+                }
+                swap(heap, k, child);
+                k = child;
+            }
+        }
+
+        private static void swap(int[] heap, int a, int b) {
+            int t = heap[a];
+            heap[a] = heap[b];
+            heap[b] = t;
+        }
+
+        // Тот же индекс без удалённых номеров
+        Corpus compact() {
+            Corpus compacted = new Corpus();
+            int[] renumbered = new int[docCount];
+            for (int doc = 0; doc < docCount; doc++) {
+                if (ids[doc] == 0) {
+                    renumbered[doc] = -1;
+                    continue;
+                }
+                int newDoc = compacted.docCount++;
+                if (newDoc == compacted.ids.length) {
+                    compacted.ids = Arrays.copyOf(compacted.ids, newDoc * 2);
+                    compacted.days = Arrays.copyOf(compacted.days, newDoc * 2);
+                    compacted.lengths = Arrays.copyOf(compacted.lengths, newDoc * 2);
+                }
+                compacted.ids[newDoc] = ids[doc];
+                compacted.days[newDoc] = days[doc];
+                compacted.lengths[newDoc] = lengths[doc];
+                compacted.docById.put(ids[doc], newDoc);
+                renumbered[doc] = newDoc;
+            }
+            compacted.totalLength = totalLength;
+            terms.forEach((term, postings) -> {
+                Postings kept = new Postings();
+                for (int i = 0; i < postings.size; i++) {
+                    int newDoc = renumbered[postings.docs[i]];
+                    if (newDoc >= 0) {
+                        kept.add(newDoc, postings.weights[i]);
+                    }
+                }
+                if (kept.size > 0) {
+                    compacted.terms.put(term, kept);
+                }
+            });
+            return compacted;
+        }
+    }
+
+    /**
+     * Номера визитов со словом по возрастанию и вес слова в каждом из них.
+     */
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int doc, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size++] = weight;
+        }
+    }
+
+    /**
+     * Найденные визиты по возрастанию номера и их ранги.
+     */
+    private record Matches(int[] docs, float[] scores, int size) {
+
+        static final Matches EMPTY = new Matches(new int[0], new float[0], 0);
+
+        // Ранг ниже; при равном ранге ниже более старый визит
+        boolean worse(int a, int b) {
+            return scores[a] < scores[b] || (scores[a] == scores[b] && docs[a] < docs[b]);
+        }
+
+        // Визит с несколькими вариантами одного слова получает лучший из рангов
+        Matches union(Matches other) {
+            if (size == 0) {
+                return other;
+            }
+            int[] mergedDocs = new int[size + other.size];
+            float[] mergedScores = new float[size + other.size];
+            int i = 0, j = 0, n = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || (i < size && docs[i] < other.docs[j])) {
+                    mergedDocs[n] = docs[i];
+                    mergedScores[n++] = scores[i++];
+                } else if (i == size || other.docs[j] < docs[i]) {
+                    mergedDocs[n] = other.docs[j];
+                    mergedScores[n++] = other.scores[j++];
+                } else {
+                    mergedDocs[n] = docs[i];
+                    mergedScores[n++] = Math.max(scores[i++], other.scores[j++]);
+                }
+            }
+            return new Matches(mergedDocs, mergedScores, n);
+        }
+
+        // Визиты с обоими словами; ранги складываются
+        Matches intersect(Matches other) {
+            int[] commonDocs = new int[Math.min(size, other.size)];
+            float[] commonScores = new float[commonDocs.length];
+            int i = 0, j = 0, n = 0;
+            while (i < size && j < other.size) {
+                if (docs[i] < other.docs[j]) {
+                    i++;
+                } else if (other.docs[j] < docs[i]) {
+                    j++;
+                } else {
+                    commonDocs[n] = docs[i];
+                    commonScores[n++] = scores[i++] + other.scores[j++];
+                }
+            }
+            return new Matches(commonDocs, commonScores, n);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Подсказки владельца в форме животного.
+ *
+ * <p>
+ * Поле с атрибутом data-owner-search запрашивает подсказки по мере ввода
+ * (не чаще раза в 200 мс) и показывает их в связанном datalist.
+ * Когда текст совпадает с одной из подсказок, её id записывается в скрытое
+ * поле owner.id той же формы; любой другой текст это поле очищает, и сервер
+ * отклонит форму без выбранного владельца.
+ * </p>
+ */
+(function () {
+    'use strict';
+
+    var DELAY_MS = 200;
+
+    function label(owner) {
+        return owner.name + ' — ' + owner.email;
+    }
+
+    document.querySelectorAll('input[data-owner-search]').forEach(function (input) {
+        var list = document.getElementById(input.getAttribute('list'));
+        var ownerId = input.form.querySelector('input[name="owner.id"]');
+        var url = input.getAttribute('data-owner-search');
+        var byLabel = {};
+        var timer = null;
+        var request = null;
+
+        function select() {
+            var owner = byLabel[input.value];
+            ownerId.value = owner ? owner.id : '';
+        }
+
+        function show(owners) {
+            byLabel = {};
+            list.replaceChildren();
+            owners.forEach(function (owner) {
+                var option = document.createElement('option');
+                option.value = label(owner);
+                option.textContent = owner.phone;
+                byLabel[option.value] = owner;
+                list.appendChild(option);
+            });
+            select();
+        }
+
+        function load() {
+            var query = input.value.trim();
+            if (query === '' || byLabel[input.value]) {
+                return;
+            }
+            if (request) {
+                request.abort();
+            }
+            request = new AbortController();
+            fetch(url + '?q=' + encodeURIComponent(query), {signal: request.signal})
+                .then(function (response) { return response.ok ? response.json() : []; })
+                .then(show)
+                .catch(function (e) {
+                    if (e.name !== 'AbortError') {
+                        show([]);
+                    }
+                });
+        }
+
+        input.addEventListener('input', function () {
+            select();
+            clearTimeout(timer);
+            timer = setTimeout(load, DELAY_MS);
+        });
+    });
+})();
@@ -0,0 +1,162 @@
+package com.hfbe_Polina.web_project.config;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.services.OwnerService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Маршрутизация чтения между основной БД и репликой.
+ *
+ * <p>
+ * Вместо пары PostgreSQL используются две независимые БД H2 в памяти. Перед каждым
+ * тестом реплика становится копией основной БД (схема и данные), после чего строки,
+ * вставленные только в основную БД, играют роль ещё не доехавших до реплики.
+ * Отставание задаётся таблицей {@code replica_lag} на реплике. Кэш второго уровня
+ * очищается перед чтениями: строки меняются в обход Hibernate, а проверяется,
+ * из какой БД они прочитаны. Проверка отставания запускается из тестов вручную.
+ * </p>
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.datasource.replica.jdbc-url=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "app.datasource.replica.lag-query=SELECT MAX(seconds) FROM replica_lag",
+        "app.datasource.replica.lag-check-interval=1h",
+        "app.datasource.replica.max-lag=5s"
+})
+class ReplicaRoutingTest {
+
+    private static final long UNREPLICATED_ID = 1_000_000L;
+
+    @Autowired
+    private OwnerService ownerService;
+
+    @Autowired
+    private ReplicaLagMonitor monitor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void replicateAndInsertUnreplicatedOwner() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+
+        replica.execute("DROP ALL OBJECTS");
+        primary.queryForList("SCRIPT", String.class).forEach(replica::execute);
+        replica.execute("CREATE TABLE replica_lag (seconds DOUBLE PRECISION)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        monitor.check();
+        evictSecondLevelCache();
+
+        primary.update("INSERT INTO owners (id, name, email, phone) VALUES (?, ?, ?, ?)",
+                UNREPLICATED_ID, "Владелец", "unreplicated@replica.test", "89990000000");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        primary.update("DELETE FROM owners WHERE email LIKE '%@replica.test'");
+    }
+
+    @Test
+    void readOnlyCallsAreServedByReplica() {
+        assertNull(ownerService.findById(UNREPLICATED_ID));
+        assertEquals(0, ownerService.findAll().stream().filter(o -> o.getId() == UNREPLICATED_ID).count());
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() {
+        replica.update("UPDATE replica_lag SET seconds = 60");
+        monitor.check();
+
+        assertNotNull(ownerService.findById(UNREPLICATED_ID));
+    }
+
+    @Test
+    void readsGoToPrimaryUntilReplicaCatchesUpWithWrite() throws InterruptedException {
+        Owner owner = owner("written@replica.test", "89990000001");
+        ownerService.save(owner);
+
+        evictSecondLevelCache();
+        assertNotNull(ownerService.findById(owner.getId()));
+
+        // Проверка, начатая после коммита, подтверждает, что реплика его догнала
+        Thread.sleep(5);
+        monitor.check();
+        evictSecondLevelCache();
+        assertNull(ownerService.findById(owner.getId()));
+    }
+
+    @Test
+    void replicaWithinMaxLagIsNotReadAfterNewerWrite() throws Exception {
+        Owner owner = owner("lagging@replica.test", "89990000003");
+        ownerService.save(owner);
+        // Реплика в пределах max-lag, но отстаёт больше, чем прошло с коммита
+        replica.update("UPDATE replica_lag SET seconds = 3");
+        monitor.check();
+
+        assertTrue(monitor.available());
+        evictSecondLevelCache();
+        // Чтение другого пользователя заполнило бы кэши старыми данными
+        assertNotNull(CompletableFuture.supplyAsync(() -> ownerService.findById(owner.getId())).get());
+    }
+
+    @Test
+    void writeAfterReadInSameEntityManagerGoesToPrimary() {
+        // Как при open-in-view: один EntityManager на весь HTTP-запрос
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            ownerService.findAll();
+            ownerService.save(owner("osiv@replica.test", "89990000002"));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        String count = "SELECT COUNT(*) FROM owners WHERE email = 'osiv@replica.test'";
+        assertEquals(1, primary.queryForObject(count, Integer.class));
+        assertEquals(0, replica.queryForObject(count, Integer.class));
+    }
+
+    private void evictSecondLevelCache() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+    }
+
+    private static Owner owner(String email, String phone) {
+        Owner owner = new Owner();
+        owner.setName("Владелец");
+        owner.setEmail(email);
+        owner.setPhone(phone);
+        return owner;
+    }
+}
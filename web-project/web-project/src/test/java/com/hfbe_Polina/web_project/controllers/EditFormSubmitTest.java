@@ -0,0 +1,185 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.util.HtmlUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Отправка форм редактирования.
+ *
+ * <p>
+ * Формы отправляются так же, как их отправляет браузер: поля берутся из
+ * отрисованной страницы, включая скрытые и доступные только для чтения, и
+ * меняются только те, что правит пользователь. Пропавшее из шаблона обязательное
+ * поле ломает тест так же, как сохранение в браузере.
+ * </p>
+ *
+ * <p>
+ * Конфликт правки проверяется полностью: устаревшая или пропавшая версия
+ * показывает страницу конфликта, а отправка её формы слияния сохраняет
+ * значения пользователя.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EditFormSubmitTest {
+
+    private static final Pattern FORM_ACTION = Pattern.compile("<form[^>]*action=\"([^\"]*)\"");
+    private static final Pattern INPUT = Pattern.compile("<input([^>]*)>");
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w-]+)(?:=\"([^\"]*)\")?");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    private Owner owner;
+    private Pet pet;
+
+    @BeforeEach
+    void seed() {
+        owner = new Owner();
+        owner.setName("Владелец");
+        owner.setEmail("owner@edit.test");
+        owner.setPhone("89995550000");
+        ownerRepository.save(owner);
+
+        pet = new Pet();
+        pet.setName("Барсик");
+        pet.setSpecies("Кошка");
+        pet.setBreed("Сиамская");
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        pet.setPassportNumber("5550000000");
+        pet.setOwner(owner);
+        petRepository.save(pet);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ownerRepository.deleteById(owner.getId());
+    }
+
+    @Test
+    void petEditSavesName() throws Exception {
+        mockMvc.perform(submit(page("/pets/edit/" + pet.getId()), Map.of("name", "Мурзик")))
+                .andExpect(redirectedUrl("/pets"));
+
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getName()).isEqualTo("Мурзик");
+    }
+
+    @Test
+    void petEditOfUnknownPetIsNotFound() throws Exception {
+        String form = page("/pets/edit/" + pet.getId()).replace("/pets/edit/" + pet.getId(), "/pets/edit/-1");
+        mockMvc.perform(submit(form, Map.of())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void staleOwnerFormShowsConflictAndMergeSaves() throws Exception {
+        String staleForm = page("/owners/edit/" + owner.getId());
+        mockMvc.perform(submit(page("/owners/edit/" + owner.getId()), Map.of("name", "Первый")))
+                .andExpect(redirectedUrl("/owners"));
+
+        String conflictPage = conflict(submit(staleForm, Map.of("name", "Второй")));
+        assertThat(ownerRepository.findById(owner.getId()).orElseThrow().getName()).isEqualTo("Первый");
+
+        mockMvc.perform(submit(conflictPage, Map.of())).andExpect(redirectedUrl("/owners"));
+        assertThat(ownerRepository.findById(owner.getId()).orElseThrow().getName()).isEqualTo("Второй");
+    }
+
+    @Test
+    void ownerFormWithoutVersionShowsConflict() throws Exception {
+        String conflictPage = conflict(submit(page("/owners/edit/" + owner.getId()),
+                Map.of("name", "Второй", "version", "")));
+
+        mockMvc.perform(submit(conflictPage, Map.of())).andExpect(redirectedUrl("/owners"));
+        assertThat(ownerRepository.findById(owner.getId()).orElseThrow().getName()).isEqualTo("Второй");
+    }
+
+    @Test
+    void stalePetFormShowsConflictAndMergeSaves() throws Exception {
+        String staleForm = page("/pets/edit/" + pet.getId());
+        mockMvc.perform(submit(page("/pets/edit/" + pet.getId()), Map.of("name", "Первый")))
+                .andExpect(redirectedUrl("/pets"));
+
+        String conflictPage = conflict(submit(staleForm, Map.of("name", "Второй")));
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getName()).isEqualTo("Первый");
+
+        mockMvc.perform(submit(conflictPage, Map.of())).andExpect(redirectedUrl("/pets"));
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getName()).isEqualTo("Второй");
+    }
+
+    @Test
+    void petFormWithoutVersionShowsConflict() throws Exception {
+        String conflictPage = conflict(submit(page("/pets/edit/" + pet.getId()),
+                Map.of("name", "Второй", "version", "")));
+
+        mockMvc.perform(submit(conflictPage, Map.of())).andExpect(redirectedUrl("/pets"));
+        assertThat(petRepository.findById(pet.getId()).orElseThrow().getName()).isEqualTo("Второй");
+    }
+
+    // Отправка, которая должна показать страницу конфликта; возвращает её HTML
+    private String conflict(MockHttpServletRequestBuilder request) throws Exception {
+        return mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("conflict"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    // HTML страницы с формой
+    private String page(String url) throws Exception {
+        return mockMvc.perform(get(url)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    // Первая форма страницы, как её отправит браузер: поля ввода с именем, кроме
+    // отключённых и неотмеченных радиокнопок; changes заменяет значения полей
+    private static MockHttpServletRequestBuilder submit(String html, Map<String, String> changes) {
+        Matcher action = FORM_ACTION.matcher(html);
+        assertThat(action.find()).as("форма на странице").isTrue();
+        Map<String, String> fields = new LinkedHashMap<>();
+        Matcher input = INPUT.matcher(html.substring(action.start(), html.indexOf("</form>", action.start())));
+        while (input.find()) {
+            Map<String, String> attributes = new LinkedHashMap<>();
+            Matcher attribute = ATTRIBUTE.matcher(input.group(1));
+            while (attribute.find()) {
+                attributes.put(attribute.group(1), attribute.group(2) == null ? "" : HtmlUtils.htmlUnescape(attribute.group(2)));
+            }
+            boolean unchecked = "radio".equals(attributes.get("type")) && !attributes.containsKey("checked");
+            if (attributes.containsKey("name") && !attributes.containsKey("disabled") && !unchecked) {
+                fields.put(attributes.get("name"), attributes.getOrDefault("value", ""));
+            }
+        }
+        fields.putAll(changes);
+        MockHttpServletRequestBuilder request = post(HtmlUtils.htmlUnescape(action.group(1)));
+        fields.forEach(request::param);
+        return request;
+    }
+}
@@ -0,0 +1,301 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.dto.ClinicStats;
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.monitoring.SqlStatementCounter;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.ClinicStatistics;
+import com.hfbe_Polina.web_project.services.OwnerSearchIndex;
+import com.hfbe_Polina.web_project.services.VisitTextIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hfbe_Polina.web_project.monitoring.SqlStatementAssertions.assertStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL‑запросов на страницах и маршрутах API.
+ *
+ * <p>
+ * Засевает нескольких владельцев с животными и визитами и проверяет, что каждый
+ * маршрут выполняет ровно ожидаемое число запросов. Число не должно зависеть от
+ * количества строк: если список начнёт догружать связи построчно (N+1), тест упадёт
+ * и перечислит выполненные запросы. Кэши справочников и кэш второго уровня Hibernate
+ * очищаются перед каждым запросом, поэтому считается худший случай; отдельный тест
+ * проверяет повторный показ форм из тёплого кэша.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointSqlStatementsTest {
+
+    private static final int OWNERS = 3;
+    private static final int PETS_PER_OWNER = 3;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlStatementCounter counter;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OwnerSearchIndex ownerSearchIndex;
+
+    @Autowired
+    private VisitTextIndex visitTextIndex;
+
+    @Autowired
+    private ClinicStatistics clinicStatistics;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    private final List<Owner> owners = new ArrayList<>();
+    private final List<Pet> pets = new ArrayList<>();
+    private final List<Visit> visits = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        int n = 0;
+        for (int o = 0; o < OWNERS; o++) {
+            Owner owner = new Owner();
+            owner.setName("Владелец");
+            owner.setEmail("owner" + o + "@sql.test");
+            owner.setPhone(String.format("8%010d", 7_000_000_000L + o));
+            owners.add(owner);
+            for (int p = 0; p < PETS_PER_OWNER; p++, n++) {
+                Pet pet = new Pet();
+                pet.setName("Барсик");
+                pet.setSpecies("Кошка");
+                pet.setBreed("Сиамская");
+                pet.setBirthDate(LocalDate.of(2020, 1, 1));
+                pet.setPassportNumber(String.valueOf(6_000_000_000L + n));
+                pet.setOwner(owner);
+                pets.add(pet);
+
+                Visit visit = new Visit();
+                visit.setDate(FIRST_DAY.plusDays(n));
+                visit.setTime(LocalTime.of(10, 0));
+                visit.setDiagnosis("Осмотр");
+                visit.setTreatment("Нет");
+                visit.setPet(pet);
+                visits.add(visit);
+            }
+        }
+        ownerRepository.saveAll(owners);
+        petRepository.saveAll(pets);
+        visitRepository.saveAll(visits);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ownerRepository.deleteAllById(owners.stream().map(Owner::getId).toList());
+    }
+
+    @Test
+    void listPagesRunOneQueryRegardlessOfRows() throws Exception {
+        expect(1, get("/owners"));
+        expect(1, get("/pets"));
+        expect(1, get("/visits"));
+    }
+
+    @Test
+    void formsLoadEntityAndOptionsOnce() throws Exception {
+        // Владелец выбирается поиском, список владельцев не загружается
+        expect(0, get("/pets/add"));
+        expect(1, get("/visits/add"));
+        expect(1, get("/owners/edit/{id}", owners.get(0).getId()));
+        expect(1, get("/pets/edit/{id}", pets.get(0).getId()));
+        // Выбранное животное не загружается заново для каждого варианта списка
+        expect(2, get("/visits/edit/{id}", visits.get(0).getId()));
+    }
+
+    @Test
+    void ownerSearchIsServedFromMemory() throws Exception {
+        // Владельцы засеяны через репозиторий, мимо событий OwnerService
+        ownerSearchIndex.reload();
+
+        expect(0, get("/owners/search").param("q", "owner1@"));
+        mockMvc.perform(get("/owners/search").param("q", "owner1@"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(owners.get(1).getId()))
+                .andExpect(jsonPath("$[0].phone").value(owners.get(1).getPhone()));
+    }
+
+    @Test
+    void visitSearchLoadsOnlyFoundPage() throws Exception {
+        visitTextIndex.reload();
+
+        expect(1, get("/visits/search").param("q", "осмотр"));
+        expect(1, get("/api/v1/visits/search").param("q", "осмо").param("size", "2"));
+        mockMvc.perform(get("/api/v1/visits/search").param("q", "осмо").param("size", "2")
+                        .param("from", FIRST_DAY.plusDays(1).toString()))
+                .andExpect(jsonPath("$.total").value(OWNERS * PETS_PER_OWNER - 1))
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].petName").value("Барсик"));
+    }
+
+    @Test
+    void statsDashboardIsServedFromCounters() throws Exception {
+        clinicStatistics.reload();
+
+        expect(0, get("/stats"));
+        expect(0, get("/stats").param("from", FIRST_DAY.toString()).param("to", FIRST_DAY.plusDays(60).toString()));
+        ClinicStats stats = (ClinicStats) mockMvc.perform(get("/stats")
+                        .param("from", FIRST_DAY.toString()).param("to", FIRST_DAY.plusDays(2).toString()))
+                .andReturn().getModelAndView().getModel().get("stats");
+        assertThat(stats.days()).extracting(ClinicStats.DayCount::count).containsExactly(1, 1, 1);
+        assertThat(stats.diagnoses()).contains(new ClinicStats.LabelCount("Осмотр", OWNERS * PETS_PER_OWNER));
+    }
+
+    @Test
+    void petDeleteChecksVisitsWithoutLoadingThem() throws Exception {
+        expect(2, get("/pets/delete/{id}", pets.get(0).getId()));
+    }
+
+    @Test
+    void ownerDeleteRunsSetBasedStatements() throws Exception {
+        // Счёт визитов, их id для событий и по одному DELETE для визитов, животных и владельца
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        assertStatements(counter, 5, () -> mockMvc.perform(get("/owners/delete/{id}", owners.get(0).getId()))
+                .andExpect(status().is3xxRedirection()));
+        assertThat(visitRepository.countByOwnerId(owners.get(0).getId())).isZero();
+        assertThat(petRepository.existsById(pets.get(0).getId())).isFalse();
+        assertThat(ownerRepository.existsById(owners.get(1).getId())).isTrue();
+    }
+
+    @Test
+    void visitEditReschedulesWithOneConditionalUpdate() throws Exception {
+        Visit visit = visits.get(0);
+        LocalDate day = visits.get(1).getDate();
+        // Первый перенос на день создаёт строку блокировки дня
+        mockMvc.perform(reschedule(visit, day, "12:00")).andExpect(status().is3xxRedirection());
+
+        // Блокировка дня и один UPDATE — визит не загружается
+        Long otherId = visitRepository.findById(visits.get(2).getId()).orElseThrow().getId();
+        RequestBuilder request = reschedule(visit, day, "13:00");
+        assertStatements(counter, 2, () -> mockMvc.perform(request).andExpect(status().is3xxRedirection()));
+        assertThat(visitRepository.findById(visit.getId()).orElseThrow().getTime()).isEqualTo(LocalTime.of(13, 0));
+        // Из кэша второго уровня вытеснен только перенесённый визит
+        assertThat(entityManagerFactory.getCache().contains(Visit.class, otherId)).isTrue();
+
+        mockMvc.perform(reschedule(visit, day, "10:30"))
+                .andExpect(model().attribute("timeError", "Это время пересекается с другим визитом"));
+        mockMvc.perform(reschedule(visit, FIRST_DAY, "12:00"))
+                .andExpect(model().attribute("dateError", "Нельзя перенести визит на более раннюю дату"));
+        assertThat(visitRepository.findById(visit.getId()).orElseThrow().getDate()).isEqualTo(day);
+    }
+
+    @Test
+    void staleEditFormsShowConflictPage() throws Exception {
+        Owner owner = owners.get(0);
+        mockMvc.perform(editOwner(owner, 0, "Первый")).andExpect(status().is3xxRedirection());
+
+        // Форма, открытая до первого сохранения, не перезаписывает владельца
+        mockMvc.perform(editOwner(owner, 0, "Второй"))
+                .andExpect(model().attributeExists("conflict"))
+                .andExpect(status().isOk());
+        assertThat(ownerRepository.findById(owner.getId()).orElseThrow().getName()).isEqualTo("Первый");
+
+        // Слияние отправляется с текущей версией
+        mockMvc.perform(editOwner(owner, 1, "Второй")).andExpect(status().is3xxRedirection());
+        assertThat(ownerRepository.findById(owner.getId()).orElseThrow().getName()).isEqualTo("Второй");
+
+        // Перенос визита по устаревшей форме тоже не проходит
+        Visit visit = visits.get(0);
+        mockMvc.perform(reschedule(visit, visits.get(1).getDate(), "12:00")).andExpect(status().is3xxRedirection());
+        mockMvc.perform(post("/visits/edit/{id}", visit.getId())
+                        .param("date", visits.get(2).getDate().toString())
+                        .param("time", "12:00")
+                        .param("diagnosis", visit.getDiagnosis())
+                        .param("treatment", visit.getTreatment())
+                        .param("pet.id", visit.getPet().getId().toString())
+                        .param("version", "0"))
+                .andExpect(model().attributeExists("conflict"));
+        assertThat(visitRepository.findById(visit.getId()).orElseThrow().getDate()).isEqualTo(visits.get(1).getDate());
+    }
+
+    @Test
+    void apiAndAvailabilityUseSingleQuery() throws Exception {
+        expect(1, get("/api/v1/pets").param("fields", "name,ownerName"));
+        expect(1, get("/api/v1/visits/{id}", visits.get(0).getId()).param("fields", "date,petName"));
+        expect(1, get("/visits/availability")
+                .param("from", FIRST_DAY.toString())
+                .param("to", FIRST_DAY.plusDays(6).toString()));
+    }
+
+    @Test
+    void repeatedEditFormsAreServedFromSecondLevelCache() throws Exception {
+        expectWarm(0, get("/owners/edit/{id}", owners.get(0).getId()));
+        expectWarm(0, get("/pets/edit/{id}", pets.get(0).getId()));
+        expectWarm(0, get("/visits/edit/{id}", visits.get(0).getId()));
+    }
+
+    // Отправка формы редактирования визита с новыми датой и временем
+    private RequestBuilder reschedule(Visit visit, LocalDate date, String time) {
+        return post("/visits/edit/{id}", visit.getId())
+                .param("date", date.toString())
+                .param("time", time)
+                .param("diagnosis", visit.getDiagnosis())
+                .param("treatment", visit.getTreatment())
+                .param("pet.id", visit.getPet().getId().toString())
+                .param("version", visitRepository.findById(visit.getId()).orElseThrow().getVersion().toString());
+    }
+
+    // Отправка формы редактирования владельца, открытой на заданной версии
+    private RequestBuilder editOwner(Owner owner, long version, String name) {
+        return post("/owners/edit/{id}", owner.getId())
+                .param("name", name)
+                .param("email", owner.getEmail())
+                .param("phone", owner.getPhone())
+                .param("version", String.valueOf(version));
+    }
+
+    private void expect(int statements, RequestBuilder request) throws Exception {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        assertStatements(counter, statements, () -> mockMvc.perform(request).andExpect(status().is2xxSuccessful()));
+    }
+
+    // Первый запрос заполняет кэши, считается второй
+    private void expectWarm(int statements, RequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().is2xxSuccessful());
+        assertStatements(counter, statements, () -> mockMvc.perform(request).andExpect(status().is2xxSuccessful()));
+    }
+}
@@ -0,0 +1,93 @@
+package com.hfbe_Polina.web_project.controllers;
+
+import com.hfbe_Polina.web_project.dto.PetListItem;
+import com.hfbe_Polina.web_project.paging.KeysetPage;
+import com.hfbe_Polina.web_project.paging.PageQuery;
+import com.hfbe_Polina.web_project.services.DataVersions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.spring6.view.ThymeleafViewResolver;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Страница списка из кэша фрагментов {@link FragmentCache} совпадает с обычной.
+ *
+ * <p>
+ * Список животных отрисовывается целиком и через готовый HTML фрагмента
+ * {@code listing}, как в профиле prod; страницы должны совпасть с точностью
+ * до пробелов. Повторный запрос той же версии данных берёт фрагмент из кэша,
+ * не строя модель. Скорость отрисовки замеряет {@code ListRenderingBenchmark}
+ * в профиле benchmarks.
+ * </p>
+ */
+@SpringBootTest(properties = {"spring.thymeleaf.cache=true", "app.fragment-cache.enabled=true"})
+class FragmentCacheTest {
+
+    private static final int ROWS = 50;
+
+    @Autowired
+    private ThymeleafViewResolver viewResolver;
+
+    @Autowired
+    private FragmentCache fragmentCache;
+
+    @Test
+    void cachedListingRendersSamePage() {
+        List<PetListItem> pets = new ArrayList<>();
+        for (long id = 1; id <= ROWS; id++) {
+            pets.add(new PetListItem(id, "Барсик " + id, LocalDate.of(2020, 1, 1).plusDays(id),
+                    String.valueOf(1_000_000_000L + id), "Кошка", "Сиамская", "Владелец " + id % 5));
+        }
+        KeysetPage<PetListItem> page = new KeysetPage<>(pets, "id", "asc", ROWS, "next", null);
+        Map<String, Object> listModel = Map.of("page", page, "pets", pets);
+        DataVersions.Version version = new DataVersions.Version("\"fragment-test\"", 0);
+
+        AtomicInteger modelBuilds = new AtomicInteger();
+        String listing = fragmentCache.render("pets/list", "listing", version, PageQuery.firstPage(), webRequest(),
+                () -> {
+                    modelBuilds.incrementAndGet();
+                    return listModel;
+                });
+        String cached = fragmentCache.render("pets/list", "listing", version, PageQuery.firstPage(), webRequest(),
+                () -> {
+                    modelBuilds.incrementAndGet();
+                    return listModel;
+                });
+
+        assertThat(modelBuilds).hasValue(1);
+        assertThat(cached).isEqualTo(listing);
+        assertThat(normalize(render(Map.of("listingHtml", listing)))).isEqualTo(normalize(render(listModel)));
+    }
+
+    private String render(Map<String, Object> model) {
+        try {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            viewResolver.resolveViewName("pets/list", Locale.getDefault())
+                    .render(new HashMap<>(model), new MockHttpServletRequest("GET", "/pets"), response);
+            return response.getContentAsString();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/pets"), new MockHttpServletResponse());
+    }
+
+    private static String normalize(String html) {
+        return html.replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,132 @@
+package com.hfbe_Polina.web_project.imports;
+
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import com.hfbe_Polina.web_project.services.VisitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверка массового импорта {@link BulkImportService}.
+ *
+ * <p>
+ * Импортируется цепочка владелец → животные → визиты: корректные строки сохраняются,
+ * строки с ошибками валидации, дубликатами и конфликтами расписания отклоняются
+ * с указанием номера строки и причины. Отдельно замеряется скорость импорта
+ * нескольких тысяч владельцев.
+ * </p>
+ */
+@SpringBootTest
+class BulkImportServiceTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkImportServiceTest.class);
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        ownerRepository.deleteAll(ownerRepository.findAll().stream()
+                .filter(owner -> owner.getEmail().endsWith("@import.test"))
+                .toList());
+    }
+
+    @Test
+    void importsValidRowsAndReportsRejectedOnes() throws IOException {
+        ImportReport owners = importText(ImportKind.OWNERS, ImportFormat.CSV, """
+                name,email,phone
+                Анна Иванова,anna@import.test,89000000001
+                "Пётр Петров",petr@import.test,89000000002
+                Bad Name 1,bad@import.test,89000000003
+                Дубль,anna@import.test,89000000004
+                Без кавычки,x@import.test
+                """);
+        assertThat(owners.imported()).isEqualTo(2);
+        assertThat(owners.rejectedRows()).extracting(RejectedRow::line).containsExactly(4L, 5L, 6L);
+        assertThat(owners.rejectedRows().get(0).reason()).startsWith("name:");
+        assertThat(owners.rejectedRows().get(1).reason()).isEqualTo("Email уже используется");
+
+        ImportReport pets = importText(ImportKind.PETS, ImportFormat.NDJSON, """
+                {"name":"Барсик","species":"Кот","breed":"Сиамский","birthDate":"2020-05-01","passportNumber":"7000000001","ownerEmail":"anna@import.test"}
+                {"name":"Шарик","species":"Пёс","breed":"Дворняга","birthDate":"2021-01-10","passportNumber":"7000000002","ownerEmail":"petr@import.test"}
+                {"name":"Никто","species":"Кот","breed":"Сфинкс","birthDate":"2021-01-10","passportNumber":"7000000003","ownerEmail":"nobody@import.test"}
+                {"name":"Рекс","species":"Пёс","breed":"Овчарка","birthDate":"2030-01-01","passportNumber":"7000000004","ownerEmail":"anna@import.test"}
+                not json
+                """);
+        assertThat(pets.imported()).isEqualTo(2);
+        assertThat(pets.rejected()).isEqualTo(3);
+
+        StringBuilder visits = new StringBuilder("date,time,diagnosis,treatment,passportNumber\n");
+        for (int hour = 8; hour <= 15; hour++) {
+            visits.append(DAY).append(',').append(LocalTime.of(hour, 0)).append(",Осмотр,Нет,7000000001\n");
+        }
+        visits.append(DAY).append(",09:30,Осмотр,Нет,7000000002\n");   // пересечение
+        visits.append(DAY.plusDays(1)).append(",16:00,Осмотр,Нет,7000000002\n");   // вне часов приёма
+        visits.append(VisitService.LAST_VISIT_DATE.plusDays(1)).append(",10:00,Осмотр,Нет,7000000002\n");   // после последней даты
+        double booked = bookedCount();
+        double overlaps = rejectedCount("overlap");
+        ImportReport visitReport = importText(ImportKind.VISITS, ImportFormat.CSV, visits.toString());
+
+        assertThat(visitReport.imported()).isEqualTo(VisitService.DAILY_LIMIT);
+        assertThat(visitReport.rejectedRows()).extracting(RejectedRow::reason)
+                .containsExactly("Это время пересекается с другим визитом", "Визиты принимаются с 08:00 до 15:00",
+                        "Дата визита должна быть до 12 марта 2026");
+        assertThat(visitRepository.countByDate(DAY)).isEqualTo(VisitService.DAILY_LIMIT);
+        // Метрики записи учитывают каждую строку один раз
+        assertThat(bookedCount() - booked).isEqualTo(VisitService.DAILY_LIMIT);
+        assertThat(rejectedCount("overlap") - overlaps).isEqualTo(1);
+    }
+
+    @Test
+    void importsThousandsOfOwnersInBatches() throws IOException {
+        int rows = 5_000;
+        StringBuilder csv = new StringBuilder("name,email,phone\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Владелец,owner").append(i).append("@import.test,8")
+                    .append(String.format("%010d", 5_000_000_000L + i)).append('\n');
+        }
+
+        ImportReport report = importText(ImportKind.OWNERS, ImportFormat.CSV, csv.toString());
+
+        assertThat(report.imported()).isEqualTo(rows);
+        assertThat(report.rejected()).isZero();
+        log.info("Импорт {} владельцев: {} мс, {} строк/с", rows, report.elapsedMillis(), report.rowsPerSecond());
+    }
+
+    private double bookedCount() {
+        return meterRegistry.get("clinic.visits.booked").counter().count();
+    }
+
+    private double rejectedCount(String reason) {
+        return meterRegistry.get("clinic.visits.booking.rejected").tag("reason", reason).counter().count();
+    }
+
+    private ImportReport importText(ImportKind kind, ImportFormat format, String text) throws IOException {
+        return bulkImportService.importRows(kind, format,
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.hfbe_Polina.web_project.monitoring;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка числа SQL‑запросов в тестах.
+ *
+ * <p>
+ * Выполняет действие внутри записи {@link SqlStatementCounter} и сравнивает число
+ * запросов с ожидаемым. При расхождении сообщение перечисляет все выполненные
+ * запросы с числом повторов, поэтому лишний запрос или N+1 видно сразу.
+ * </p>
+ *
+ * <pre>{@code
+ * SqlStatementAssertions.assertStatements(counter, 1, () -> mockMvc.perform(get("/pets")));
+ * }</pre>
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    /**
+     * Действие, внутри которого считаются запросы.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Проверяет, что действие выполнило ровно {@code expected} SQL‑запросов.
+     *
+     * @param counter  счётчик из контекста приложения
+     * @param expected ожидаемое число запросов
+     * @param action   проверяемое действие
+     */
+    public static void assertStatements(SqlStatementCounter counter, int expected, Action action) throws Exception {
+        try (SqlStatementCounter.Recording recording = counter.start()) {
+            action.run();
+            if (recording.count() != expected) {
+                throw new AssertionError("Ожидалось SQL-запросов: " + expected
+                        + ", выполнено: " + recording.count() + "\n" + describe(recording.statements()));
+            }
+        }
+    }
+
+    private static String describe(Map<String, Integer> statements) {
+        return statements.entrySet().stream()
+                .map(e -> "  " + e.getValue() + "× " + e.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
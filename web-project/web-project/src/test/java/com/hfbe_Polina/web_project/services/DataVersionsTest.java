@@ -0,0 +1,73 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.services.DataVersions.Aggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Версии данных {@link DataVersions} в таблице {@code data_versions}.
+ *
+ * <p>
+ * Запись через приложение увеличивает строку агрегата в БД, а изменение строки
+ * другим процессом (второй экземпляр, импорт из командной строки) меняет ETag
+ * этого экземпляра после перечитывания таблицы.
+ * </p>
+ */
+@SpringBootTest(properties = "app.data-versions.refresh-interval=1h")
+class DataVersionsTest {
+
+    private static final String VERSION = "SELECT version FROM data_versions WHERE aggregate = ?";
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private OwnerService ownerService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Owner owner;
+
+    @AfterEach
+    void cleanUp() {
+        if (owner != null) {
+            ownerRepository.deleteById(owner.getId());
+        }
+    }
+
+    @Test
+    void savedOwnerBumpsStoredVersion() {
+        long stored = jdbcTemplate.queryForObject(VERSION, Long.class, "OWNERS");
+        String etag = dataVersions.current(Aggregate.OWNERS).etag();
+
+        owner = new Owner();
+        owner.setName("Владелец");
+        owner.setEmail("owner@versions.test");
+        owner.setPhone("89997770000");
+        ownerService.save(owner);
+
+        assertThat(jdbcTemplate.queryForObject(VERSION, Long.class, "OWNERS")).isEqualTo(stored + 1);
+        assertThat(dataVersions.current(Aggregate.OWNERS).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void changeByAnotherProcessIsSeenAfterRefresh() {
+        String etag = dataVersions.current(Aggregate.VISITS).etag();
+
+        jdbcTemplate.update("UPDATE data_versions SET version = version + 1 WHERE aggregate = 'VISITS'");
+        dataVersions.refresh();
+
+        assertThat(dataVersions.current(Aggregate.VISITS).etag()).isNotEqualTo(etag);
+    }
+}
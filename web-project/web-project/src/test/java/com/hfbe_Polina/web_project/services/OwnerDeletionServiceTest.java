@@ -0,0 +1,120 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Фоновое удаление владельца порциями {@link OwnerDeletionService}.
+ *
+ * <p>
+ * Размер порции уменьшен до трёх визитов, поэтому владелец с семью визитами
+ * удаляется в фоне за три порции и последний шаг. Проверяется, что удалены
+ * все его визиты и животные, а чужие данные не тронуты, и что ход завершённого
+ * удаления вытесняется через {@code app.delete.status-ttl}.
+ * </p>
+ */
+@SpringBootTest(properties = {"app.delete.chunk-size=3", "app.delete.status-ttl=1s"})
+class OwnerDeletionServiceTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 9, 1);
+
+    @Autowired
+    private OwnerDeletionService ownerDeletionService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    private final List<Owner> owners = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        ownerRepository.deleteAllById(owners.stream().map(Owner::getId).toList());
+    }
+
+    @Test
+    void largeOwnerIsDeletedInChunksInBackground() throws InterruptedException {
+        Owner large = seed(0, 7);
+        Owner other = seed(1, 2);
+
+        OwnerDeletion deletion = ownerDeletionService.delete(large.getId());
+        assertThat(deletion.getTotalVisits()).isEqualTo(7);
+        for (int i = 0; i < 100 && deletion.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+
+        assertThat(deletion.getStatus()).isEqualTo(OwnerDeletion.Status.DONE);
+        assertThat(deletion.getDeletedVisits()).isEqualTo(7);
+        assertThat(ownerDeletionService.find(large.getId())).isSameAs(deletion);
+        assertThat(ownerRepository.existsById(large.getId())).isFalse();
+        assertThat(visitRepository.countByOwnerId(large.getId())).isZero();
+        assertThat(visitRepository.countByOwnerId(other.getId())).isEqualTo(2);
+
+        // Небольшой владелец удаляется сразу, без фоновой задачи
+        OwnerDeletion small = ownerDeletionService.delete(other.getId());
+        assertThat(small.getStatus()).isEqualTo(OwnerDeletion.Status.DONE);
+        assertThat(ownerDeletionService.find(other.getId())).isNull();
+        assertThat(ownerRepository.existsById(other.getId())).isFalse();
+
+        for (int i = 0; i < 100 && ownerDeletionService.find(large.getId()) != null; i++) {
+            Thread.sleep(100);
+        }
+        assertThat(ownerDeletionService.find(large.getId())).isNull();
+    }
+
+    // Владелец с двумя животными и заданным числом визитов
+    private Owner seed(int n, int visits) {
+        Owner owner = new Owner();
+        owner.setName("Владелец");
+        owner.setEmail("owner" + n + "@deletion.test");
+        owner.setPhone(String.format("8%010d", 5_000_000_000L + n));
+        ownerRepository.save(owner);
+        owners.add(owner);
+
+        List<Pet> pets = new ArrayList<>();
+        for (int p = 0; p < 2; p++) {
+            Pet pet = new Pet();
+            pet.setName("Барсик");
+            pet.setSpecies("Кошка");
+            pet.setBreed("Сиамская");
+            pet.setBirthDate(LocalDate.of(2020, 1, 1));
+            pet.setPassportNumber(String.valueOf(5_000_000_000L + n * 10L + p));
+            pet.setOwner(owner);
+            pets.add(pet);
+        }
+        petRepository.saveAll(pets);
+
+        List<Visit> seeded = new ArrayList<>();
+        for (int v = 0; v < visits; v++) {
+            Visit visit = new Visit();
+            visit.setDate(FIRST_DAY.plusDays(n * 10L + v));
+            visit.setTime(LocalTime.of(10, 0));
+            visit.setDiagnosis("Осмотр");
+            visit.setTreatment("Нет");
+            visit.setPet(pets.get(v % pets.size()));
+            seeded.add(visit);
+        }
+        visitRepository.saveAll(seeded);
+        return owner;
+    }
+}
@@ -0,0 +1,167 @@
+package com.hfbe_Polina.web_project.services;
+
+import com.hfbe_Polina.web_project.entities.Owner;
+import com.hfbe_Polina.web_project.entities.Pet;
+import com.hfbe_Polina.web_project.entities.Visit;
+import com.hfbe_Polina.web_project.repositories.OwnerRepository;
+import com.hfbe_Polina.web_project.repositories.PetRepository;
+import com.hfbe_Polina.web_project.repositories.VisitRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочная проверка атомарной записи визитов {@link VisitService#book}.
+ *
+ * <p>
+ * Несколько потоков одновременно пытаются записаться на одни и те же дни
+ * каждые 30 минут с 08:00 до 15:00. После этого в БД не должно быть
+ * пересекающихся визитов и дней, где записано больше {@link VisitService#DAILY_LIMIT}.
+ * </p>
+ */
+@SpringBootTest
+class VisitBookingConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitBookingConcurrencyTest.class);
+
+    private static final int THREADS = 16;
+    private static final int DAYS = 5;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 2, 2);
+
+    @Autowired
+    private VisitService visitService;
+
+    @Autowired
+    private OwnerRepository ownerRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private VisitRepository visitRepository;
+
+    private Owner owner;
+
+    @AfterEach
+    void cleanUp() {
+        if (owner != null) {
+            ownerRepository.deleteById(owner.getId());
+        }
+    }
+
+    @Test
+    void concurrentBookingsNeverOverlapOrExceedDailyLimit() throws Exception {
+        Pet pet = createPet();
+
+        List<LocalTime> times = new ArrayList<>();
+        for (LocalTime t = LocalTime.of(8, 0); !t.isAfter(LocalTime.of(15, 0)); t = t.plusMinutes(30)) {
+            times.add(t);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger booked = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            Random random = new Random(thread);
+            futures.add(pool.submit(() -> {
+                List<Visit> requests = new ArrayList<>();
+                for (int day = 0; day < DAYS; day++) {
+                    for (LocalTime time : times) {
+                        requests.add(visit(pet, FIRST_DAY.plusDays(day), time));
+                    }
+                }
+                Collections.shuffle(requests, random);
+
+                start.await();
+                for (Visit request : requests) {
+                    attempts.incrementAndGet();
+                    if (visitService.book(request) == BookingResult.BOOKED) {
+                        booked.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        pool.shutdown();
+
+        log.info("{} booking attempts from {} threads in {} s: {} attempts/s, {} booked",
+                attempts.get(), THREADS, String.format("%.2f", seconds),
+                Math.round(attempts.get() / seconds), booked.get());
+
+        Map<LocalDate, List<LocalTime>> byDay = new TreeMap<>();
+        for (Visit visit : visitRepository.findAll()) {
+            if (!visit.getDate().isBefore(FIRST_DAY) && visit.getDate().isBefore(FIRST_DAY.plusDays(DAYS))) {
+                byDay.computeIfAbsent(visit.getDate(), d -> new ArrayList<>()).add(visit.getTime());
+            }
+        }
+
+        assertThat(byDay.values().stream().mapToInt(List::size).sum()).isEqualTo(booked.get());
+        assertThat(byDay).hasSize(DAYS);
+        byDay.forEach((date, booking) -> {
+            assertThat(booking).as("visits on %s", date).hasSizeLessThanOrEqualTo(VisitService.DAILY_LIMIT);
+            Collections.sort(booking);
+            for (int i = 1; i < booking.size(); i++) {
+                assertThat(ChronoUnit.MINUTES.between(booking.get(i - 1), booking.get(i)))
+                        .as("gap between visits on %s", date)
+                        .isGreaterThanOrEqualTo(60);
+            }
+        });
+    }
+
+    private Pet createPet() {
+        owner = new Owner();
+        owner.setName("Нагрузка");
+        owner.setEmail("booking-load@example.com");
+        owner.setPhone("89990000001");
+        ownerRepository.save(owner);
+
+        Pet pet = new Pet();
+        pet.setName("Тест");
+        pet.setSpecies("Кошка");
+        pet.setBreed("Беспородная");
+        pet.setBirthDate(LocalDate.of(2020, 1, 1));
+        pet.setPassportNumber("9990000001");
+        pet.setOwner(owner);
+        return petRepository.save(pet);
+    }
+
+    private static Visit visit(Pet pet, LocalDate date, LocalTime time) {
+        Visit visit = new Visit();
+        visit.setDate(date);
+        visit.setTime(time);
+        visit.setDiagnosis("Осмотр");
+        visit.setTreatment("Нет");
+        visit.setPet(pet);
+        return visit;
+    }
+}